@@ -1,4 +1,6 @@
 -- Script de inicialización de la base de datos ltprods
+-- Solo se aplica a una base nueva; las bases existentes se actualizan con scripts/migracion-inventario.sql,
+-- que debe cambiar junto con este archivo
 -- Crear la base de datos si no existe
 CREATE DATABASE IF NOT EXISTS ltprods;
 USE ltprods;
@@ -22,10 +24,31 @@ CREATE TABLE IF NOT EXISTS Inventario (
     fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     fecha_actualizacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     version BIGINT DEFAULT 0,
+    -- Punto de reorden por producto; NULL usa el umbral por defecto (10, Inventario.STOCK_MINIMO_POR_DEFECTO)
+    stock_minimo INT NULL,
+    stock_maximo INT NULL,
+    -- Columna calculada e indexada para listar "cantidad bajo su propio mínimo" sin recorrer la tabla.
+    -- El 10 del COALESCE es Inventario.STOCK_MINIMO_POR_DEFECTO, que usan las alertas y las estadísticas: si
+    -- cambia uno, hay que cambiar el otro aquí y en scripts/migracion-inventario.sql, y regenerar la columna
+    bajo_minimo BOOLEAN GENERATED ALWAYS AS (cantidad < COALESCE(stock_minimo, 10)) STORED,
+    -- Número de filas de inventario_fragmentos entre las que se reparte el stock; 0 = sin fragmentar.
+    -- En un producto fragmentado, cantidad es la suma consolidada por el rebalanceo
+    fragmentos INT NOT NULL DEFAULT 0,
     PRIMARY KEY (producto_id),
     FOREIGN KEY (producto_id) REFERENCES Producto(id) ON DELETE CASCADE
 );
 
+-- Crear tabla de fragmentos de stock para productos muy concurridos: cada venta o compra bloquea
+-- una sola fila de fragmento en lugar de la fila de Inventario del producto
+CREATE TABLE IF NOT EXISTS inventario_fragmentos (
+    producto_id INT NOT NULL,
+    fragmento INT NOT NULL,
+    cantidad INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (producto_id, fragmento),
+    CONSTRAINT ck_fragmento_cantidad CHECK (cantidad >= 0),
+    FOREIGN KEY (producto_id) REFERENCES Inventario(producto_id) ON DELETE CASCADE
+);
+
 -- Crear tabla HistorialCompras (funcionalidad opcional)
 CREATE TABLE IF NOT EXISTS historial_compras (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -37,9 +60,51 @@ CREATE TABLE IF NOT EXISTS historial_compras (
     usuario VARCHAR(100),
     observaciones TEXT,
     fecha_operacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Variación con signo del stock (+COMPRA, -VENTA, nueva - anterior en AJUSTE); NULL en registros sin movimiento
+    delta INT NULL,
+    FOREIGN KEY (producto_id) REFERENCES Producto(id) ON DELETE CASCADE
+);
+
+-- Crear tabla de instantáneas del libro mayor: stock de un producto tras aplicar los movimientos de
+-- historial_compras hasta historial_id. Con el libro mayor activo el stock es la última instantánea más
+-- los deltas posteriores, y la compactación conserva solo la más reciente de cada producto
+CREATE TABLE IF NOT EXISTS inventario_instantaneas (
+    producto_id INT NOT NULL,
+    historial_id BIGINT NOT NULL,
+    cantidad INT NOT NULL,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (producto_id, historial_id),
+    FOREIGN KEY (producto_id) REFERENCES Inventario(producto_id) ON DELETE CASCADE
+);
+
+-- Crear tabla de alertas de stock (transiciones de umbral detectadas en cada mutación)
+CREATE TABLE IF NOT EXISTS alertas_stock (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    producto_id INT NOT NULL,
+    estado ENUM('ACTIVA', 'RESUELTA') NOT NULL,
+    umbral INT NOT NULL,
+    cantidad INT NOT NULL,
+    cantidad_resolucion INT,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    fecha_resolucion TIMESTAMP NULL,
+    -- Solo puede haber una alerta activa por producto (deduplicación entre instancias)
+    producto_alerta_activa INT GENERATED ALWAYS AS (CASE WHEN estado = 'ACTIVA' THEN producto_id END) STORED,
+    UNIQUE KEY uk_alerta_activa_producto (producto_alerta_activa),
     FOREIGN KEY (producto_id) REFERENCES Producto(id) ON DELETE CASCADE
 );
 
+-- Crear tabla de importaciones CSV (punto de control para reportar progreso y reanudar)
+CREATE TABLE IF NOT EXISTS importaciones_inventario (
+    id VARCHAR(64) PRIMARY KEY,
+    estado ENUM('EN_PROCESO', 'COMPLETADA', 'FALLIDA') NOT NULL,
+    lineas_procesadas BIGINT NOT NULL DEFAULT 0,
+    filas_importadas BIGINT NOT NULL DEFAULT 0,
+    filas_rechazadas BIGINT NOT NULL DEFAULT 0,
+    ultimo_error VARCHAR(500),
+    fecha_inicio TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    fecha_actualizacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
 -- Insertar datos de ejemplo para Producto
 INSERT INTO Producto (id, nombre, descripcion, precio, categoria, activo) VALUES
 (1, 'Laptop HP Pavilion', 'Laptop de 15 pulgadas con procesador Intel i5', 899.99, 'Electrónicos', true),
@@ -60,8 +125,12 @@ INSERT INTO Inventario (producto_id, cantidad) VALUES
 CREATE INDEX idx_producto_categoria ON Producto(categoria);
 CREATE INDEX idx_producto_activo ON Producto(activo);
 CREATE INDEX idx_inventario_cantidad ON Inventario(cantidad);
+CREATE INDEX idx_inventario_bajo_minimo ON Inventario(bajo_minimo);
 CREATE INDEX idx_historial_producto_fecha ON historial_compras(producto_id, fecha_operacion);
 CREATE INDEX idx_historial_tipo_operacion ON historial_compras(tipo_operacion);
+CREATE INDEX idx_historial_fecha_producto ON historial_compras(fecha_operacion, producto_id);
+CREATE INDEX idx_historial_movimientos ON historial_compras(producto_id, id, delta);
+CREATE INDEX idx_alertas_estado_fecha ON alertas_stock(estado, fecha_creacion);
 
 -- Crear vistas útiles
 CREATE VIEW v_productos_con_stock AS
@@ -125,6 +194,36 @@ BEGIN
 END //
 DELIMITER ;
 
+-- Crear procedimiento de upsert atómico: fija la cantidad y devuelve la fila con la cantidad anterior
+-- en una sola llamada. LAST_INSERT_ID(expr) captura la cantidad previa dentro del propio UPDATE y
+-- ROW_COUNT() distingue inserción (1) de actualización (2), sin SELECT previo ni colisión de clave.
+DELIMITER //
+CREATE PROCEDURE sp_upsert_inventario(
+    IN p_producto_id INT,
+    IN p_cantidad INT
+)
+BEGIN
+    DECLARE v_creado BOOLEAN DEFAULT FALSE;
+    DECLARE v_cantidad_anterior INT DEFAULT 0;
+
+    INSERT INTO Inventario (producto_id, cantidad)
+    VALUES (p_producto_id, p_cantidad)
+    ON DUPLICATE KEY UPDATE
+        version = version + 1 + 0 * LAST_INSERT_ID(cantidad),
+        cantidad = VALUES(cantidad);
+
+    SET v_creado = (ROW_COUNT() = 1);
+    IF NOT v_creado THEN
+        SET v_cantidad_anterior = LAST_INSERT_ID();
+    END IF;
+
+    SELECT v_cantidad_anterior AS cantidad_anterior, v_creado AS creado,
+           producto_id, cantidad, stock_minimo, stock_maximo, fecha_creacion, fecha_actualizacion, version, fragmentos
+    FROM Inventario
+    WHERE producto_id = p_producto_id;
+END //
+DELIMITER ;
+
 -- Crear trigger para actualizar fecha_actualizacion en Producto
 DELIMITER //
 CREATE TRIGGER tr_producto_update
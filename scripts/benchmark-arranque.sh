@@ -0,0 +1,67 @@
+#!/bin/bash
+# Compara el tiempo hasta la primera solicitud atendida entre el jar actual y el perfil arranque-rapido
+# (código AOT + archivo CDS).
+#
+# Requiere la base de datos levantada (docker-compose up -d mysql) y el puerto 8081 libre. El calentamiento
+# se desactiva en ambas variantes para medir solo el arranque.
+#
+# Uso: scripts/benchmark-arranque.sh [repeticiones]
+set -e
+
+REPETICIONES="${1:-5}"
+RAIZ=$(cd "$(dirname "$0")/.." && pwd)
+TRABAJO="$RAIZ/target/benchmark-arranque"
+URL="http://localhost:8081/api/v1/actuator/health/liveness"
+CLASE_PRINCIPAL="com.linktic.inventario.InventarioApplication"
+OPCIONES="-Xms512m -Xmx1024m -XX:+UseG1GC -Dapp.calentamiento.habilitado=false"
+
+echo "Construyendo el jar actual..."
+(cd "$RAIZ" && mvn -B -q clean package -DskipTests)
+mkdir -p "$TRABAJO"
+cp "$RAIZ/target/inventario-service-1.0.0.jar" "$TRABAJO/clasico.jar"
+
+echo "Construyendo el perfil arranque-rapido y generando el archivo CDS..."
+(cd "$RAIZ" && mvn -B -q package -Parranque-rapido -DskipTests)
+cp "$RAIZ/target/inventario-service-1.0.0.jar" "$TRABAJO/aot.jar"
+JAVA_OPTS="$OPCIONES" sh "$RAIZ/scripts/preparar-arranque-rapido.sh" "$TRABAJO/aot.jar" "$TRABAJO/rapido" --entrenar \
+    > "$TRABAJO/entrenamiento.log" 2>&1
+
+# Arranca el comando indicado y devuelve los milisegundos hasta la primera respuesta 200
+medir() {
+    local directorio="$1"
+    shift
+    local inicio fin pid
+    inicio=$(date +%s%N)
+    (cd "$directorio" && exec java $OPCIONES "$@") > "$TRABAJO/ejecucion.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "La aplicación terminó antes de responder; ver $TRABAJO/ejecucion.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    fin=$(date +%s%N)
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo $(( (fin - inicio) / 1000000 ))
+}
+
+mediana() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+CLASICO=()
+RAPIDO=()
+for i in $(seq 1 "$REPETICIONES"); do
+    CLASICO+=("$(medir "$TRABAJO" -jar clasico.jar)")
+    RAPIDO+=("$(medir "$TRABAJO/rapido" -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true @classpath.args "$CLASE_PRINCIPAL")")
+    echo "Repetición $i: jar actual ${CLASICO[-1]} ms, arranque-rapido ${RAPIDO[-1]} ms"
+done
+
+MEDIANA_CLASICO=$(printf '%s\n' "${CLASICO[@]}" | mediana)
+MEDIANA_RAPIDO=$(printf '%s\n' "${RAPIDO[@]}" | mediana)
+echo
+echo "Mediana del tiempo hasta la primera solicitud ($REPETICIONES repeticiones):"
+echo "  jar actual:      $MEDIANA_CLASICO ms"
+echo "  arranque-rapido: $MEDIANA_RAPIDO ms"
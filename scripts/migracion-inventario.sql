@@ -0,0 +1,136 @@
+-- Migración de una base ltprods creada con una versión anterior de init.sql
+-- init.sql solo se ejecuta al crear el volumen de MySQL; este script lleva una base existente al mismo
+-- esquema. Cada paso comprueba information_schema, así que se puede ejecutar más de una vez:
+--   mysql -u root -p ltprods < scripts/migracion-inventario.sql
+USE ltprods;
+
+-- Tablas nuevas (mismas definiciones que init.sql)
+CREATE TABLE IF NOT EXISTS inventario_fragmentos (
+    producto_id INT NOT NULL,
+    fragmento INT NOT NULL,
+    cantidad INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (producto_id, fragmento),
+    CONSTRAINT ck_fragmento_cantidad CHECK (cantidad >= 0),
+    FOREIGN KEY (producto_id) REFERENCES Inventario(producto_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS inventario_instantaneas (
+    producto_id INT NOT NULL,
+    historial_id BIGINT NOT NULL,
+    cantidad INT NOT NULL,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (producto_id, historial_id),
+    FOREIGN KEY (producto_id) REFERENCES Inventario(producto_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS alertas_stock (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    producto_id INT NOT NULL,
+    estado ENUM('ACTIVA', 'RESUELTA') NOT NULL,
+    umbral INT NOT NULL,
+    cantidad INT NOT NULL,
+    cantidad_resolucion INT,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    fecha_resolucion TIMESTAMP NULL,
+    producto_alerta_activa INT GENERATED ALWAYS AS (CASE WHEN estado = 'ACTIVA' THEN producto_id END) STORED,
+    UNIQUE KEY uk_alerta_activa_producto (producto_alerta_activa),
+    FOREIGN KEY (producto_id) REFERENCES Producto(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS importaciones_inventario (
+    id VARCHAR(64) PRIMARY KEY,
+    estado ENUM('EN_PROCESO', 'COMPLETADA', 'FALLIDA') NOT NULL,
+    lineas_procesadas BIGINT NOT NULL DEFAULT 0,
+    filas_importadas BIGINT NOT NULL DEFAULT 0,
+    filas_rechazadas BIGINT NOT NULL DEFAULT 0,
+    ultimo_error VARCHAR(500),
+    fecha_inicio TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    fecha_actualizacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Columnas e índices nuevos: MySQL no admite ADD COLUMN IF NOT EXISTS, así que se comprueban en un
+-- procedimiento temporal
+DROP PROCEDURE IF EXISTS tmp_migrar_inventario;
+
+DELIMITER //
+CREATE PROCEDURE tmp_migrar_inventario()
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Inventario' AND COLUMN_NAME = 'stock_minimo') THEN
+        ALTER TABLE Inventario ADD COLUMN stock_minimo INT NULL;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Inventario' AND COLUMN_NAME = 'stock_maximo') THEN
+        ALTER TABLE Inventario ADD COLUMN stock_maximo INT NULL;
+    END IF;
+    -- El 10 es Inventario.STOCK_MINIMO_POR_DEFECTO, igual que en init.sql
+    IF NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Inventario' AND COLUMN_NAME = 'bajo_minimo') THEN
+        ALTER TABLE Inventario
+            ADD COLUMN bajo_minimo BOOLEAN GENERATED ALWAYS AS (cantidad < COALESCE(stock_minimo, 10)) STORED;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Inventario' AND COLUMN_NAME = 'fragmentos') THEN
+        ALTER TABLE Inventario ADD COLUMN fragmentos INT NOT NULL DEFAULT 0;
+    END IF;
+    -- Los registros anteriores quedan con delta NULL, como los registros sin movimiento
+    IF NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'historial_compras' AND COLUMN_NAME = 'delta') THEN
+        ALTER TABLE historial_compras ADD COLUMN delta INT NULL;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Inventario'
+                     AND INDEX_NAME = 'idx_inventario_bajo_minimo') THEN
+        CREATE INDEX idx_inventario_bajo_minimo ON Inventario(bajo_minimo);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'historial_compras'
+                     AND INDEX_NAME = 'idx_historial_fecha_producto') THEN
+        CREATE INDEX idx_historial_fecha_producto ON historial_compras(fecha_operacion, producto_id);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'historial_compras'
+                     AND INDEX_NAME = 'idx_historial_movimientos') THEN
+        CREATE INDEX idx_historial_movimientos ON historial_compras(producto_id, id, delta);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'alertas_stock'
+                     AND INDEX_NAME = 'idx_alertas_estado_fecha') THEN
+        CREATE INDEX idx_alertas_estado_fecha ON alertas_stock(estado, fecha_creacion);
+    END IF;
+END //
+DELIMITER ;
+
+CALL tmp_migrar_inventario();
+DROP PROCEDURE tmp_migrar_inventario;
+
+-- Procedimiento de upsert atómico (nuevo); se recrea para recoger también cambios posteriores
+DROP PROCEDURE IF EXISTS sp_upsert_inventario;
+
+DELIMITER //
+CREATE PROCEDURE sp_upsert_inventario(
+    IN p_producto_id INT,
+    IN p_cantidad INT
+)
+BEGIN
+    DECLARE v_creado BOOLEAN DEFAULT FALSE;
+    DECLARE v_cantidad_anterior INT DEFAULT 0;
+
+    INSERT INTO Inventario (producto_id, cantidad)
+    VALUES (p_producto_id, p_cantidad)
+    ON DUPLICATE KEY UPDATE
+        version = version + 1 + 0 * LAST_INSERT_ID(cantidad),
+        cantidad = VALUES(cantidad);
+
+    SET v_creado = (ROW_COUNT() = 1);
+    IF NOT v_creado THEN
+        SET v_cantidad_anterior = LAST_INSERT_ID();
+    END IF;
+
+    SELECT v_cantidad_anterior AS cantidad_anterior, v_creado AS creado,
+           producto_id, cantidad, stock_minimo, stock_maximo, fecha_creacion, fecha_actualizacion, version, fragmentos
+    FROM Inventario
+    WHERE producto_id = p_producto_id;
+END //
+DELIMITER ;
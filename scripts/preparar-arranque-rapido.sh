@@ -0,0 +1,53 @@
+#!/bin/sh
+# Prepara el jar del perfil arranque-rapido para ejecutarse con CDS (Class Data Sharing).
+#
+# CDS no admite el jar anidado de Spring Boot ni directorios de clases, así que el jar se descomprime en:
+#   <destino>/aplicacion.jar   clases de la aplicación (incluye el código AOT generado)
+#   <destino>/lib/*.jar        dependencias
+#   <destino>/classpath.args   argfile de java con el classpath en el orden de BOOT-INF/classpath.idx
+#
+# Con --entrenar además genera <destino>/app.jsa con una ejecución de entrenamiento que refresca el
+# contexto y termina (spring.context.exit=onRefresh), sin acceder a la base de datos. El archivo CDS debe
+# generarse con la misma JVM que lo usará.
+#
+# Uso: preparar-arranque-rapido.sh <jar> <destino> [--entrenar]
+set -e
+
+JAR="$1"
+DESTINO="$2"
+CLASE_PRINCIPAL="com.linktic.inventario.InventarioApplication"
+
+if [ -z "$JAR" ] || [ -z "$DESTINO" ]; then
+    echo "Uso: $0 <jar> <destino> [--entrenar]" >&2
+    exit 1
+fi
+JAR=$(cd "$(dirname "$JAR")" && pwd)/$(basename "$JAR")
+mkdir -p "$DESTINO"
+DESTINO=$(cd "$DESTINO" && pwd)
+
+if [ "$3" != "--entrenar" ] || [ ! -f "$DESTINO/classpath.args" ]; then
+    TEMPORAL=$(mktemp -d)
+    (cd "$TEMPORAL" && jar -xf "$JAR")
+
+    mkdir -p "$DESTINO/lib"
+    jar -cf "$DESTINO/aplicacion.jar" -C "$TEMPORAL/BOOT-INF/classes" .
+    cp "$TEMPORAL"/BOOT-INF/lib/*.jar "$DESTINO/lib/"
+
+    CLASSPATH_APP="aplicacion.jar"
+    for LIB in $(sed -n 's#^- "BOOT-INF/\(lib/[^"]*\)"$#\1#p' "$TEMPORAL/BOOT-INF/classpath.idx"); do
+        CLASSPATH_APP="$CLASSPATH_APP:$LIB"
+    done
+    echo "-cp $CLASSPATH_APP" > "$DESTINO/classpath.args"
+    rm -rf "$TEMPORAL"
+fi
+
+if [ "$3" = "--entrenar" ]; then
+    cd "$DESTINO"
+    java $JAVA_OPTS -XX:ArchiveClassesAtExit=app.jsa \
+        -Dspring.aot.enabled=true \
+        -Dspring.context.exit=onRefresh \
+        -Dspring.jpa.hibernate.ddl-auto=none \
+        -Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false \
+        -Dapp.calentamiento.habilitado=false \
+        @classpath.args "$CLASE_PRINCIPAL"
+fi
@@ -0,0 +1,11 @@
+-- Inicialización de la réplica de lectura (docker-compose.replicas.yml)
+-- Replica desde el primario por GTID; la base ltprods llega con la propia replicación
+CHANGE REPLICATION SOURCE TO
+    SOURCE_HOST = 'mysql',
+    SOURCE_PORT = 3306,
+    SOURCE_USER = 'root',
+    SOURCE_PASSWORD = 'Valery2005*',
+    SOURCE_AUTO_POSITION = 1,
+    GET_SOURCE_PUBLIC_KEY = 1;
+
+START REPLICA;
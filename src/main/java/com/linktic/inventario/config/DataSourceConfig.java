@@ -0,0 +1,119 @@
+package com.linktic.inventario.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuración de los pools de conexiones: OLTP y reportes sobre el primario de spring.datasource,
+ * y réplicas de lectura opcionales. Las transacciones @Transactional(readOnly = true) son las de reporte
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Value("${app.datasource.oltp.max-conexiones:20}")
+    private int oltpMaxConexiones;
+
+    @Value("${app.datasource.oltp.timeout-conexion-ms:3000}")
+    private long oltpTimeoutMs;
+
+    @Value("${app.datasource.reportes.max-conexiones:5}")
+    private int reportesMaxConexiones;
+
+    @Value("${app.datasource.reportes.timeout-conexion-ms:30000}")
+    private long reportesTimeoutMs;
+
+    @Value("${app.datasource.replicas.habilitadas:false}")
+    private boolean replicasHabilitadas;
+
+    @Value("${app.datasource.replicas.urls:}")
+    private List<String> urls;
+
+    @Value("${app.datasource.replicas.retraso-maximo-segundos:5}")
+    private long retrasoMaximoSegundos;
+
+    @Value("${app.datasource.replicas.intervalo-verificacion-ms:2000}")
+    private long intervaloVerificacionMs;
+
+    @Value("${app.datasource.replicas.max-conexiones:10}")
+    private int replicasMaxConexiones;
+
+    /**
+     * DataSource de la aplicación: el enrutador detrás de un proxy que retrasa la conexión real
+     * hasta la primera sentencia, cuando ya se conoce si la transacción es de solo lectura
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(EnrutadorLecturasDataSource enrutadorLecturasDataSource) {
+        return new LazyConnectionDataSourceProxy(enrutadorLecturasDataSource);
+    }
+
+    @Bean(destroyMethod = "close")
+    public EnrutadorLecturasDataSource enrutadorLecturasDataSource(DataSourceProperties dataSourceProperties,
+                                                                   MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metricas = new MicrometerMetricsTrackerFactory(meterRegistry);
+        HikariDataSource oltp = crearPool(dataSourceProperties, null, EnrutadorLecturasDataSource.OLTP,
+                oltpMaxConexiones, oltpTimeoutMs, metricas);
+        HikariDataSource reportes = crearPool(dataSourceProperties, null, EnrutadorLecturasDataSource.REPORTES,
+                reportesMaxConexiones, reportesTimeoutMs, metricas);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        if (replicasHabilitadas) {
+            for (int i = 0; i < urls.size(); i++) {
+                HikariDataSource replica = crearPool(dataSourceProperties, urls.get(i), "replica-" + (i + 1),
+                        replicasMaxConexiones, reportesTimeoutMs, metricas);
+                replica.setReadOnly(true);
+                // Una réplica caída no debe impedir el arranque: se detecta en la verificación
+                replica.setInitializationFailTimeout(-1);
+                replicas.put(replica.getPoolName(), replica);
+            }
+        }
+
+        EnrutadorLecturasDataSource enrutador = new EnrutadorLecturasDataSource(oltp, reportes, replicas,
+                retrasoMaximoSegundos);
+        if (!replicas.isEmpty()) {
+            Gauge.builder("datasource.replicas.disponibles", enrutador, EnrutadorLecturasDataSource::getReplicasDisponibles)
+                    .description("Réplicas de lectura dentro de la tolerancia de retraso")
+                    .register(meterRegistry);
+            for (String nombre : enrutador.getNombresReplicas()) {
+                Gauge.builder("datasource.replicas.retraso", enrutador, e -> e.getRetrasoSegundos(nombre))
+                        .tag("replica", nombre)
+                        .description("Retraso de replicación medido (s); -1 si es desconocido")
+                        .register(meterRegistry);
+            }
+            enrutador.iniciarVerificacion(intervaloVerificacionMs);
+        }
+        return enrutador;
+    }
+
+    /**
+     * Pool Hikari con sus propias métricas (hikaricp.connections.*{pool=nombre}); url null usa la del primario
+     */
+    private static HikariDataSource crearPool(DataSourceProperties dataSourceProperties, String url, String nombre,
+                                              int maxConexiones, long timeoutMs,
+                                              MicrometerMetricsTrackerFactory metricas) {
+        HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        if (url != null) {
+            pool.setJdbcUrl(url);
+        }
+        pool.setPoolName(nombre);
+        pool.setMaximumPoolSize(maxConexiones);
+        pool.setConnectionTimeout(timeoutMs);
+        pool.setMetricsTrackerFactory(metricas);
+        return pool;
+    }
+}
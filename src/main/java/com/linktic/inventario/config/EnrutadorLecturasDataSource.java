@@ -0,0 +1,220 @@
+package com.linktic.inventario.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource que separa la carga transaccional de la de reportes
+ *
+ * Las transacciones de escritura y las operaciones sin transacción usan el pool OLTP del primario; las de solo
+ * lectura (listados, estadísticas, historial, exportación) usan una réplica o, sin réplicas disponibles, el pool
+ * de reportes del primario, de modo que una consulta pesada nunca ocupa las conexiones de las mutaciones.
+ * Las réplicas se eligen por turnos: una réplica deja de usarse si su retraso de replicación supera la
+ * tolerancia, si la replicación está detenida o si falla al dar una conexión. Debe envolverse en un
+ * LazyConnectionDataSourceProxy para que la conexión se pida cuando la transacción ya está marcada como de
+ * solo lectura.
+ */
+@Slf4j
+public class EnrutadorLecturasDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String OLTP = "oltp";
+    static final String REPORTES = "reportes";
+
+    private final DataSource oltp;
+    private final DataSource reportes;
+    private final List<Replica> replicas;
+    private final long retrasoMaximoSegundos;
+    private final AtomicInteger turno = new AtomicInteger();
+
+    private ScheduledExecutorService verificador;
+
+    public EnrutadorLecturasDataSource(DataSource oltp, DataSource reportes, Map<String, DataSource> replicas,
+                                       long retrasoMaximoSegundos) {
+        this.oltp = oltp;
+        this.reportes = reportes;
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.retrasoMaximoSegundos = retrasoMaximoSegundos;
+
+        Map<Object, Object> destinos = new HashMap<>(replicas);
+        destinos.put(OLTP, oltp);
+        destinos.put(REPORTES, reportes);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(oltp);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Verificar las réplicas ahora y después cada intervalo
+     */
+    public void iniciarVerificacion(long intervaloMs) {
+        verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "replicas-verificacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        verificador.scheduleWithFixedDelay(this::verificarReplicas, 0, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detener la verificación y cerrar todos los pools
+     */
+    @Override
+    public void close() {
+        if (verificador != null) {
+            verificador.shutdownNow();
+        }
+        cerrar(oltp);
+        cerrar(reportes);
+        replicas.forEach(replica -> cerrar(replica.dataSource));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return OLTP;
+        }
+        int inicio = Math.floorMod(turno.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((inicio + i) % replicas.size());
+            if (replica.disponible) {
+                return replica.nombre;
+            }
+        }
+        return REPORTES;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object clave = determineCurrentLookupKey();
+        if (OLTP.equals(clave)) {
+            return oltp.getConnection();
+        }
+        if (REPORTES.equals(clave)) {
+            return reportes.getConnection();
+        }
+        Replica replica = buscar(clave);
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            // La lectura sigue en el primario; la réplica vuelve cuando la verificación la encuentre al día
+            marcar(replica, false, replica.retrasoSegundos, "sin conexión: " + e.getMessage());
+            return reportes.getConnection();
+        }
+    }
+
+    /**
+     * Medir el retraso de replicación de cada réplica y actualizar su disponibilidad
+     */
+    public void verificarReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection conexion = replica.dataSource.getConnection();
+                 Statement sentencia = conexion.createStatement();
+                 ResultSet estado = sentencia.executeQuery("SHOW REPLICA STATUS")) {
+                if (!estado.next()) {
+                    marcar(replica, false, -1, "el servidor no está replicando");
+                    continue;
+                }
+                long retraso = estado.getLong("Seconds_Behind_Source");
+                if (estado.wasNull()) {
+                    marcar(replica, false, -1, "replicación detenida");
+                } else if (retraso > retrasoMaximoSegundos) {
+                    marcar(replica, false, retraso, "retraso de " + retraso + "s");
+                } else {
+                    marcar(replica, true, retraso, null);
+                }
+            } catch (SQLException e) {
+                marcar(replica, false, replica.retrasoSegundos, "sin conexión: " + e.getMessage());
+            }
+        }
+    }
+
+    public int getReplicasDisponibles() {
+        int disponibles = 0;
+        for (Replica replica : replicas) {
+            if (replica.disponible) {
+                disponibles++;
+            }
+        }
+        return disponibles;
+    }
+
+    /**
+     * Retraso medido de una réplica en segundos; -1 si es desconocido
+     */
+    public long getRetrasoSegundos(String nombre) {
+        return buscar(nombre).retrasoSegundos;
+    }
+
+    public List<String> getNombresReplicas() {
+        return replicas.stream().map(replica -> replica.nombre).toList();
+    }
+
+    /**
+     * Fijar el estado de una réplica sin consultarla (pruebas)
+     */
+    void marcarReplica(String nombre, boolean disponible, long retrasoSegundos) {
+        marcar(buscar(nombre), disponible, retrasoSegundos, disponible ? null : "marcada manualmente");
+    }
+
+    private void marcar(Replica replica, boolean disponible, long retrasoSegundos, String motivo) {
+        replica.retrasoSegundos = retrasoSegundos;
+        if (replica.disponible != disponible) {
+            replica.disponible = disponible;
+            if (disponible) {
+                log.info("Réplica {} disponible para lecturas (retraso {}s)", replica.nombre, retrasoSegundos);
+            } else {
+                log.warn("Réplica {} fuera de servicio, las lecturas van al primario: {}", replica.nombre, motivo);
+            }
+        }
+    }
+
+    private static void cerrar(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable cerrable) {
+            try {
+                cerrable.close();
+            } catch (Exception e) {
+                log.warn("No se pudo cerrar el pool de conexiones: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Replica buscar(Object nombre) {
+        for (Replica replica : replicas) {
+            if (replica.nombre.equals(nombre)) {
+                return replica;
+            }
+        }
+        throw new IllegalArgumentException("Réplica desconocida: " + nombre);
+    }
+
+    private static final class Replica {
+        private final String nombre;
+        private final DataSource dataSource;
+
+        // Hasta la primera verificación la réplica no recibe lecturas
+        private volatile boolean disponible;
+        private volatile long retrasoSegundos = -1;
+
+        private Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+    }
+}
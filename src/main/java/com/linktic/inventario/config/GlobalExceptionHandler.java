@@ -1,6 +1,8 @@
 package com.linktic.inventario.config;
 
+import com.linktic.inventario.service.ServicioProductosNoDisponibleException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -29,7 +31,7 @@ public class GlobalExceptionHandler {
         
         log.error("Error de validación: {}", ex.getMessage());
         
-        Map<String, String> errors = new HashMap<>();
+        Map<String, Object> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
@@ -68,6 +70,46 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errorResponse);
     }
 
+    /**
+     * Manejar conflictos de concurrencia que persisten tras los reintentos
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex, WebRequest request) {
+        
+        log.warn("Conflicto de concurrencia: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.CONFLICT.value())
+                .error("Conflict")
+                .message("El recurso fue modificado por otra operación; vuelva a intentarlo")
+                .timestamp(LocalDateTime.now())
+                .path(request.getDescription(false))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    /**
+     * Manejar la falta de respuesta del servicio de productos cuando no hay información local
+     */
+    @ExceptionHandler(ServicioProductosNoDisponibleException.class)
+    public ResponseEntity<ErrorResponse> handleServicioProductosNoDisponibleException(
+            ServicioProductosNoDisponibleException ex, WebRequest request) {
+        
+        log.warn("Servicio de productos no disponible: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .path(request.getDescription(false))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+    }
+
     /**
      * Manejar errores de recursos no encontrados
      */
@@ -0,0 +1,58 @@
+package com.linktic.inventario.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.linktic.inventario.dto.InventarioColeccion;
+import com.linktic.inventario.dto.InventarioJsonApiSerializer;
+import com.linktic.inventario.dto.InventarioListado;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+/**
+ * Conversor HTTP que escribe listados y colecciones de inventario en streaming, sin pasar por ObjectMapper
+ */
+public class InventarioListadoHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final JsonFactory jsonFactory;
+
+    public InventarioListadoHttpMessageConverter(JsonFactory jsonFactory) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return InventarioListado.class.isAssignableFrom(clazz) || InventarioColeccion.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException(clazz.getSimpleName() + " solo se usa para respuestas", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object documento, HttpOutputMessage outputMessage) throws IOException {
+        // Igual que el conversor Jackson: cerrar el generador devuelve sus buffers sin cerrar la respuesta
+        try (JsonGenerator generator = jsonFactory.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            if (documento instanceof InventarioColeccion coleccion) {
+                InventarioJsonApiSerializer.escribirColeccion(generator, coleccion);
+            } else {
+                InventarioJsonApiSerializer.escribirListado(generator, ((InventarioListado) documento).getInventarios());
+            }
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.linktic.inventario.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtro de Logback que aplica muestreo y limitación de tasa por logger
+ *
+ * WARN y ERROR nunca se filtran. Dentro de una solicitud muestreada (ver {@link MuestreoSolicitudFilter})
+ * los loggers de detalle se registran completos, incluso por debajo de su nivel configurado. Las consultas
+ * isXxxEnabled() (sin formato) no se muestrean: una llamada protegida por ellas se muestrea una sola vez, en
+ * el propio registro, y la tasa efectiva es la configurada y no su cuadrado.
+ */
+public class MuestreoLogTurboFilter extends TurboFilter {
+
+    static final String MDC_MUESTREADO = "muestreado";
+
+    private double tasaMuestreo = 1.0;
+    private String tasasPorLogger = "";
+    private long maxEventosPorSegundo = 0;
+    private String loggersDetalle = "";
+
+    private final List<String[]> reglas = new ArrayList<>();
+    private List<String> prefijosDetalle = List.of();
+    private final ConcurrentHashMap<String, Double> tasaResuelta = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Ventana> ventanas = new ConcurrentHashMap<>();
+
+    @Override
+    public void start() {
+        for (String regla : tasasPorLogger.split(",")) {
+            String[] partes = regla.trim().split("=");
+            if (partes.length == 2) {
+                reglas.add(new String[]{partes[0].trim(), partes[1].trim()});
+            }
+        }
+        // Prefijos más largos primero para que gane la regla más específica
+        reglas.sort((a, b) -> b[0].length() - a[0].length());
+        prefijosDetalle = Arrays.stream(loggersDetalle.split(","))
+                .map(String::trim)
+                .filter(prefijo -> !prefijo.isEmpty())
+                .toList();
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+
+        String nombre = logger.getName();
+        if ("true".equals(MDC.get(MDC_MUESTREADO))) {
+            return esLoggerDetalle(nombre) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+        }
+
+        // Los eventos por debajo del nivel efectivo se descartan de todas formas
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel()) || format == null) {
+            return FilterReply.NEUTRAL;
+        }
+
+        double tasa = tasaResuelta.computeIfAbsent(nombre, this::resolverTasa);
+        if (tasa < 1.0 && ThreadLocalRandom.current().nextDouble() >= tasa) {
+            return FilterReply.DENY;
+        }
+
+        if (maxEventosPorSegundo > 0
+                && !ventanas.computeIfAbsent(nombre, n -> new Ventana()).permitir(maxEventosPorSegundo)) {
+            return FilterReply.DENY;
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    private double resolverTasa(String nombreLogger) {
+        for (String[] regla : reglas) {
+            if (nombreLogger.startsWith(regla[0])) {
+                return Double.parseDouble(regla[1]);
+            }
+        }
+        return tasaMuestreo;
+    }
+
+    private boolean esLoggerDetalle(String nombreLogger) {
+        for (String prefijo : prefijosDetalle) {
+            if (nombreLogger.startsWith(prefijo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void setTasaMuestreo(double tasaMuestreo) { this.tasaMuestreo = tasaMuestreo; }
+    public void setTasasPorLogger(String tasasPorLogger) { this.tasasPorLogger = tasasPorLogger; }
+    public void setMaxEventosPorSegundo(long maxEventosPorSegundo) { this.maxEventosPorSegundo = maxEventosPorSegundo; }
+    public void setLoggersDetalle(String loggersDetalle) { this.loggersDetalle = loggersDetalle; }
+
+    /**
+     * Ventana fija de un segundo para limitar eventos por logger
+     */
+    private static class Ventana {
+        private final AtomicLong segundo = new AtomicLong();
+        private final AtomicLong eventos = new AtomicLong();
+
+        boolean permitir(long maximo) {
+            long ahora = System.currentTimeMillis() / 1000;
+            long actual = segundo.get();
+            if (actual != ahora && segundo.compareAndSet(actual, ahora)) {
+                eventos.set(0);
+            }
+            return eventos.incrementAndGet() <= maximo;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.linktic.inventario.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Filtro que marca una fracción de las solicitudes para registrar sus logs con detalle completo
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MuestreoSolicitudFilter extends OncePerRequestFilter {
+
+    @Value("${app.logging.muestreo.solicitudes:0.0}")
+    private double tasaSolicitudes;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (tasaSolicitudes <= 0 || ThreadLocalRandom.current().nextDouble() >= tasaSolicitudes) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        MDC.put(MuestreoLogTurboFilter.MDC_MUESTREADO, "true");
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MuestreoLogTurboFilter.MDC_MUESTREADO);
+        }
+    }
+}
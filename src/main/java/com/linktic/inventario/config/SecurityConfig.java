@@ -29,6 +29,8 @@ public class SecurityConfig {
             .authorizeHttpRequests(authz -> authz
                 // Permitir acceso a Swagger UI y documentación
                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/api-docs/**", "/v3/api-docs/**").permitAll()
+                // Las grabaciones JFR exponen datos de producción y requieren autenticación
+                .requestMatchers("/actuator/jfr/**").authenticated()
                 // Permitir acceso a health checks
                 .requestMatchers("/actuator/**", "/api/v1/inventario/health").permitAll()
                 // Requerir autenticación para todos los demás endpoints
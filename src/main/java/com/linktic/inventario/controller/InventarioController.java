@@ -1,10 +1,27 @@
 package com.linktic.inventario.controller;
 
+import com.linktic.inventario.dto.InventarioColeccion;
+import com.linktic.inventario.dto.InventarioListado;
 import com.linktic.inventario.dto.InventarioResponse;
 import com.linktic.inventario.dto.InventarioUpdateRequest;
+import com.linktic.inventario.dto.PedidoRequest;
+import com.linktic.inventario.dto.ReservaResponse;
+import com.linktic.inventario.model.AlertaStock;
+import com.linktic.inventario.model.ImportacionInventario;
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.model.ReservaStock;
+import com.linktic.inventario.service.AlertaStockService;
+import com.linktic.inventario.service.CambiosInventarioService;
+import com.linktic.inventario.service.EstadisticasInventarioCache;
+import com.linktic.inventario.service.ImportacionInventarioService;
 import com.linktic.inventario.service.InventarioService;
+import com.linktic.inventario.service.ReintentoConflictosInventario;
+import com.linktic.inventario.service.ReservaStockService;
+import com.linktic.inventario.service.ResultadoReserva;
+import com.linktic.inventario.service.ServicioProductosNoDisponibleException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,17 +29,23 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Controlador REST para la gestión de inventario con JSON API
@@ -36,6 +59,12 @@ import java.util.List;
 public class InventarioController {
 
     private final InventarioService inventarioService;
+    private final ReservaStockService reservaStockService;
+    private final CambiosInventarioService cambiosInventarioService;
+    private final AlertaStockService alertaStockService;
+    private final ImportacionInventarioService importacionInventarioService;
+    private final EstadisticasInventarioCache estadisticasInventarioCache;
+    private final ReintentoConflictosInventario reintentoConflictosInventario;
 
     /**
      * Consultar la cantidad disponible de un producto específico por ID
@@ -84,6 +113,7 @@ public class InventarioController {
             content = @Content(schema = @Schema(implementation = InventarioResponse.class))),
         @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos"),
         @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+        @ApiResponse(responseCode = "409", description = "Conflicto de concurrencia persistente tras los reintentos"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     public ResponseEntity<InventarioResponse> actualizarCantidad(
@@ -97,11 +127,15 @@ public class InventarioController {
         
         try {
             Integer nuevaCantidad = request.getData().getAttributes().getCantidad();
-            InventarioResponse response = inventarioService.actualizarCantidad(productoId, nuevaCantidad);
+            InventarioResponse response = reintentoConflictosInventario.ejecutar(productoId,
+                    () -> inventarioService.actualizarCantidad(productoId, nuevaCantidad));
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             log.error("Error de validación al actualizar cantidad: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Conflicto persistente al actualizar cantidad: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             log.error("Error al actualizar cantidad: {}", e.getMessage());
             return ResponseEntity.notFound().build();
@@ -124,6 +158,7 @@ public class InventarioController {
             content = @Content(schema = @Schema(implementation = InventarioResponse.class))),
         @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos"),
         @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+        @ApiResponse(responseCode = "409", description = "Conflicto de concurrencia persistente tras los reintentos"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     public ResponseEntity<InventarioResponse> incrementarCantidad(
@@ -138,11 +173,15 @@ public class InventarioController {
                 productoId, cantidad, precioUnitario);
         
         try {
-            InventarioResponse response = inventarioService.incrementarCantidad(productoId, cantidad, precioUnitario);
+            InventarioResponse response = reintentoConflictosInventario.ejecutar(productoId,
+                    () -> inventarioService.incrementarCantidad(productoId, cantidad, precioUnitario));
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             log.error("Error de validación al incrementar cantidad: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Conflicto persistente al incrementar cantidad: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             log.error("Error al incrementar cantidad: {}", e.getMessage());
             return ResponseEntity.notFound().build();
@@ -165,6 +204,7 @@ public class InventarioController {
             content = @Content(schema = @Schema(implementation = InventarioResponse.class))),
         @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos o stock insuficiente"),
         @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+        @ApiResponse(responseCode = "409", description = "Conflicto de concurrencia persistente tras los reintentos"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     public ResponseEntity<InventarioResponse> decrementarCantidad(
@@ -179,11 +219,15 @@ public class InventarioController {
                 productoId, cantidad, precioUnitario);
         
         try {
-            InventarioResponse response = inventarioService.decrementarCantidad(productoId, cantidad, precioUnitario);
+            InventarioResponse response = reintentoConflictosInventario.ejecutar(productoId,
+                    () -> inventarioService.decrementarCantidad(productoId, cantidad, precioUnitario));
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             log.error("Error de validación al decrementar cantidad: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Conflicto persistente al decrementar cantidad: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             log.error("Error al decrementar cantidad: {}", e.getMessage());
             return ResponseEntity.notFound().build();
@@ -193,27 +237,378 @@ public class InventarioController {
         }
     }
 
+    /**
+     * Decrementar todas las líneas de un pedido de venta en una sola transacción
+     */
+    @PostMapping(value = "/pedidos",
+                 consumes = MediaType.APPLICATION_JSON_VALUE,
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Decrementar pedido (venta de varias líneas)",
+        description = "Descuenta todas las líneas del pedido (máximo 200) o ninguna; devuelve el inventario " +
+                      "resultante de cada producto con los productos en included"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Pedido descontado exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Líneas inválidas o stock insuficiente en algún producto"),
+        @ApiResponse(responseCode = "404", description = "Algún producto no existe o no tiene inventario"),
+        @ApiResponse(responseCode = "409", description = "Conflicto de concurrencia persistente tras los reintentos"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor"),
+        @ApiResponse(responseCode = "503", description = "No se pudo verificar algún producto: servicio de productos no disponible")
+    })
+    public ResponseEntity<InventarioColeccion> decrementarPedido(
+            @Parameter(description = "Líneas del pedido", required = true)
+            @Valid @RequestBody PedidoRequest request) {
+
+        List<PedidoRequest.LineaPedido> lineas = request.getData().getAttributes().getLineas();
+        log.info("Solicitud de decremento de pedido con {} líneas", lineas.size());
+
+        try {
+            InventarioColeccion coleccion = reintentoConflictosInventario.ejecutar(null,
+                    () -> inventarioService.decrementarPedido(lineas));
+            return ResponseEntity.ok(coleccion);
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación al decrementar pedido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Conflicto persistente al decrementar pedido: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (ServicioProductosNoDisponibleException e) {
+            log.warn("No se pudo verificar el pedido: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (RuntimeException e) {
+            log.error("Error al decrementar pedido: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error interno al decrementar pedido: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Actualizar los umbrales de stock de un producto
+     */
+    @PatchMapping(value = "/{productoId}/umbrales", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Actualizar umbrales de stock",
+        description = "Define el stock mínimo (punto de reorden) y el stock máximo de un producto"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Umbrales actualizados exitosamente",
+            content = @Content(schema = @Schema(implementation = InventarioResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Umbrales inválidos"),
+        @ApiResponse(responseCode = "404", description = "Inventario no encontrado"),
+        @ApiResponse(responseCode = "409", description = "Conflicto de concurrencia persistente tras los reintentos"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<InventarioResponse> actualizarUmbrales(
+            @Parameter(description = "ID del producto", required = true)
+            @PathVariable @NotNull @Min(1) Integer productoId,
+            @Parameter(description = "Stock mínimo; si se omite se usa el umbral por defecto")
+            @RequestParam(required = false) @Min(0) Integer stockMinimo,
+            @Parameter(description = "Stock máximo")
+            @RequestParam(required = false) @Min(0) Integer stockMaximo) {
+
+        log.info("Solicitud de actualización de umbrales para producto: {} - Mínimo: {} - Máximo: {}",
+                productoId, stockMinimo, stockMaximo);
+
+        try {
+            InventarioResponse response = reintentoConflictosInventario.ejecutar(productoId,
+                    () -> inventarioService.actualizarUmbrales(productoId, stockMinimo, stockMaximo));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación al actualizar umbrales: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Conflicto persistente al actualizar umbrales: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            log.error("Error al actualizar umbrales: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error interno al actualizar umbrales: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Repartir el stock de un producto muy concurrido entre varios fragmentos
+     */
+    @PutMapping(value = "/{productoId}/fragmentos", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Fragmentar stock",
+        description = "Reparte el stock del producto entre varias filas para que las compras y ventas concurrentes " +
+                      "no se serialicen sobre una sola; la cantidad consultada sigue siendo la suma"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stock fragmentado exitosamente",
+            content = @Content(schema = @Schema(implementation = InventarioResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Número de fragmentos inválido"),
+        @ApiResponse(responseCode = "404", description = "Inventario no encontrado"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<InventarioResponse> fragmentarInventario(
+            @Parameter(description = "ID del producto", required = true)
+            @PathVariable @NotNull @Min(1) Integer productoId,
+            @Parameter(description = "Número de fragmentos", required = true)
+            @RequestParam @NotNull Integer fragmentos) {
+
+        log.info("Solicitud de fragmentación de stock para producto: {} - Fragmentos: {}", productoId, fragmentos);
+
+        try {
+            InventarioResponse response = inventarioService.fragmentarInventario(productoId, fragmentos);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación al fragmentar stock: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            log.error("Error al fragmentar stock: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error interno al fragmentar stock: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Volver a guardar el stock de un producto en una sola fila
+     */
+    @DeleteMapping(value = "/{productoId}/fragmentos", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Consolidar stock fragmentado",
+        description = "Suma los fragmentos del producto en su fila de inventario y los elimina"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stock consolidado exitosamente",
+            content = @Content(schema = @Schema(implementation = InventarioResponse.class))),
+        @ApiResponse(responseCode = "404", description = "Inventario no encontrado"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<InventarioResponse> consolidarInventario(
+            @Parameter(description = "ID del producto", required = true)
+            @PathVariable @NotNull @Min(1) Integer productoId) {
+
+        log.info("Solicitud de consolidación de stock para producto: {}", productoId);
+
+        try {
+            return ResponseEntity.ok(inventarioService.consolidarInventario(productoId));
+        } catch (RuntimeException e) {
+            log.error("Error al consolidar stock: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error interno al consolidar stock: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Reservar stock de un producto durante un tiempo limitado
+     */
+    @PostMapping(value = "/{productoId}/reservas", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Reservar stock",
+        description = "Retiene unidades de un producto durante un TTL; expiran solas si no se confirman"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Reserva creada exitosamente",
+            content = @Content(schema = @Schema(implementation = ReservaResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos o stock insuficiente"),
+        @ApiResponse(responseCode = "404", description = "Inventario no encontrado"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<ReservaResponse> reservarStock(
+            @Parameter(description = "ID del producto", required = true)
+            @PathVariable @NotNull @Min(1) Integer productoId,
+            @Parameter(description = "Cantidad a reservar", required = true)
+            @RequestParam @NotNull @Min(1) Integer cantidad,
+            @Parameter(description = "Tiempo de vida de la reserva en segundos")
+            @RequestParam(required = false) @Min(1) Integer ttlSegundos,
+            @Parameter(description = "Precio unitario")
+            @RequestParam(required = false) BigDecimal precioUnitario) {
+
+        log.info("Solicitud de reserva para producto: {} - Cantidad: {} - TTL: {}", productoId, cantidad, ttlSegundos);
+
+        try {
+            ResultadoReserva resultado = reservaStockService.reservar(productoId, cantidad, ttlSegundos, precioUnitario);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ReservaResponse.fromReserva(resultado.getReserva(), resultado.getCantidadDisponible()));
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación al reservar stock: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            log.error("Error al reservar stock: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error interno al reservar stock: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Consultar una reserva activa
+     */
+    @GetMapping(value = "/reservas/{reservaId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Consultar reserva",
+        description = "Obtiene una reserva activa y el stock disponible del producto"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reserva encontrada",
+            content = @Content(schema = @Schema(implementation = ReservaResponse.class))),
+        @ApiResponse(responseCode = "404", description = "Reserva no encontrada o expirada"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<ReservaResponse> consultarReserva(
+            @Parameter(description = "ID de la reserva", required = true)
+            @PathVariable String reservaId) {
+
+        try {
+            ReservaStock reserva = reservaStockService.obtenerReserva(reservaId);
+            return ResponseEntity.ok(ReservaResponse.fromReserva(reserva,
+                    reservaStockService.cantidadDisponible(reserva.getProductoId())));
+        } catch (RuntimeException e) {
+            log.error("Error al consultar reserva: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error interno al consultar reserva: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Confirmar una reserva descontando sus unidades del inventario (venta)
+     */
+    @PostMapping(value = "/reservas/{reservaId}/confirmar", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Confirmar reserva",
+        description = "Convierte la reserva en una venta y decrementa el inventario"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reserva confirmada exitosamente",
+            content = @Content(schema = @Schema(implementation = InventarioResponse.class))),
+        @ApiResponse(responseCode = "400", description = "La reserva ya se está confirmando o no hay stock suficiente"),
+        @ApiResponse(responseCode = "404", description = "Reserva no encontrada o expirada"),
+        @ApiResponse(responseCode = "409", description = "Conflicto de concurrencia persistente tras los reintentos"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<InventarioResponse> confirmarReserva(
+            @Parameter(description = "ID de la reserva", required = true)
+            @PathVariable String reservaId) {
+
+        log.info("Solicitud de confirmación de reserva: {}", reservaId);
+
+        try {
+            Integer productoId = reservaStockService.obtenerReserva(reservaId).getProductoId();
+            InventarioResponse response = reintentoConflictosInventario.ejecutar(productoId,
+                    () -> inventarioService.confirmarReserva(reservaId));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación al confirmar reserva: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Conflicto persistente al confirmar reserva: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            log.error("Error al confirmar reserva: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error interno al confirmar reserva: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Liberar una reserva antes de que expire
+     */
+    @DeleteMapping(value = "/reservas/{reservaId}")
+    @Operation(
+        summary = "Liberar reserva",
+        description = "Cancela una reserva activa y devuelve sus unidades al stock disponible"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Reserva liberada"),
+        @ApiResponse(responseCode = "400", description = "La reserva se está confirmando"),
+        @ApiResponse(responseCode = "404", description = "Reserva no encontrada o expirada"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<Void> liberarReserva(
+            @Parameter(description = "ID de la reserva", required = true)
+            @PathVariable String reservaId) {
+
+        log.info("Solicitud de liberación de reserva: {}", reservaId);
+
+        try {
+            reservaStockService.liberar(reservaId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación al liberar reserva: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            log.error("Error al liberar reserva: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error interno al liberar reserva: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Consultar el inventario de varios productos en una sola solicitud
+     */
+    @GetMapping(params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Lectura de inventario por lote",
+        description = "Obtiene el inventario de varios productos (máximo 200) con los productos en included; " +
+                      "los IDs sin inventario se informan en meta.errores"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Colección obtenida exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o demasiado grande"),
+        @ApiResponse(responseCode = "404", description = "Error al consultar el inventario"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<InventarioColeccion> getInventariosPorIds(
+            @Parameter(description = "IDs de los productos separados por coma", required = true)
+            @RequestParam List<Integer> ids) {
+
+        log.info("Solicitud de inventario por lote para {} IDs", ids.size());
+
+        try {
+            return ResponseEntity.ok(inventarioService.getInventariosPorIds(ids));
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación en la lectura por lote: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            log.error("Error en la lectura por lote: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error interno en la lectura por lote: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Obtener productos con stock bajo
      */
     @GetMapping(value = "/stock-bajo", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
         summary = "Productos con stock bajo",
-        description = "Obtiene la lista de productos con stock bajo"
+        description = "Obtiene la lista de productos por debajo de la cantidad indicada o de su propio stock mínimo"
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Lista de productos obtenida exitosamente"),
+        @ApiResponse(responseCode = "200", description = "Lista de productos obtenida exitosamente",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = InventarioResponse.class)))),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public ResponseEntity<List<InventarioResponse>> getProductosConStockBajo(
-            @Parameter(description = "Cantidad mínima para considerar stock bajo")
-            @RequestParam(defaultValue = "10") @Min(0) Integer cantidadMinima) {
+    public ResponseEntity<InventarioListado> getProductosConStockBajo(
+            @Parameter(description = "Cantidad mínima para considerar stock bajo; si se omite se usa el stock mínimo de cada producto")
+            @RequestParam(required = false) @Min(0) Integer cantidadMinima) {
         
-        log.info("Solicitud de productos con stock bajo (menos de {} unidades)", cantidadMinima);
+        log.info("Solicitud de productos con stock bajo (cantidad mínima: {})", cantidadMinima);
         
         try {
-            List<InventarioResponse> response = inventarioService.getProductosConStockBajo(cantidadMinima);
-            return ResponseEntity.ok(response);
+            List<Inventario> inventarios = inventarioService.getInventariosConStockBajo(cantidadMinima);
+            return ResponseEntity.ok(new InventarioListado(inventarios));
         } catch (Exception e) {
             log.error("Error interno al obtener productos con stock bajo: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -229,28 +624,161 @@ public class InventarioController {
         description = "Obtiene la lista de productos sin stock disponible"
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Lista de productos obtenida exitosamente"),
+        @ApiResponse(responseCode = "200", description = "Lista de productos obtenida exitosamente",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = InventarioResponse.class)))),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public ResponseEntity<List<InventarioResponse>> getProductosSinStock() {
+    public ResponseEntity<InventarioListado> getProductosSinStock() {
         log.info("Solicitud de productos sin stock");
         
         try {
-            List<InventarioResponse> response = inventarioService.getProductosSinStock();
-            return ResponseEntity.ok(response);
+            List<Inventario> inventarios = inventarioService.getInventariosSinStock();
+            return ResponseEntity.ok(new InventarioListado(inventarios));
         } catch (Exception e) {
             log.error("Error interno al obtener productos sin stock: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Suscribirse a los cambios de inventario (Server-Sent Events)
+     */
+    @GetMapping(value = "/cambios", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Feed de cambios de inventario",
+        description = "Stream SSE con producto_id, cantidad y versión de cada mutación confirmada. "
+            + "Admite filtrar por productos y reanudar con la cabecera Last-Event-ID"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream de eventos abierto")
+    })
+    public SseEmitter suscribirCambios(
+            @Parameter(description = "IDs de productos a observar (todos si se omite)")
+            @RequestParam(required = false) Set<Integer> productoIds,
+            @Parameter(description = "ID del último evento recibido, para reanudar")
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+
+        return cambiosInventarioService.suscribir(productoIds, ultimoEventoId);
+    }
+
+    /**
+     * Listar alertas de stock bajo
+     */
+    @GetMapping(value = "/alertas", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Alertas de stock bajo",
+        description = "Lista las alertas generadas al cruzar el umbral de stock, por estado"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista de alertas obtenida exitosamente"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<List<AlertaStock>> getAlertas(
+            @Parameter(description = "Estado de las alertas")
+            @RequestParam(defaultValue = "ACTIVA") AlertaStock.EstadoAlerta estado) {
+
+        log.info("Solicitud de alertas de stock en estado {}", estado);
+
+        try {
+            return ResponseEntity.ok(alertaStockService.getAlertas(estado));
+        } catch (Exception e) {
+            log.error("Error interno al obtener alertas: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Suscribirse a las alertas de stock (Server-Sent Events)
+     */
+    @GetMapping(value = "/alertas/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Stream de alertas de stock",
+        description = "Emite eventos 'activa' al cruzar el umbral hacia abajo y 'resuelta' al recuperarse"
+    )
+    public SseEmitter suscribirAlertas() {
+        return alertaStockService.suscribir();
+    }
+
+    /**
+     * Importar cantidades desde un CSV en streaming
+     */
+    @PostMapping(value = "/importaciones", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE},
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Importar inventario (CSV)",
+        description = "Carga líneas producto_id,cantidad en lotes JDBC. El cliente elige el importacionId antes "
+            + "de enviar el archivo; si falla, reenviar el mismo archivo con el mismo importacionId reanuda tras el "
+            + "último lote confirmado"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Importación completada"),
+        @ApiResponse(responseCode = "400", description = "Falta el importacionId o es demasiado largo"),
+        @ApiResponse(responseCode = "500", description = "Importación interrumpida; el cuerpo indica el progreso")
+    })
+    public ResponseEntity<ImportacionInventario> importarInventario(
+            // Se valida en el servicio para responder 400 con el motivo, como el resto de argumentos inválidos
+            @Parameter(description = "ID de la importación elegido por el cliente, para consultar su progreso "
+                    + "y reanudarla si falla", required = true)
+            @RequestParam(required = false) String importacionId,
+            InputStream csv) {
+
+        log.info("Solicitud de importación de inventario (ID: {})", importacionId);
+
+        ImportacionInventario importacion = importacionInventarioService.importar(csv, importacionId);
+        if (importacion.getEstado() == ImportacionInventario.EstadoImportacion.FALLIDA) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(importacion);
+        }
+        return ResponseEntity.ok(importacion);
+    }
+
+    /**
+     * Consultar el progreso de una importación
+     */
+    @GetMapping(value = "/importaciones/{importacionId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Progreso de importación",
+        description = "Obtiene las líneas procesadas, filas importadas y rechazadas de una importación"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Importación encontrada"),
+        @ApiResponse(responseCode = "404", description = "Importación no encontrada")
+    })
+    public ResponseEntity<ImportacionInventario> getImportacion(
+            @Parameter(description = "ID de la importación", required = true)
+            @PathVariable String importacionId) {
+
+        try {
+            return ResponseEntity.ok(importacionInventarioService.getImportacion(importacionId));
+        } catch (RuntimeException e) {
+            log.error("Error al consultar importación: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Exportar todo el inventario en CSV
+     */
+    @GetMapping(value = "/exportacion", produces = "text/csv")
+    @Operation(
+        summary = "Exportar inventario (CSV)",
+        description = "Transmite el inventario completo leyendo la tabla con un cursor"
+    )
+    public ResponseEntity<StreamingResponseBody> exportarInventario() {
+        log.info("Solicitud de exportación de inventario");
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"inventario.csv\"")
+                .body(importacionInventarioService::exportar);
+    }
+
     /**
      * Obtener estadísticas del inventario
      */
     @GetMapping(value = "/estadisticas", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
         summary = "Estadísticas del inventario",
-        description = "Obtiene estadísticas generales del inventario"
+        description = "Obtiene estadísticas generales del inventario. Se sirven desde caché con refresco anticipado; "
+                + "meta indica cuándo se calcularon y su antigüedad"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas exitosamente"),
@@ -260,7 +788,7 @@ public class InventarioController {
         log.info("Solicitud de estadísticas del inventario");
         
         try {
-            InventarioService.InventarioStats stats = inventarioService.getEstadisticasInventario();
+            InventarioService.InventarioStats stats = estadisticasInventarioCache.obtener();
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             log.error("Error interno al obtener estadísticas: {}", e.getMessage());
@@ -0,0 +1,25 @@
+package com.linktic.inventario.dto;
+
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.model.Producto;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Documento de colección JSON API de una lectura por IDs o de un pedido, serializado con
+ * {@link InventarioJsonApiSerializer}
+ *
+ * En la lectura, los productos sin inventario no impiden la respuesta: se informan uno a uno en meta.errores.
+ */
+@Value
+@AllArgsConstructor
+public class InventarioColeccion {
+
+    List<Inventario> inventarios;
+
+    List<Producto> productos;
+
+    List<Integer> productosSinInventario;
+}
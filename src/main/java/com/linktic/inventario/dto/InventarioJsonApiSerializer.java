@@ -0,0 +1,277 @@
+package com.linktic.inventario.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.model.Producto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Serializador de documentos JSON API de inventario escrito a mano
+ *
+ * Escribe directamente desde la entidad {@link Inventario} sin construir el grafo de {@link InventarioResponse}.
+ * La salida es idéntica byte a byte a la que produce Jackson para {@link InventarioResponse#fromInventario}.
+ */
+public final class InventarioJsonApiSerializer {
+
+    // Nombres y valores constantes pre-codificados para no re-escaparlos en cada documento
+    private static final SerializedString DATA = new SerializedString("data");
+    private static final SerializedString TYPE = new SerializedString("type");
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString ATTRIBUTES = new SerializedString("attributes");
+    private static final SerializedString CANTIDAD = new SerializedString("cantidad");
+    private static final SerializedString STOCK_MINIMO = new SerializedString("stock_minimo");
+    private static final SerializedString STOCK_MAXIMO = new SerializedString("stock_maximo");
+    private static final SerializedString FECHA_CREACION = new SerializedString("fecha_creacion");
+    private static final SerializedString FECHA_ACTUALIZACION = new SerializedString("fecha_actualizacion");
+    private static final SerializedString RELATIONSHIPS = new SerializedString("relationships");
+    private static final SerializedString PRODUCTO = new SerializedString("producto");
+    private static final SerializedString TIPO_INVENTARIO = new SerializedString("inventario");
+    private static final SerializedString TIPO_PRODUCTOS = new SerializedString("productos");
+    private static final SerializedString INCLUDED = new SerializedString("included");
+    private static final SerializedString META = new SerializedString("meta");
+    private static final SerializedString ERRORES = new SerializedString("errores");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString DETAIL = new SerializedString("detail");
+    private static final SerializedString SOURCE = new SerializedString("source");
+    private static final SerializedString PARAMETER = new SerializedString("parameter");
+    private static final SerializedString NOMBRE = new SerializedString("nombre");
+    private static final SerializedString DESCRIPCION = new SerializedString("descripcion");
+    private static final SerializedString PRECIO = new SerializedString("precio");
+    private static final SerializedString CATEGORIA = new SerializedString("categoria");
+    private static final SerializedString ACTIVO = new SerializedString("activo");
+    private static final SerializedString DESACTUALIZADO = new SerializedString("desactualizado");
+
+    // "yyyy-MM-ddTHH:mm:ss.nnnnnnnnn"
+    private static final int LONGITUD_MAXIMA_FECHA = 29;
+
+    private InventarioJsonApiSerializer() {}
+
+    /**
+     * Escribir un arreglo de documentos, equivalente a serializar List&lt;InventarioResponse&gt;
+     */
+    public static void escribirListado(JsonGenerator generator, List<Inventario> inventarios) throws IOException {
+        char[] buffer = new char[LONGITUD_MAXIMA_FECHA];
+        generator.writeStartArray();
+        for (Inventario inventario : inventarios) {
+            escribirDocumento(generator, inventario, buffer);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Escribir un documento de colección {"data": [...], "included": [...], "meta": {"errores": [...]}}
+     *
+     * Los productos van en included; cada producto sin inventario es un error en meta.errores, porque
+     * JSON API no permite data y errors en el mismo documento.
+     */
+    public static void escribirColeccion(JsonGenerator generator, InventarioColeccion coleccion) throws IOException {
+        char[] buffer = new char[LONGITUD_MAXIMA_FECHA];
+        generator.writeStartObject();
+
+        generator.writeFieldName(DATA);
+        generator.writeStartArray();
+        for (Inventario inventario : coleccion.getInventarios()) {
+            escribirRecurso(generator, inventario, buffer);
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(INCLUDED);
+        generator.writeStartArray();
+        for (Producto producto : coleccion.getProductos()) {
+            escribirProducto(generator, producto);
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(META);
+        generator.writeStartObject();
+        generator.writeFieldName(ERRORES);
+        generator.writeStartArray();
+        for (Integer productoId : coleccion.getProductosSinInventario()) {
+            generator.writeStartObject();
+            generator.writeFieldName(ID);
+            generator.writeString(String.valueOf(productoId));
+            generator.writeFieldName(STATUS);
+            generator.writeString("404");
+            generator.writeFieldName(TITLE);
+            generator.writeString("Inventario no encontrado");
+            generator.writeFieldName(DETAIL);
+            generator.writeString("No se encontró inventario para el producto con ID " + productoId);
+            generator.writeFieldName(SOURCE);
+            generator.writeStartObject();
+            generator.writeFieldName(PARAMETER);
+            generator.writeString("ids");
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Escribir un documento {"data": {...}}
+     */
+    public static void escribirDocumento(JsonGenerator generator, Inventario inventario) throws IOException {
+        escribirDocumento(generator, inventario, new char[LONGITUD_MAXIMA_FECHA]);
+    }
+
+    private static void escribirDocumento(JsonGenerator generator, Inventario inventario, char[] buffer)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(DATA);
+        escribirRecurso(generator, inventario, buffer);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Escribir el objeto de recurso "inventario"
+     */
+    public static void escribirRecurso(JsonGenerator generator, Inventario inventario) throws IOException {
+        escribirRecurso(generator, inventario, new char[LONGITUD_MAXIMA_FECHA]);
+    }
+
+    private static void escribirRecurso(JsonGenerator generator, Inventario inventario, char[] buffer)
+            throws IOException {
+        String id = String.valueOf(inventario.getProductoId());
+
+        generator.writeStartObject();
+        generator.writeFieldName(TYPE);
+        generator.writeString(TIPO_INVENTARIO);
+        generator.writeFieldName(ID);
+        generator.writeString(id);
+
+        generator.writeFieldName(ATTRIBUTES);
+        generator.writeStartObject();
+        escribirEntero(generator, CANTIDAD, inventario.getCantidad());
+        escribirEntero(generator, STOCK_MINIMO, inventario.getStockMinimo());
+        escribirEntero(generator, STOCK_MAXIMO, inventario.getStockMaximo());
+        escribirFecha(generator, FECHA_CREACION, inventario.getFechaCreacion(), buffer);
+        escribirFecha(generator, FECHA_ACTUALIZACION, inventario.getFechaActualizacion(), buffer);
+        generator.writeEndObject();
+
+        generator.writeFieldName(RELATIONSHIPS);
+        generator.writeStartObject();
+        generator.writeFieldName(PRODUCTO);
+        generator.writeStartObject();
+        generator.writeFieldName(DATA);
+        generator.writeStartObject();
+        generator.writeFieldName(TYPE);
+        generator.writeString(TIPO_PRODUCTOS);
+        generator.writeFieldName(ID);
+        generator.writeString(id);
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Escribir el objeto de recurso "productos" incluido en una colección
+     */
+    private static void escribirProducto(JsonGenerator generator, Producto producto) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(TYPE);
+        generator.writeString(TIPO_PRODUCTOS);
+        generator.writeFieldName(ID);
+        generator.writeString(String.valueOf(producto.getId()));
+
+        generator.writeFieldName(ATTRIBUTES);
+        generator.writeStartObject();
+        escribirTexto(generator, NOMBRE, producto.getNombre());
+        escribirTexto(generator, DESCRIPCION, producto.getDescripcion());
+        generator.writeFieldName(PRECIO);
+        BigDecimal precio = producto.getPrecio();
+        if (precio != null) {
+            generator.writeNumber(precio);
+        } else {
+            generator.writeNull();
+        }
+        escribirTexto(generator, CATEGORIA, producto.getCategoria());
+        generator.writeFieldName(ACTIVO);
+        generator.writeBoolean(producto.isActivo());
+        generator.writeFieldName(DESACTUALIZADO);
+        generator.writeBoolean(Boolean.TRUE.equals(producto.getDesactualizado()));
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+    }
+
+    private static void escribirTexto(JsonGenerator generator, SerializedString campo, String valor)
+            throws IOException {
+        generator.writeFieldName(campo);
+        if (valor != null) {
+            generator.writeString(valor);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void escribirEntero(JsonGenerator generator, SerializedString campo, Integer valor)
+            throws IOException {
+        generator.writeFieldName(campo);
+        if (valor != null) {
+            generator.writeNumber(valor.intValue());
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    /**
+     * Mismo formato que LocalDateTimeSerializer de jackson-datatype-jsr310 sin timestamps numéricos
+     * (ISO_LOCAL_DATE_TIME), escrito sobre un buffer reutilizable en lugar de un DateTimeFormatter
+     */
+    private static void escribirFecha(JsonGenerator generator, SerializedString campo, LocalDateTime fecha,
+                                      char[] buffer) throws IOException {
+        generator.writeFieldName(campo);
+        if (fecha == null) {
+            generator.writeNull();
+            return;
+        }
+        int anio = fecha.getYear();
+        if (anio < 0 || anio > 9999) {
+            generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(fecha));
+            return;
+        }
+
+        escribirDigitos(buffer, 0, anio, 4);
+        buffer[4] = '-';
+        escribirDigitos(buffer, 5, fecha.getMonthValue(), 2);
+        buffer[7] = '-';
+        escribirDigitos(buffer, 8, fecha.getDayOfMonth(), 2);
+        buffer[10] = 'T';
+        escribirDigitos(buffer, 11, fecha.getHour(), 2);
+        buffer[13] = ':';
+        escribirDigitos(buffer, 14, fecha.getMinute(), 2);
+        buffer[16] = ':';
+        escribirDigitos(buffer, 17, fecha.getSecond(), 2);
+        int longitud = 19;
+
+        int nano = fecha.getNano();
+        if (nano > 0) {
+            buffer[19] = '.';
+            escribirDigitos(buffer, 20, nano, 9);
+            longitud = LONGITUD_MAXIMA_FECHA;
+            // La fracción se imprime con los dígitos mínimos, sin ceros a la derecha
+            while (buffer[longitud - 1] == '0') {
+                longitud--;
+            }
+        }
+        generator.writeString(buffer, 0, longitud);
+    }
+
+    private static void escribirDigitos(char[] buffer, int desde, int valor, int digitos) {
+        for (int i = desde + digitos - 1; i >= desde; i--) {
+            buffer[i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+    }
+}
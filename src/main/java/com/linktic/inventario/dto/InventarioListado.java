@@ -0,0 +1,17 @@
+package com.linktic.inventario.dto;
+
+import com.linktic.inventario.model.Inventario;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Listado de inventarios que se serializa directamente con {@link InventarioJsonApiSerializer}
+ */
+@Value
+@AllArgsConstructor
+public class InventarioListado {
+
+    List<Inventario> inventarios;
+}
@@ -1,6 +1,7 @@
 package com.linktic.inventario.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.linktic.inventario.model.Inventario;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -20,12 +21,38 @@ public class InventarioResponse {
     @JsonProperty("data")
     private InventarioData data;
 
+    /**
+     * Construir el documento JSON API a partir de la entidad
+     */
+    public static InventarioResponse fromInventario(Inventario inventario) {
+        return InventarioResponse.builder()
+                .data(InventarioData.builder()
+                        .id(String.valueOf(inventario.getProductoId()))
+                        .attributes(InventarioAttributes.builder()
+                                .cantidad(inventario.getCantidad())
+                                .stockMinimo(inventario.getStockMinimo())
+                                .stockMaximo(inventario.getStockMaximo())
+                                .fechaCreacion(inventario.getFechaCreacion())
+                                .fechaActualizacion(inventario.getFechaActualizacion())
+                                .build())
+                        .relationships(InventarioRelationships.builder()
+                                .producto(ProductoRelationship.builder()
+                                        .data(ProductoReference.builder()
+                                                .id(String.valueOf(inventario.getProductoId()))
+                                                .build())
+                                        .build())
+                                .build())
+                        .build())
+                .build();
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
     @Builder
     public static class InventarioData {
         @JsonProperty("type")
+        @Builder.Default
         private String type = "inventario";
 
         @JsonProperty("id")
@@ -46,6 +73,12 @@ public class InventarioResponse {
         @JsonProperty("cantidad")
         private Integer cantidad;
 
+        @JsonProperty("stock_minimo")
+        private Integer stockMinimo;
+
+        @JsonProperty("stock_maximo")
+        private Integer stockMaximo;
+
         @JsonProperty("fecha_creacion")
         private LocalDateTime fechaCreacion;
 
@@ -77,6 +110,7 @@ public class InventarioResponse {
     @Builder
     public static class ProductoReference {
         @JsonProperty("type")
+        @Builder.Default
         private String type = "productos";
 
         @JsonProperty("id")
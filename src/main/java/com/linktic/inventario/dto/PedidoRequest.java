@@ -0,0 +1,76 @@
+package com.linktic.inventario.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO para solicitudes de pedidos de venta de varias líneas en formato JSON API
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PedidoRequest {
+
+    @JsonProperty("data")
+    @NotNull(message = "Los datos del pedido son obligatorios")
+    @Valid
+    private PedidoData data;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class PedidoData {
+        @JsonProperty("type")
+        @Builder.Default
+        private String type = "pedidos";
+
+        @JsonProperty("attributes")
+        @NotNull(message = "Los atributos del pedido son obligatorios")
+        @Valid
+        private PedidoAttributes attributes;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class PedidoAttributes {
+        @JsonProperty("lineas")
+        @NotEmpty(message = "El pedido debe tener al menos una línea")
+        @Valid
+        private List<LineaPedido> lineas;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class LineaPedido {
+        @JsonProperty("productoId")
+        @NotNull(message = "El ID del producto es obligatorio")
+        @Min(value = 1, message = "El ID del producto debe ser positivo")
+        private Integer productoId;
+
+        @JsonProperty("cantidad")
+        @NotNull(message = "La cantidad es obligatoria")
+        @Min(value = 1, message = "La cantidad debe ser positiva")
+        private Integer cantidad;
+
+        @JsonProperty("precioUnitario")
+        @DecimalMin(value = "0.0", message = "El precio unitario no puede ser negativo")
+        private BigDecimal precioUnitario;
+    }
+}
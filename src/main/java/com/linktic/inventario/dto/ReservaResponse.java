@@ -0,0 +1,83 @@
+package com.linktic.inventario.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.linktic.inventario.model.ReservaStock;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO para respuestas JSON API de reservas de stock
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservaResponse {
+
+    @JsonProperty("data")
+    private ReservaData data;
+
+    /**
+     * Construir el documento JSON API a partir de la reserva y el stock disponible resultante
+     */
+    public static ReservaResponse fromReserva(ReservaStock reserva, Integer cantidadDisponible) {
+        return ReservaResponse.builder()
+                .data(ReservaData.builder()
+                        .id(reserva.getId())
+                        .attributes(ReservaAttributes.builder()
+                                .productoId(reserva.getProductoId())
+                                .cantidad(reserva.getCantidad())
+                                .precioUnitario(reserva.getPrecioUnitario())
+                                .fechaCreacion(reserva.getFechaCreacion())
+                                .fechaExpiracion(reserva.getFechaExpiracion())
+                                .cantidadDisponible(cantidadDisponible)
+                                .build())
+                        .build())
+                .build();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ReservaData {
+        @JsonProperty("type")
+        @Builder.Default
+        private String type = "reservas";
+
+        @JsonProperty("id")
+        private String id;
+
+        @JsonProperty("attributes")
+        private ReservaAttributes attributes;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ReservaAttributes {
+        @JsonProperty("producto_id")
+        private Integer productoId;
+
+        @JsonProperty("cantidad")
+        private Integer cantidad;
+
+        @JsonProperty("precio_unitario")
+        private BigDecimal precioUnitario;
+
+        @JsonProperty("fecha_creacion")
+        private LocalDateTime fechaCreacion;
+
+        @JsonProperty("fecha_expiracion")
+        private LocalDateTime fechaExpiracion;
+
+        @JsonProperty("cantidad_disponible")
+        private Integer cantidadDisponible;
+    }
+}
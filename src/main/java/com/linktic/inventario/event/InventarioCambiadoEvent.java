@@ -0,0 +1,51 @@
+package com.linktic.inventario.event;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evento de aplicación publicado por cada mutación de inventario; los listeners lo reciben tras el commit
+ *
+ * La secuencia crece con cada evento de la instancia: los cambios de un mismo producto llegan con secuencias
+ * crecientes en el orden de sus commits, también en el stock fragmentado y en el libro mayor, cuya versión de
+ * fila no cambia con cada operación.
+ */
+@Value
+public class InventarioCambiadoEvent {
+
+    /** Operación de los cambios de umbrales: la cantidad no varía, pero el stock mínimo sí */
+    public static final String OPERACION_UMBRALES = "UMBRALES";
+
+    private static final AtomicLong SECUENCIAS = new AtomicLong();
+
+    @JsonProperty("producto_id")
+    Integer productoId;
+
+    @JsonProperty("cantidad")
+    Integer cantidad;
+
+    @JsonProperty("cantidad_anterior")
+    Integer cantidadAnterior;
+
+    @JsonProperty("version")
+    Long version;
+
+    @JsonProperty("stock_minimo")
+    Integer stockMinimo;
+
+    @JsonProperty("operacion")
+    String operacion;
+
+    @JsonProperty("fecha")
+    LocalDateTime fecha;
+
+    @JsonProperty("secuencia")
+    long secuencia;
+
+    public static long siguienteSecuencia() {
+        return SECUENCIAS.incrementAndGet();
+    }
+}
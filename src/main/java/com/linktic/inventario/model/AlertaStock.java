@@ -0,0 +1,59 @@
+package com.linktic.inventario.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad para las alertas de stock bajo generadas al cruzar el umbral
+ */
+@Entity
+@Table(name = "alertas_stock")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlertaStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonProperty("producto_id")
+    @Column(name = "producto_id", nullable = false)
+    private Integer productoId;
+
+    @Column(name = "estado", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EstadoAlerta estado;
+
+    @Column(name = "umbral", nullable = false)
+    private Integer umbral;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @JsonProperty("cantidad_resolucion")
+    @Column(name = "cantidad_resolucion")
+    private Integer cantidadResolucion;
+
+    @JsonProperty("fecha_creacion")
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    @JsonProperty("fecha_resolucion")
+    @Column(name = "fecha_resolucion")
+    private LocalDateTime fechaResolucion;
+
+    public enum EstadoAlerta {
+        ACTIVA,
+        RESUELTA
+    }
+}
@@ -51,6 +51,10 @@ public class HistorialCompra {
     @Column(name = "fecha_operacion", nullable = false, updatable = false)
     private LocalDateTime fechaOperacion;
 
+    // Variación con signo del stock; es el movimiento que suma el libro mayor
+    @Column(name = "delta")
+    private Integer delta;
+
     public enum TipoOperacion {
         COMPRA,
         VENTA,
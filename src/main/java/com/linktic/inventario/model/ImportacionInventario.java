@@ -0,0 +1,65 @@
+package com.linktic.inventario.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Punto de control de una importación CSV de inventario; se confirma junto con cada lote
+ */
+@Entity
+@Table(name = "importaciones_inventario")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportacionInventario {
+
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    @Column(name = "estado", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EstadoImportacion estado;
+
+    // Líneas de datos del archivo ya confirmadas; al reanudar se omiten
+    @JsonProperty("lineas_procesadas")
+    @Column(name = "lineas_procesadas", nullable = false)
+    private long lineasProcesadas;
+
+    @JsonProperty("filas_importadas")
+    @Column(name = "filas_importadas", nullable = false)
+    private long filasImportadas;
+
+    @JsonProperty("filas_rechazadas")
+    @Column(name = "filas_rechazadas", nullable = false)
+    private long filasRechazadas;
+
+    @JsonProperty("ultimo_error")
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @JsonProperty("fecha_inicio")
+    @CreationTimestamp
+    @Column(name = "fecha_inicio", updatable = false)
+    private LocalDateTime fechaInicio;
+
+    @JsonProperty("fecha_actualizacion")
+    @UpdateTimestamp
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    public enum EstadoImportacion {
+        EN_PROCESO,
+        COMPLETADA,
+        FALLIDA
+    }
+}
@@ -19,7 +19,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Inventario {
 
     @Id
@@ -41,6 +41,33 @@ public class Inventario {
     @Column(name = "version")
     private Long version;
 
+    // Umbral de los productos sin stock mínimo propio. Está repetido en el COALESCE de la columna calculada
+    // bajo_minimo (init.sql y scripts/migracion-inventario.sql): si cambia aquí, hay que cambiarlo allí y
+    // regenerar la columna, o los listados y las alertas usarán umbrales distintos
+    public static final int STOCK_MINIMO_POR_DEFECTO = 10;
+
+    // Punto de reorden del producto; null usa el umbral por defecto
+    @Column(name = "stock_minimo")
+    private Integer stockMinimo;
+
+    @Column(name = "stock_maximo")
+    private Integer stockMaximo;
+
+    // Filas de inventario_fragmentos que reparten el stock; 0 = sin fragmentar
+    @Builder.Default
+    @Column(name = "fragmentos", nullable = false)
+    private Integer fragmentos = 0;
+
+    // Método para saber si el stock está repartido en fragmentos
+    public boolean isFragmentado() {
+        return fragmentos != null && fragmentos > 0;
+    }
+
+    // Umbral efectivo del producto: su stock mínimo o el umbral por defecto
+    public int stockMinimoEfectivo() {
+        return stockMinimo != null ? stockMinimo : STOCK_MINIMO_POR_DEFECTO;
+    }
+
     // Método para validar que la cantidad no sea negativa
     public boolean isCantidadValida() {
         return cantidad != null && cantidad >= 0;
@@ -55,6 +82,18 @@ public class Inventario {
         }
     }
 
+    // Método para actualizar los umbrales de stock
+    public void actualizarUmbrales(Integer nuevoMinimo, Integer nuevoMaximo) {
+        if ((nuevoMinimo != null && nuevoMinimo < 0) || (nuevoMaximo != null && nuevoMaximo < 0)) {
+            throw new IllegalArgumentException("Los umbrales no pueden ser negativos");
+        }
+        if (nuevoMinimo != null && nuevoMaximo != null && nuevoMaximo < nuevoMinimo) {
+            throw new IllegalArgumentException("El stock máximo no puede ser menor que el mínimo");
+        }
+        this.stockMinimo = nuevoMinimo;
+        this.stockMaximo = nuevoMaximo;
+    }
+
     // Método para incrementar la cantidad
     public void incrementarCantidad(Integer cantidadIncremento) {
         if (cantidadIncremento != null && cantidadIncremento > 0) {
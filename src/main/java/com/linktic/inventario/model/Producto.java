@@ -15,7 +15,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Producto {
 
     @JsonProperty("id")
@@ -42,6 +42,10 @@ public class Producto {
     @JsonProperty("fecha_actualizacion")
     private LocalDateTime fechaActualizacion;
 
+    // Último valor conocido servido mientras el servicio de productos no responde
+    @JsonProperty("desactualizado")
+    private Boolean desactualizado;
+
     // Método para validar que el producto esté activo
     public boolean isActivo() {
         return activo != null && activo;
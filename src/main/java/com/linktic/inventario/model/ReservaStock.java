@@ -0,0 +1,38 @@
+package com.linktic.inventario.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Reserva temporal de stock mantenida en memoria hasta su confirmación, liberación o expiración
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ReservaStock {
+
+    private String id;
+
+    private Integer productoId;
+
+    private Integer cantidad;
+
+    private BigDecimal precioUnitario;
+
+    private LocalDateTime fechaCreacion;
+
+    private LocalDateTime fechaExpiracion;
+
+    private EstadoReserva estado;
+
+    public enum EstadoReserva {
+        ACTIVA,
+        CONFIRMANDO
+    }
+}
@@ -0,0 +1,30 @@
+package com.linktic.inventario.monitoring;
+
+import com.linktic.inventario.service.CalentamientoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indicador "calentamiento": OUT_OF_SERVICE hasta que termina la fase de calentamiento.
+ * Forma parte del grupo de readiness para que el balanceador no envíe tráfico antes
+ */
+@Component
+@RequiredArgsConstructor
+public class CalentamientoHealthIndicator implements HealthIndicator {
+
+    private final CalentamientoService calentamientoService;
+
+    @Override
+    public Health health() {
+        if (!calentamientoService.isCompletado()) {
+            return Health.outOfService().withDetail("estado", "calentando").build();
+        }
+        return Health.up()
+                .withDetail("productosPrecargados", calentamientoService.getProductosPrecargados())
+                .withDetail("duracionMs", calentamientoService.getDuracionMs())
+                .withDetail("tiempoAgotado", calentamientoService.isAgotado())
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.linktic.inventario.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoint de Actuator para controlar grabaciones de Java Flight Recorder bajo demanda
+ *
+ * POST /actuator/jfr/iniciar, POST /actuator/jfr/detener y GET /actuator/jfr/archivo para descargar
+ */
+@Component
+@Endpoint(id = "jfr")
+@Slf4j
+public class JfrGrabacionEndpoint implements DisposableBean {
+
+    private static final String CONFIGURACION_POR_DEFECTO = "profile";
+
+    private Recording grabacion;
+    private Path archivo;
+    private LocalDateTime inicio;
+
+    /**
+     * Estado de la grabación actual
+     */
+    @ReadOperation
+    public synchronized Map<String, Object> estado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("estado", grabacion != null ? grabacion.getState().name() : "SIN_GRABACION");
+        estado.put("inicio", inicio);
+        estado.put("archivo_disponible", archivo != null && Files.exists(archivo));
+        return estado;
+    }
+
+    /**
+     * Descargar el archivo .jfr de la última grabación detenida
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> descargar(@Selector String archivoJfr) {
+        if (!"archivo".equals(archivoJfr) || archivo == null || !Files.exists(archivo)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(archivo));
+    }
+
+    /**
+     * Iniciar o detener una grabación
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> ejecutar(@Selector String accion,
+                                                                          @Nullable String configuracion,
+                                                                          @Nullable Long duracionMaximaSegundos) {
+        try {
+            return switch (accion) {
+                case "iniciar" -> iniciar(configuracion, duracionMaximaSegundos);
+                case "detener" -> detener();
+                default -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+            };
+        } catch (Exception e) {
+            log.error("Error al ejecutar la acción JFR {}: {}", accion, e.getMessage());
+            return new WebEndpointResponse<>(Map.of("error", String.valueOf(e.getMessage())),
+                    WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private WebEndpointResponse<Map<String, Object>> iniciar(String configuracion, Long duracionMaximaSegundos)
+            throws Exception {
+        if (grabacion != null && grabacion.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(Map.of("error", "Ya existe una grabación en curso"),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        cerrarGrabacion();
+
+        Configuration config = Configuration.getConfiguration(
+                configuracion != null ? configuracion : CONFIGURACION_POR_DEFECTO);
+        grabacion = new Recording(config);
+        grabacion.setName("inventario-service");
+        grabacion.enable(MutacionInventarioEvent.class);
+        grabacion.enable(LlamadaProductosEvent.class);
+        if (duracionMaximaSegundos != null && duracionMaximaSegundos > 0) {
+            grabacion.setDuration(Duration.ofSeconds(duracionMaximaSegundos));
+        }
+        grabacion.setToDisk(true);
+        grabacion.start();
+        inicio = LocalDateTime.now();
+
+        log.info("Grabación JFR iniciada con configuración {}", config.getName());
+        return new WebEndpointResponse<>(estado());
+    }
+
+    private WebEndpointResponse<Map<String, Object>> detener() throws IOException {
+        if (grabacion == null) {
+            return new WebEndpointResponse<>(Map.of("error", "No hay grabación en curso"),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        Path destino = Files.createTempFile("inventario-service-", ".jfr");
+        if (grabacion.getState() == RecordingState.RUNNING) {
+            grabacion.stop();
+        }
+        grabacion.dump(destino);
+        borrarArchivo();
+        archivo = destino;
+
+        log.info("Grabación JFR detenida y almacenada en {}", destino);
+        return new WebEndpointResponse<>(estado());
+    }
+
+    private void cerrarGrabacion() {
+        if (grabacion != null) {
+            grabacion.close();
+            grabacion = null;
+        }
+    }
+
+    private void borrarArchivo() throws IOException {
+        if (archivo != null) {
+            Files.deleteIfExists(archivo);
+            archivo = null;
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        cerrarGrabacion();
+        borrarArchivo();
+    }
+}
@@ -0,0 +1,56 @@
+package com.linktic.inventario.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR emitido por cada intento de llamada al microservicio de productos
+ */
+@Name("com.linktic.inventario.LlamadaProductos")
+@Label("Llamada a Servicio de Productos")
+@Category({"Linktic", "Productos"})
+@Description("Intento de llamada HTTP al microservicio de productos")
+@StackTrace(false)
+public class LlamadaProductosEvent extends Event {
+
+    @Label("Operación")
+    String operacion;
+
+    @Label("Productos")
+    String productoIds;
+
+    @Label("Intento")
+    int intento;
+
+    @Label("Reintento")
+    boolean reintento;
+
+    @Label("Exitosa")
+    boolean exitosa;
+
+    @Label("Error")
+    String error;
+
+    public static LlamadaProductosEvent iniciar(String operacion, String productoIds, int intento) {
+        LlamadaProductosEvent evento = new LlamadaProductosEvent();
+        evento.operacion = operacion;
+        evento.productoIds = productoIds;
+        evento.intento = intento;
+        evento.reintento = intento > 1;
+        evento.begin();
+        return evento;
+    }
+
+    public void finalizar(boolean exitosa, Throwable error) {
+        end();
+        if (shouldCommit()) {
+            this.exitosa = exitosa;
+            this.error = error != null ? error.getClass().getSimpleName() + ": " + error.getMessage() : null;
+            commit();
+        }
+    }
+}
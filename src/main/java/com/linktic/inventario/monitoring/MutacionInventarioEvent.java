@@ -0,0 +1,137 @@
+package com.linktic.inventario.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.function.Supplier;
+
+/**
+ * Evento JFR emitido por cada mutación de inventario
+ *
+ * Cada intento de una mutación reintentada por conflicto emite su propio evento con el número de intento.
+ */
+@Name("com.linktic.inventario.MutacionInventario")
+@Label("Mutación de Inventario")
+@Category({"Linktic", "Inventario"})
+@Description("Operación de escritura sobre el inventario de un producto")
+@StackTrace(false)
+public class MutacionInventarioEvent extends Event {
+
+    // Intento en curso en el hilo; lo fija el reintento por conflictos alrededor de cada llamada
+    private static final ThreadLocal<Integer> INTENTO_ACTUAL = new ThreadLocal<>();
+
+    @Label("Producto ID")
+    int productoId;
+
+    @Label("Operación")
+    String operacion;
+
+    @Label("Tiempo en base de datos")
+    @Timespan(Timespan.NANOSECONDS)
+    long tiempoBaseDatos;
+
+    @Label("Tiempo en servicio de productos")
+    @Timespan(Timespan.NANOSECONDS)
+    long tiempoRemoto;
+
+    @Label("Conflicto de bloqueo optimista")
+    boolean conflictoOptimista;
+
+    @Label("Exitosa")
+    boolean exitosa;
+
+    @Label("Intentos")
+    @Description("Número de intento de la mutación: mayor que 1 tras conflictos de bloqueo optimista")
+    int intentos;
+
+    /**
+     * Crear e iniciar el evento para una operación
+     */
+    public static MutacionInventarioEvent iniciar(Integer productoId, String operacion) {
+        MutacionInventarioEvent evento = new MutacionInventarioEvent();
+        evento.productoId = productoId != null ? productoId : 0;
+        evento.operacion = operacion;
+        Integer intento = INTENTO_ACTUAL.get();
+        evento.intentos = intento != null ? intento : 1;
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Ejecutar un intento de mutación: los eventos iniciados dentro registran su número de intento
+     */
+    public static <T> T enIntento(int intento, Supplier<T> mutacion) {
+        Integer anterior = INTENTO_ACTUAL.get();
+        INTENTO_ACTUAL.set(intento);
+        try {
+            return mutacion.get();
+        } finally {
+            if (anterior != null) {
+                INTENTO_ACTUAL.set(anterior);
+            } else {
+                INTENTO_ACTUAL.remove();
+            }
+        }
+    }
+
+    /**
+     * Ejecutar un acceso a base de datos acumulando su duración
+     */
+    public <T> T medirBaseDatos(Supplier<T> acceso) {
+        long inicio = System.nanoTime();
+        try {
+            return acceso.get();
+        } finally {
+            tiempoBaseDatos += System.nanoTime() - inicio;
+        }
+    }
+
+    public void medirBaseDatos(Runnable acceso) {
+        medirBaseDatos(() -> {
+            acceso.run();
+            return null;
+        });
+    }
+
+    /**
+     * Ejecutar una llamada al servicio de productos acumulando su duración
+     */
+    public <T> T medirRemoto(Supplier<T> llamada) {
+        long inicio = System.nanoTime();
+        try {
+            return llamada.get();
+        } finally {
+            tiempoRemoto += System.nanoTime() - inicio;
+        }
+    }
+
+    public void medirRemoto(Runnable llamada) {
+        medirRemoto(() -> {
+            llamada.run();
+            return null;
+        });
+    }
+
+    public void marcarConflictoOptimista() {
+        this.conflictoOptimista = true;
+    }
+
+    public void marcarExitosa() {
+        this.exitosa = true;
+    }
+
+    /**
+     * Cerrar y registrar el evento si la grabación lo requiere
+     */
+    public void finalizar() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.linktic.inventario.repository;
+
+import com.linktic.inventario.model.AlertaStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad AlertaStock
+ */
+@Repository
+public interface AlertaStockRepository extends JpaRepository<AlertaStock, Long> {
+
+    /**
+     * Buscar la alerta en un estado para un producto (a lo sumo una activa por producto)
+     */
+    Optional<AlertaStock> findFirstByProductoIdAndEstado(Integer productoId, AlertaStock.EstadoAlerta estado);
+
+    /**
+     * Listar alertas por estado, las más recientes primero
+     */
+    List<AlertaStock> findByEstadoOrderByFechaCreacionDesc(AlertaStock.EstadoAlerta estado);
+}
@@ -1,6 +1,7 @@
 package com.linktic.inventario.repository;
 
 import com.linktic.inventario.model.HistorialCompra;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,7 +14,7 @@ import java.util.List;
  * Repositorio para la entidad HistorialCompra
  */
 @Repository
-public interface HistorialCompraRepository extends JpaRepository<HistorialCompra, Long> {
+public interface HistorialCompraRepository extends JpaRepository<HistorialCompra, Long>, HistorialCompraRepositoryCustom {
 
     /**
      * Buscar historial por ID de producto
@@ -44,6 +45,13 @@ public interface HistorialCompraRepository extends JpaRepository<HistorialCompra
     @Query("SELECT h.tipoOperacion, COUNT(h), SUM(h.cantidad) FROM HistorialCompra h GROUP BY h.tipoOperacion")
     List<Object[]> getEstadisticasPorTipoOperacion();
 
+    /**
+     * Productos con más operaciones desde una fecha, de mayor a menor actividad
+     */
+    @Query("SELECT h.productoId FROM HistorialCompra h WHERE h.fechaOperacion >= :desde "
+            + "GROUP BY h.productoId ORDER BY COUNT(h) DESC")
+    List<Integer> findProductosMasActivos(@Param("desde") LocalDateTime desde, Pageable pageable);
+
     /**
      * Obtener el total de operaciones por producto
      */
@@ -0,0 +1,16 @@
+package com.linktic.inventario.repository;
+
+import com.linktic.inventario.model.HistorialCompra;
+
+import java.util.List;
+
+/**
+ * Operaciones de historial en bloque implementadas con JDBC
+ */
+public interface HistorialCompraRepositoryCustom {
+
+    /**
+     * Insertar registros de historial en un único lote JDBC
+     */
+    void insertarLote(List<HistorialCompra> registros);
+}
@@ -0,0 +1,41 @@
+package com.linktic.inventario.repository;
+
+import com.linktic.inventario.model.HistorialCompra;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Implementación JDBC de {@link HistorialCompraRepositoryCustom}
+ */
+public class HistorialCompraRepositoryImpl implements HistorialCompraRepositoryCustom {
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO historial_compras (producto_id, cantidad, precio_unitario, precio_total, tipo_operacion, "
+            + "usuario, observaciones, fecha_operacion, delta) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HistorialCompraRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertarLote(List<HistorialCompra> registros) {
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, registros, registros.size(), (ps, registro) -> {
+            ps.setInt(1, registro.getProductoId());
+            ps.setInt(2, registro.getCantidad());
+            ps.setBigDecimal(3, registro.getPrecioUnitario());
+            ps.setBigDecimal(4, registro.getPrecioTotal());
+            ps.setString(5, registro.getTipoOperacion().name());
+            ps.setString(6, registro.getUsuario());
+            ps.setString(7, registro.getObservaciones());
+            LocalDateTime fecha = registro.getFechaOperacion() != null ? registro.getFechaOperacion() : LocalDateTime.now();
+            ps.setTimestamp(8, Timestamp.valueOf(fecha));
+            ps.setObject(9, registro.getDelta(), Types.INTEGER);
+        });
+    }
+}
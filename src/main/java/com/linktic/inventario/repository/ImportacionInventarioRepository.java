@@ -0,0 +1,12 @@
+package com.linktic.inventario.repository;
+
+import com.linktic.inventario.model.ImportacionInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para la entidad ImportacionInventario
+ */
+@Repository
+public interface ImportacionInventarioRepository extends JpaRepository<ImportacionInventario, String> {
+}
@@ -0,0 +1,16 @@
+package com.linktic.inventario.repository;
+
+import lombok.Value;
+
+/**
+ * Instantánea del libro mayor: stock de un producto tras aplicar sus movimientos hasta historialId inclusive
+ */
+@Value
+public class InstantaneaInventario {
+
+    Integer productoId;
+
+    long historialId;
+
+    int cantidad;
+}
@@ -13,7 +13,7 @@ import java.util.Optional;
  * Repositorio para la entidad Inventario
  */
 @Repository
-public interface InventarioRepository extends JpaRepository<Inventario, Integer> {
+public interface InventarioRepository extends JpaRepository<Inventario, Integer>, InventarioRepositoryCustom {
 
     /**
      * Buscar inventario por ID de producto
@@ -26,17 +26,39 @@ public interface InventarioRepository extends JpaRepository<Inventario, Integer>
     boolean existsByProductoId(Integer productoId);
 
     /**
-     * Buscar productos con stock bajo (menos de la cantidad especificada)
+     * Buscar productos sin fragmentar con stock bajo (menos de la cantidad especificada); los fragmentados se
+     * evalúan aparte con la suma de sus fragmentos (ver buscarFragmentadosConCantidadActual)
      */
-    @Query("SELECT i FROM Inventario i WHERE i.cantidad < :cantidadMinima")
+    @Query("SELECT i FROM Inventario i WHERE i.cantidad < :cantidadMinima AND i.fragmentos = 0")
     List<Inventario> findProductosConStockBajo(@Param("cantidadMinima") Integer cantidadMinima);
 
     /**
-     * Buscar productos sin stock
+     * Buscar productos sin fragmentar por debajo de su propio stock mínimo (usa el índice sobre la columna
+     * calculada bajo_minimo, que en los fragmentados solo refleja la última consolidación)
      */
-    @Query("SELECT i FROM Inventario i WHERE i.cantidad = 0")
+    @Query(value = "SELECT i.producto_id, i.cantidad, i.stock_minimo, i.stock_maximo, i.fecha_creacion, "
+            + "i.fecha_actualizacion, i.version, i.fragmentos FROM Inventario i "
+            + "WHERE i.bajo_minimo = TRUE AND i.fragmentos = 0", nativeQuery = true)
+    List<Inventario> findProductosBajoStockMinimo();
+
+    /**
+     * Contar productos sin fragmentar por debajo de su propio stock mínimo
+     */
+    @Query(value = "SELECT COUNT(*) FROM Inventario i WHERE i.bajo_minimo = TRUE AND i.fragmentos = 0", nativeQuery = true)
+    long countProductosBajoStockMinimo();
+
+    /**
+     * Buscar productos sin fragmentar sin stock
+     */
+    @Query("SELECT i FROM Inventario i WHERE i.cantidad = 0 AND i.fragmentos = 0")
     List<Inventario> findProductosSinStock();
 
+    /**
+     * Contar productos sin fragmentar sin stock
+     */
+    @Query("SELECT COUNT(i) FROM Inventario i WHERE i.cantidad = 0 AND i.fragmentos = 0")
+    long countProductosSinStock();
+
     /**
      * Obtener el total de productos en inventario
      */
@@ -44,9 +66,11 @@ public interface InventarioRepository extends JpaRepository<Inventario, Integer>
     long countTotalProductos();
 
     /**
-     * Obtener la suma total de cantidades en inventario
+     * Obtener la suma total de cantidades en inventario; los fragmentados cuentan la suma de sus fragmentos
+     * (solo existen fragmentos de productos fragmentados)
      */
-    @Query("SELECT COALESCE(SUM(i.cantidad), 0) FROM Inventario i")
+    @Query(value = "SELECT (SELECT COALESCE(SUM(i.cantidad), 0) FROM Inventario i WHERE i.fragmentos = 0) "
+            + "+ (SELECT COALESCE(SUM(f.cantidad), 0) FROM inventario_fragmentos f)", nativeQuery = true)
     long sumTotalCantidades();
 
     /**
@@ -0,0 +1,159 @@
+package com.linktic.inventario.repository;
+
+import com.linktic.inventario.model.Inventario;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Operaciones de inventario en bloque implementadas con JDBC
+ */
+public interface InventarioRepositoryCustom {
+
+    /**
+     * Bloquear y leer la cantidad actual de los productos indicados que existen en Producto.
+     * El valor es null cuando el producto existe pero aún no tiene fila de inventario; en los
+     * productos fragmentados es la suma de sus fragmentos
+     */
+    Map<Integer, Integer> bloquearCantidadesActuales(Collection<Integer> productoIds);
+
+    /**
+     * Fijar la cantidad de un producto con un upsert atómico (sp_upsert_inventario) en un solo viaje a la base de datos
+     */
+    UpsertInventarioResultado upsertCantidad(Integer productoId, Integer cantidad);
+
+    /**
+     * Insertar o actualizar cantidades en un único lote JDBC
+     */
+    void upsertCantidades(List<Inventario> inventarios);
+
+    /**
+     * Recorrer todo el inventario con un cursor del servidor, sin cargarlo en memoria; la cantidad de cada fila
+     * es la actual (suma de fragmentos y, con el libro mayor, el saldo de los productos con instantánea)
+     */
+    void recorrerInventario(boolean conLibroMayor, Consumer<Inventario> consumidor);
+
+    /**
+     * Recorrer los IDs de la tabla Producto con un cursor del servidor
+     */
+    void recorrerIdsProducto(IntConsumer consumidor);
+
+    /**
+     * Bloquear y leer la fila de inventario de un producto; null si no existe
+     */
+    Inventario bloquearInventario(Integer productoId);
+
+    /**
+     * Bloquear y leer las filas de inventario de varios productos en orden ascendente de producto_id,
+     * el mismo orden en todas las transacciones para que dos pedidos no se bloqueen mutuamente
+     */
+    List<Inventario> bloquearInventarios(Collection<Integer> productoIds);
+
+    /**
+     * Descontar cantidades de varios productos con una sentencia UPDATE ... CASE por bloque;
+     * devuelve las filas actualizadas
+     */
+    int decrementarCantidades(Map<Integer, Integer> cantidades);
+
+    /**
+     * Fijar la cantidad consolidada y el número de fragmentos de un producto
+     */
+    void actualizarConsolidado(Integer productoId, int cantidad, int fragmentos);
+
+    /**
+     * IDs de los productos con el stock repartido en fragmentos
+     */
+    List<Integer> buscarProductosFragmentados();
+
+    /**
+     * Leer sin bloquear los productos fragmentados con la suma actual de sus fragmentos como cantidad
+     */
+    List<Inventario> buscarFragmentadosConCantidadActual();
+
+    /**
+     * Saldo del libro mayor de cada producto indicado, sin bloquear y con una sola consulta; los productos sin
+     * instantánea no aparecen
+     */
+    Map<Integer, Integer> calcularSaldos(Collection<Integer> productoIds);
+
+    /**
+     * Suma de los fragmentos de cada producto indicado, con una sola consulta agrupada; los productos sin
+     * fragmentos no aparecen
+     */
+    Map<Integer, Integer> sumarFragmentos(Collection<Integer> productoIds);
+
+    /**
+     * Leer sin bloquear las cantidades de los fragmentos de un producto (posición = número de fragmento)
+     */
+    int[] leerFragmentos(Integer productoId);
+
+    /**
+     * Bloquear y leer las cantidades de los fragmentos de un producto, en orden de fragmento
+     */
+    int[] bloquearFragmentos(Integer productoId);
+
+    /**
+     * Descontar unidades de un fragmento solo si tiene suficientes; false si no las tenía
+     */
+    boolean decrementarFragmento(Integer productoId, int fragmento, int cantidad);
+
+    /**
+     * Sumar unidades a un fragmento; false si el fragmento no existe
+     */
+    boolean incrementarFragmento(Integer productoId, int fragmento, int cantidad);
+
+    /**
+     * Reescribir los fragmentos de un producto: crea o actualiza uno por posición y elimina los sobrantes
+     */
+    void fijarFragmentos(Integer productoId, int[] cantidades);
+
+    /**
+     * Repartir por igual la cantidad de Inventario entre los fragmentos de los productos fragmentados indicados
+     */
+    void repartirFragmentos(Collection<Integer> productoIds);
+
+    /**
+     * Bloquear en modo compartido la fila de inventario de un producto: excluye las operaciones que la bloquean
+     * en exclusiva, pero no a otras que también la bloquean en modo compartido; null si no existe
+     */
+    Inventario bloquearInventarioCompartido(Integer productoId);
+
+    /**
+     * Última instantánea del libro mayor de un producto; null si no tiene. Con bloquear, lectura con bloqueo
+     * que ve lo último confirmado aunque la transacción ya tenga su vista de lectura
+     */
+    InstantaneaInventario buscarInstantanea(Integer productoId, boolean bloquear);
+
+    /**
+     * Instantánea resultante de sumar a la indicada los movimientos posteriores del historial
+     */
+    InstantaneaInventario aplicarMovimientos(InstantaneaInventario desde, boolean bloquear);
+
+    /**
+     * ID del último registro del historial de un producto (0 si no tiene), leído con bloqueo
+     */
+    long ultimoMovimiento(Integer productoId);
+
+    /**
+     * Guardar una instantánea y eliminar las anteriores del producto
+     */
+    void guardarInstantanea(InstantaneaInventario instantanea);
+
+    /**
+     * IDs de los productos con movimientos posteriores a su última instantánea
+     */
+    List<Integer> buscarProductosConMovimientosPendientes();
+
+    /**
+     * IDs de los productos con alguna instantánea del libro mayor
+     */
+    List<Integer> buscarProductosConInstantanea();
+
+    /**
+     * Eliminar todas las instantáneas de un producto
+     */
+    void eliminarInstantaneas(Integer productoId);
+}
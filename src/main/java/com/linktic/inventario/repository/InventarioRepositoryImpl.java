@@ -0,0 +1,423 @@
+package com.linktic.inventario.repository;
+
+import com.linktic.inventario.model.Inventario;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Implementación JDBC de {@link InventarioRepositoryCustom}
+ */
+public class InventarioRepositoryImpl implements InventarioRepositoryCustom {
+
+    private static final String SQL_CANTIDADES_ACTUALES =
+            "SELECT p.id, CASE WHEN i.fragmentos > 0 "
+            + "THEN (SELECT SUM(f.cantidad) FROM inventario_fragmentos f WHERE f.producto_id = p.id) "
+            + "ELSE i.cantidad END "
+            + "FROM Producto p LEFT JOIN Inventario i ON i.producto_id = p.id "
+            + "WHERE p.id IN (:ids) FOR UPDATE";
+
+    private static final String SQL_UPSERT =
+            "INSERT INTO Inventario (producto_id, cantidad) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE cantidad = VALUES(cantidad), version = version + 1";
+
+    private static final String SQL_UPSERT_CANTIDAD = "CALL sp_upsert_inventario(?, ?)";
+
+    // Cantidad actual de la fila i: la suma de sus fragmentos si está fragmentada
+    private static final String SQL_CANTIDAD_FRAGMENTADA =
+            "CASE WHEN i.fragmentos > 0 "
+            + "THEN (SELECT SUM(f.cantidad) FROM inventario_fragmentos f WHERE f.producto_id = i.producto_id) "
+            + "ELSE i.cantidad END";
+
+    // Saldo del libro mayor de la fila i (última instantánea más los deltas posteriores); NULL sin instantánea
+    private static final String SQL_SALDO_LIBRO_MAYOR =
+            "(SELECT s.cantidad + (SELECT COALESCE(SUM(h.delta), 0) FROM historial_compras h "
+            + "WHERE h.producto_id = s.producto_id AND h.id > s.historial_id AND h.delta IS NOT NULL) "
+            + "FROM inventario_instantaneas s WHERE s.producto_id = i.producto_id "
+            + "ORDER BY s.historial_id DESC LIMIT 1)";
+
+    private static final String SQL_RECORRER =
+            "SELECT i.producto_id, %s AS cantidad, i.stock_minimo, i.stock_maximo, i.fecha_creacion, "
+            + "i.fecha_actualizacion, i.version, i.fragmentos FROM Inventario i ORDER BY i.producto_id";
+
+    private static final String SQL_FRAGMENTADOS_CON_CANTIDAD_ACTUAL =
+            "SELECT i.producto_id, " + SQL_CANTIDAD_FRAGMENTADA + " AS cantidad, i.stock_minimo, i.stock_maximo, "
+            + "i.fecha_creacion, i.fecha_actualizacion, i.version, i.fragmentos FROM Inventario i WHERE i.fragmentos > 0";
+
+    private static final String SQL_CALCULAR_SALDOS =
+            "SELECT i.producto_id, " + SQL_SALDO_LIBRO_MAYOR + " FROM Inventario i WHERE i.producto_id IN (:ids)";
+
+    private static final String SQL_IDS_PRODUCTO = "SELECT id FROM Producto";
+
+    private static final String SQL_BLOQUEAR_INVENTARIO =
+            "SELECT producto_id, cantidad, stock_minimo, stock_maximo, fecha_creacion, fecha_actualizacion, version, "
+            + "fragmentos FROM Inventario WHERE producto_id = ? FOR UPDATE";
+
+    private static final String SQL_BLOQUEAR_INVENTARIOS =
+            "SELECT producto_id, cantidad, stock_minimo, stock_maximo, fecha_creacion, fecha_actualizacion, version, "
+            + "fragmentos FROM Inventario WHERE producto_id IN (:ids) ORDER BY producto_id FOR UPDATE";
+
+    // Productos por sentencia en decrementarCantidades (tres parámetros por producto)
+    static final int TAMANO_BLOQUE_DECREMENTO = 500;
+
+    private static final String SQL_ACTUALIZAR_CONSOLIDADO =
+            "UPDATE Inventario SET cantidad = ?, fragmentos = ?, version = version + 1 WHERE producto_id = ?";
+
+    private static final String SQL_PRODUCTOS_FRAGMENTADOS = "SELECT producto_id FROM Inventario WHERE fragmentos > 0";
+
+    private static final String SQL_SUMAR_FRAGMENTOS =
+            "SELECT producto_id, SUM(cantidad) FROM inventario_fragmentos WHERE producto_id IN (:ids) GROUP BY producto_id";
+
+    private static final String SQL_LEER_FRAGMENTOS =
+            "SELECT cantidad FROM inventario_fragmentos WHERE producto_id = ? ORDER BY fragmento";
+
+    private static final String SQL_BLOQUEAR_FRAGMENTOS = SQL_LEER_FRAGMENTOS + " FOR UPDATE";
+
+    private static final String SQL_DECREMENTAR_FRAGMENTO =
+            "UPDATE inventario_fragmentos SET cantidad = cantidad - ? "
+            + "WHERE producto_id = ? AND fragmento = ? AND cantidad >= ?";
+
+    private static final String SQL_INCREMENTAR_FRAGMENTO =
+            "UPDATE inventario_fragmentos SET cantidad = cantidad + ? WHERE producto_id = ? AND fragmento = ?";
+
+    private static final String SQL_UPSERT_FRAGMENTO =
+            "INSERT INTO inventario_fragmentos (producto_id, fragmento, cantidad) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE cantidad = VALUES(cantidad)";
+
+    private static final String SQL_ELIMINAR_FRAGMENTOS_SOBRANTES =
+            "DELETE FROM inventario_fragmentos WHERE producto_id = ? AND fragmento >= ?";
+
+    // El resto de la división se reparte a razón de una unidad entre los primeros fragmentos
+    private static final String SQL_REPARTIR_FRAGMENTOS =
+            "UPDATE inventario_fragmentos f JOIN Inventario i ON i.producto_id = f.producto_id "
+            + "SET f.cantidad = i.cantidad DIV i.fragmentos + (f.fragmento < i.cantidad MOD i.fragmentos) "
+            + "WHERE i.producto_id IN (:ids) AND i.fragmentos > 0";
+
+    private static final String SQL_BLOQUEAR_INVENTARIO_COMPARTIDO =
+            "SELECT producto_id, cantidad, stock_minimo, stock_maximo, fecha_creacion, fecha_actualizacion, version, "
+            + "fragmentos FROM Inventario WHERE producto_id = ? FOR SHARE";
+
+    private static final String SQL_BUSCAR_INSTANTANEA =
+            "SELECT historial_id, cantidad FROM inventario_instantaneas WHERE producto_id = ? "
+            + "ORDER BY historial_id DESC LIMIT 1";
+
+    private static final String SQL_APLICAR_MOVIMIENTOS =
+            "SELECT MAX(id), COALESCE(SUM(delta), 0) FROM historial_compras "
+            + "WHERE producto_id = ? AND id > ? AND delta IS NOT NULL";
+
+    private static final String SQL_ULTIMO_MOVIMIENTO =
+            "SELECT COALESCE(MAX(id), 0) FROM historial_compras WHERE producto_id = ? FOR SHARE";
+
+    private static final String SQL_INSERTAR_INSTANTANEA =
+            "INSERT INTO inventario_instantaneas (producto_id, historial_id, cantidad) VALUES (?, ?, ?)";
+
+    private static final String SQL_ELIMINAR_INSTANTANEAS_ANTERIORES =
+            "DELETE FROM inventario_instantaneas WHERE producto_id = ? AND historial_id < ?";
+
+    private static final String SQL_PRODUCTOS_CON_MOVIMIENTOS_PENDIENTES =
+            "SELECT s.producto_id FROM inventario_instantaneas s "
+            + "WHERE NOT EXISTS (SELECT 1 FROM inventario_instantaneas n "
+            + "WHERE n.producto_id = s.producto_id AND n.historial_id > s.historial_id) "
+            + "AND EXISTS (SELECT 1 FROM historial_compras h "
+            + "WHERE h.producto_id = s.producto_id AND h.id > s.historial_id AND h.delta IS NOT NULL)";
+
+    private static final String SQL_PRODUCTOS_CON_INSTANTANEA =
+            "SELECT DISTINCT producto_id FROM inventario_instantaneas";
+
+    private static final String SQL_ELIMINAR_INSTANTANEAS = "DELETE FROM inventario_instantaneas WHERE producto_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final JdbcTemplate cursorJdbcTemplate;
+
+    public InventarioRepositoryImpl(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        // Con MySQL Connector/J, fetchSize Integer.MIN_VALUE transmite las filas una a una en lugar de cargarlas todas
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Override
+    public Map<Integer, Integer> bloquearCantidadesActuales(Collection<Integer> productoIds) {
+        Map<Integer, Integer> cantidades = new HashMap<>();
+        if (productoIds.isEmpty()) {
+            return cantidades;
+        }
+        namedJdbcTemplate.query(SQL_CANTIDADES_ACTUALES, new MapSqlParameterSource("ids", productoIds), rs -> {
+            int cantidad = rs.getInt(2);
+            cantidades.put(rs.getInt(1), rs.wasNull() ? null : cantidad);
+        });
+        return cantidades;
+    }
+
+    @Override
+    public UpsertInventarioResultado upsertCantidad(Integer productoId, Integer cantidad) {
+        List<UpsertInventarioResultado> resultado = jdbcTemplate.query(SQL_UPSERT_CANTIDAD, (rs, fila) ->
+                new UpsertInventarioResultado(mapearInventario(rs), rs.getInt("cantidad_anterior"), rs.getBoolean("creado")),
+                productoId, cantidad);
+        if (resultado.isEmpty()) {
+            throw new IllegalStateException("sp_upsert_inventario no devolvió la fila del producto " + productoId);
+        }
+        return resultado.get(0);
+    }
+
+    @Override
+    public void upsertCantidades(List<Inventario> inventarios) {
+        jdbcTemplate.batchUpdate(SQL_UPSERT, inventarios, inventarios.size(), (ps, inventario) -> {
+            ps.setInt(1, inventario.getProductoId());
+            ps.setInt(2, inventario.getCantidad());
+        });
+    }
+
+    @Override
+    public void recorrerInventario(boolean conLibroMayor, Consumer<Inventario> consumidor) {
+        String cantidad = conLibroMayor
+                ? "COALESCE(" + SQL_SALDO_LIBRO_MAYOR + ", " + SQL_CANTIDAD_FRAGMENTADA + ")"
+                : SQL_CANTIDAD_FRAGMENTADA;
+        cursorJdbcTemplate.query(String.format(SQL_RECORRER, cantidad), rs -> {
+            consumidor.accept(mapearInventario(rs));
+        });
+    }
+
+    @Override
+    public void recorrerIdsProducto(IntConsumer consumidor) {
+        cursorJdbcTemplate.query(SQL_IDS_PRODUCTO, rs -> {
+            consumidor.accept(rs.getInt(1));
+        });
+    }
+
+    @Override
+    public Inventario bloquearInventario(Integer productoId) {
+        List<Inventario> inventarios = jdbcTemplate.query(SQL_BLOQUEAR_INVENTARIO,
+                (rs, fila) -> mapearInventario(rs), productoId);
+        return inventarios.isEmpty() ? null : inventarios.get(0);
+    }
+
+    @Override
+    public List<Inventario> bloquearInventarios(Collection<Integer> productoIds) {
+        if (productoIds.isEmpty()) {
+            return List.of();
+        }
+        return namedJdbcTemplate.query(SQL_BLOQUEAR_INVENTARIOS, new MapSqlParameterSource("ids", productoIds),
+                (rs, fila) -> mapearInventario(rs));
+    }
+
+    @Override
+    public int decrementarCantidades(Map<Integer, Integer> cantidades) {
+        List<Map.Entry<Integer, Integer>> pendientes = new ArrayList<>(cantidades.entrySet());
+        int actualizadas = 0;
+        for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_BLOQUE_DECREMENTO) {
+            List<Map.Entry<Integer, Integer>> bloque =
+                    pendientes.subList(inicio, Math.min(inicio + TAMANO_BLOQUE_DECREMENTO, pendientes.size()));
+            actualizadas += jdbcTemplate.update(sqlDecrementarCantidades(bloque.size()), ps -> {
+                int parametro = 1;
+                for (Map.Entry<Integer, Integer> linea : bloque) {
+                    ps.setInt(parametro++, linea.getKey());
+                    ps.setInt(parametro++, linea.getValue());
+                }
+                for (Map.Entry<Integer, Integer> linea : bloque) {
+                    ps.setInt(parametro++, linea.getKey());
+                }
+            });
+        }
+        return actualizadas;
+    }
+
+    /**
+     * UPDATE de un bloque: cantidad = cantidad - CASE producto_id WHEN ? THEN ? ... END para los IDs del IN
+     */
+    private static String sqlDecrementarCantidades(int productos) {
+        StringBuilder sql = new StringBuilder("UPDATE Inventario SET cantidad = cantidad - CASE producto_id");
+        for (int i = 0; i < productos; i++) {
+            sql.append(" WHEN ? THEN ?");
+        }
+        sql.append(" END, version = version + 1 WHERE producto_id IN (");
+        for (int i = 0; i < productos; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    @Override
+    public void actualizarConsolidado(Integer productoId, int cantidad, int fragmentos) {
+        jdbcTemplate.update(SQL_ACTUALIZAR_CONSOLIDADO, cantidad, fragmentos, productoId);
+    }
+
+    @Override
+    public List<Integer> buscarProductosFragmentados() {
+        return jdbcTemplate.queryForList(SQL_PRODUCTOS_FRAGMENTADOS, Integer.class);
+    }
+
+    @Override
+    public Map<Integer, Integer> sumarFragmentos(Collection<Integer> productoIds) {
+        Map<Integer, Integer> sumas = new HashMap<>();
+        if (productoIds.isEmpty()) {
+            return sumas;
+        }
+        namedJdbcTemplate.query(SQL_SUMAR_FRAGMENTOS, new MapSqlParameterSource("ids", productoIds),
+                rs -> {
+                    sumas.put(rs.getInt(1), rs.getInt(2));
+                });
+        return sumas;
+    }
+
+    @Override
+    public List<Inventario> buscarFragmentadosConCantidadActual() {
+        return jdbcTemplate.query(SQL_FRAGMENTADOS_CON_CANTIDAD_ACTUAL, (rs, fila) -> mapearInventario(rs));
+    }
+
+    @Override
+    public Map<Integer, Integer> calcularSaldos(Collection<Integer> productoIds) {
+        Map<Integer, Integer> saldos = new HashMap<>();
+        if (productoIds.isEmpty()) {
+            return saldos;
+        }
+        namedJdbcTemplate.query(SQL_CALCULAR_SALDOS, new MapSqlParameterSource("ids", productoIds), rs -> {
+            int saldo = rs.getInt(2);
+            if (!rs.wasNull()) {
+                saldos.put(rs.getInt(1), saldo);
+            }
+        });
+        return saldos;
+    }
+
+    @Override
+    public int[] leerFragmentos(Integer productoId) {
+        return consultarFragmentos(SQL_LEER_FRAGMENTOS, productoId);
+    }
+
+    @Override
+    public int[] bloquearFragmentos(Integer productoId) {
+        return consultarFragmentos(SQL_BLOQUEAR_FRAGMENTOS, productoId);
+    }
+
+    @Override
+    public boolean decrementarFragmento(Integer productoId, int fragmento, int cantidad) {
+        return jdbcTemplate.update(SQL_DECREMENTAR_FRAGMENTO, cantidad, productoId, fragmento, cantidad) == 1;
+    }
+
+    @Override
+    public boolean incrementarFragmento(Integer productoId, int fragmento, int cantidad) {
+        return jdbcTemplate.update(SQL_INCREMENTAR_FRAGMENTO, cantidad, productoId, fragmento) == 1;
+    }
+
+    @Override
+    public void fijarFragmentos(Integer productoId, int[] cantidades) {
+        jdbcTemplate.update(SQL_ELIMINAR_FRAGMENTOS_SOBRANTES, productoId, cantidades.length);
+        if (cantidades.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SQL_UPSERT_FRAGMENTO, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, productoId);
+                ps.setInt(2, i);
+                ps.setInt(3, cantidades[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return cantidades.length;
+            }
+        });
+    }
+
+    @Override
+    public void repartirFragmentos(Collection<Integer> productoIds) {
+        if (!productoIds.isEmpty()) {
+            namedJdbcTemplate.update(SQL_REPARTIR_FRAGMENTOS, new MapSqlParameterSource("ids", productoIds));
+        }
+    }
+
+    private int[] consultarFragmentos(String sql, Integer productoId) {
+        return jdbcTemplate.queryForList(sql, Integer.class, productoId).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    @Override
+    public Inventario bloquearInventarioCompartido(Integer productoId) {
+        List<Inventario> inventarios = jdbcTemplate.query(SQL_BLOQUEAR_INVENTARIO_COMPARTIDO,
+                (rs, fila) -> mapearInventario(rs), productoId);
+        return inventarios.isEmpty() ? null : inventarios.get(0);
+    }
+
+    @Override
+    public InstantaneaInventario buscarInstantanea(Integer productoId, boolean bloquear) {
+        List<InstantaneaInventario> instantaneas = jdbcTemplate.query(
+                bloquear ? SQL_BUSCAR_INSTANTANEA + " FOR SHARE" : SQL_BUSCAR_INSTANTANEA,
+                (rs, fila) -> new InstantaneaInventario(productoId, rs.getLong(1), rs.getInt(2)), productoId);
+        return instantaneas.isEmpty() ? null : instantaneas.get(0);
+    }
+
+    @Override
+    public InstantaneaInventario aplicarMovimientos(InstantaneaInventario desde, boolean bloquear) {
+        return jdbcTemplate.queryForObject(
+                bloquear ? SQL_APLICAR_MOVIMIENTOS + " FOR SHARE" : SQL_APLICAR_MOVIMIENTOS,
+                (rs, fila) -> {
+                    long ultimo = rs.getLong(1);
+                    return rs.wasNull()
+                            ? desde
+                            : new InstantaneaInventario(desde.getProductoId(), ultimo, desde.getCantidad() + rs.getInt(2));
+                },
+                desde.getProductoId(), desde.getHistorialId());
+    }
+
+    @Override
+    public long ultimoMovimiento(Integer productoId) {
+        Long ultimo = jdbcTemplate.queryForObject(SQL_ULTIMO_MOVIMIENTO, Long.class, productoId);
+        return ultimo != null ? ultimo : 0;
+    }
+
+    @Override
+    public void guardarInstantanea(InstantaneaInventario instantanea) {
+        jdbcTemplate.update(SQL_INSERTAR_INSTANTANEA, instantanea.getProductoId(), instantanea.getHistorialId(),
+                instantanea.getCantidad());
+        jdbcTemplate.update(SQL_ELIMINAR_INSTANTANEAS_ANTERIORES, instantanea.getProductoId(), instantanea.getHistorialId());
+    }
+
+    @Override
+    public List<Integer> buscarProductosConMovimientosPendientes() {
+        return jdbcTemplate.queryForList(SQL_PRODUCTOS_CON_MOVIMIENTOS_PENDIENTES, Integer.class);
+    }
+
+    @Override
+    public List<Integer> buscarProductosConInstantanea() {
+        return jdbcTemplate.queryForList(SQL_PRODUCTOS_CON_INSTANTANEA, Integer.class);
+    }
+
+    @Override
+    public void eliminarInstantaneas(Integer productoId) {
+        jdbcTemplate.update(SQL_ELIMINAR_INSTANTANEAS, productoId);
+    }
+
+    private static Inventario mapearInventario(ResultSet rs) throws SQLException {
+        Timestamp fechaCreacion = rs.getTimestamp("fecha_creacion");
+        Timestamp fechaActualizacion = rs.getTimestamp("fecha_actualizacion");
+        return Inventario.builder()
+                .productoId(rs.getInt("producto_id"))
+                .cantidad(rs.getInt("cantidad"))
+                .stockMinimo(rs.getObject("stock_minimo", Integer.class))
+                .stockMaximo(rs.getObject("stock_maximo", Integer.class))
+                .fechaCreacion(fechaCreacion != null ? fechaCreacion.toLocalDateTime() : null)
+                .fechaActualizacion(fechaActualizacion != null ? fechaActualizacion.toLocalDateTime() : null)
+                .version(rs.getObject("version", Long.class))
+                .fragmentos(rs.getInt("fragmentos"))
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.linktic.inventario.repository;
+
+import com.linktic.inventario.model.Inventario;
+import lombok.Value;
+
+/**
+ * Resultado de sp_upsert_inventario: la fila resultante y la cantidad que tenía antes
+ */
+@Value
+public class UpsertInventarioResultado {
+
+    Inventario inventario;
+
+    int cantidadAnterior;
+
+    boolean creado;
+}
@@ -0,0 +1,168 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Producto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrupa consultas individuales de productos en llamadas por lotes (al estilo DataLoader)
+ *
+ * Las consultas que llegan dentro de la ventana se acumulan, sin repetir IDs, y se resuelven con una sola
+ * llamada a /api/v1/products/batch; el lote sale antes si alcanza el tamaño máximo. Los IDs que el lote no
+ * devuelve se consultan de forma individual para conservar la semántica del 404.
+ *
+ * Como en el algoritmo de Nagle, solo se espera cuando hay con quién agrupar: si no hay ninguna llamada en
+ * curso ni lote abierto, la consulta sale de inmediato y la ventana se abre para las que lleguen mientras
+ * tanto. Sin concurrencia, la consulta individual no paga la ventana.
+ */
+@Component
+public class AgrupadorProductos {
+
+    private final ProductoClient productoClient;
+    private final boolean habilitado;
+    private final long ventanaMs;
+    private final int maxLote;
+    private final Scheduler planificador;
+    private final Counter lotes;
+    private final Counter consultas;
+
+    // Protegidos por el monitor del agrupador
+    private Map<Integer, List<MonoSink<Producto>>> pendientes = new LinkedHashMap<>();
+    private Disposable temporizador;
+    private int enCurso;
+
+    public AgrupadorProductos(ProductoClient productoClient,
+                              @Value("${app.productos-service.agrupacion.habilitada:true}") boolean habilitado,
+                              @Value("${app.productos-service.agrupacion.ventana-ms:5}") long ventanaMs,
+                              @Value("${app.productos-service.agrupacion.max-lote:50}") int maxLote,
+                              MeterRegistry meterRegistry) {
+        this.productoClient = productoClient;
+        this.habilitado = habilitado;
+        this.ventanaMs = ventanaMs;
+        this.maxLote = maxLote;
+        this.planificador = Schedulers.parallel();
+        this.lotes = Counter.builder("productos.agrupacion.lotes")
+                .description("Llamadas al servicio de productos despachadas por el agrupador")
+                .register(meterRegistry);
+        this.consultas = Counter.builder("productos.agrupacion.consultas")
+                .description("Consultas individuales de productos recibidas por el agrupador")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consultar un producto; vacío si no existe
+     */
+    public Mono<Producto> cargar(Integer productoId) {
+        if (!habilitado) {
+            return productoClient.getProductoById(productoId);
+        }
+        return Mono.create(sink -> {
+            consultas.increment();
+            Map<Integer, List<MonoSink<Producto>>> lleno = null;
+            synchronized (this) {
+                pendientes.computeIfAbsent(productoId, id -> new ArrayList<>()).add(sink);
+                if (enCurso == 0 && pendientes.size() == 1) {
+                    // Nada con qué agrupar: esperar la ventana solo añadiría latencia
+                    lleno = tomarPendientes();
+                } else if (pendientes.size() >= maxLote) {
+                    lleno = tomarPendientes();
+                } else if (temporizador == null) {
+                    temporizador = planificador.schedule(this::despacharVentana, ventanaMs, TimeUnit.MILLISECONDS);
+                }
+            }
+            if (lleno != null) {
+                despachar(lleno);
+            }
+        });
+    }
+
+    private void despacharVentana() {
+        Map<Integer, List<MonoSink<Producto>>> lote;
+        synchronized (this) {
+            temporizador = null;
+            lote = tomarPendientes();
+        }
+        if (!lote.isEmpty()) {
+            despachar(lote);
+        }
+    }
+
+    private Map<Integer, List<MonoSink<Producto>>> tomarPendientes() {
+        Map<Integer, List<MonoSink<Producto>>> lote = pendientes;
+        pendientes = new LinkedHashMap<>();
+        if (temporizador != null) {
+            temporizador.dispose();
+            temporizador = null;
+        }
+        return lote;
+    }
+
+    private synchronized void terminarLlamada() {
+        enCurso--;
+    }
+
+    private void despachar(Map<Integer, List<MonoSink<Producto>>> lote) {
+        lotes.increment();
+        synchronized (this) {
+            enCurso++;
+        }
+        if (lote.size() == 1) {
+            Map.Entry<Integer, List<MonoSink<Producto>>> unico = lote.entrySet().iterator().next();
+            consultarIndividual(unico.getKey(), unico.getValue(), true);
+            return;
+        }
+        productoClient.getProductosBatch(new ArrayList<>(lote.keySet()))
+                .doFinally(senal -> terminarLlamada())
+                .subscribe(
+                productos -> {
+                    Map<Integer, Producto> porId = new HashMap<>();
+                    for (Producto producto : productos) {
+                        if (producto != null) {
+                            porId.put(producto.getId(), producto);
+                        }
+                    }
+                    lote.forEach((productoId, sinks) -> {
+                        Producto producto = porId.get(productoId);
+                        if (producto != null) {
+                            sinks.forEach(sink -> sink.success(producto));
+                        } else {
+                            lotes.increment();
+                            consultarIndividual(productoId, sinks, false);
+                        }
+                    });
+                },
+                error -> lote.values().forEach(sinks -> sinks.forEach(sink -> sink.error(error))));
+    }
+
+    /**
+     * Consulta individual; contada indica que es la llamada principal de un despacho y cuenta como en curso
+     */
+    private void consultarIndividual(Integer productoId, List<MonoSink<Producto>> sinks, boolean contada) {
+        productoClient.getProductoById(productoId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .doFinally(senal -> {
+                    if (contada) {
+                        terminarLlamada();
+                    }
+                })
+                .subscribe(
+                        producto -> sinks.forEach(sink -> sink.success(producto.orElse(null))),
+                        error -> sinks.forEach(sink -> sink.error(error)));
+    }
+}
@@ -0,0 +1,226 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.event.InventarioCambiadoEvent;
+import com.linktic.inventario.model.AlertaStock;
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.repository.AlertaStockRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Motor de alertas de stock bajo basado en transiciones
+ *
+ * En lugar de recorrer el catálogo, evalúa cada cambio confirmado: se abre una alerta cuando la cantidad
+ * cruza por debajo del umbral (el stock mínimo del producto, o el de {@link Inventario#STOCK_MINIMO_POR_DEFECTO}) y se resuelve cuando
+ * vuelve a superar umbral + histéresis. Los valores del evento solo detectan el cruce; la decisión se toma con el
+ * stock y el mínimo actuales, porque los listeners de commits concurrentes pueden ejecutarse en otro orden. Solo
+ * los cruces y los cambios de umbrales consultan la tabla; la clave única sobre la alerta activa evita
+ * duplicados entre instancias. Los envíos SSE usan {@link EnvioSse}: un suscriptor atascado se desconecta.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertaStockService {
+
+    private final AlertaStockRepository alertaStockRepository;
+    private final InventarioService inventarioService;
+
+    @Value("${app.inventario.alertas.histeresis:5}")
+    private int histeresis;
+
+    @Value("${app.inventario.alertas.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.inventario.alertas.hilos-envio:2}")
+    private int hilosEnvio;
+
+    @Value("${app.inventario.alertas.timeout-envio-ms:5000}")
+    private long timeoutEnvioMs;
+
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private EnvioSse envio;
+
+    @PostConstruct
+    void iniciar() {
+        envio = new EnvioSse("alertas-stock-envio", hilosEnvio, timeoutEnvioMs);
+    }
+
+    @PreDestroy
+    void detener() {
+        suscriptores.forEach(suscriptor -> suscriptor.emitter.complete());
+        if (envio != null) {
+            envio.detener();
+        }
+    }
+
+    /**
+     * Evaluar un cambio confirmado de inventario
+     */
+    // fallbackExecution: los cambios del stock fragmentado y del libro mayor se publican ya confirmados
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void alConfirmarCambio(InventarioCambiadoEvent evento) {
+        int anterior = evento.getCantidadAnterior() != null ? evento.getCantidadAnterior() : 0;
+        int cantidad = evento.getCantidad();
+        int umbralEvento = evento.getStockMinimo() != null ? evento.getStockMinimo()
+                : Inventario.STOCK_MINIMO_POR_DEFECTO;
+        boolean cruza = (anterior >= umbralEvento && cantidad < umbralEvento)
+                || (anterior < umbralEvento + histeresis && cantidad >= umbralEvento + histeresis);
+        if (!cruza && !InventarioCambiadoEvent.OPERACION_UMBRALES.equals(evento.getOperacion())) {
+            return;
+        }
+
+        // El último commit de un cruce siempre llega aquí después de confirmarse: su lectura ve el estado final
+        Inventario inventario = inventarioService.buscarConCantidadActual(evento.getProductoId()).orElse(null);
+        if (inventario == null) {
+            return;
+        }
+        int actual = inventario.getCantidad();
+        int umbralProducto = inventario.stockMinimoEfectivo();
+
+        if (actual < umbralProducto) {
+            abrirAlerta(evento.getProductoId(), actual, umbralProducto);
+        } else if (actual >= umbralProducto + histeresis) {
+            resolverAlerta(evento.getProductoId(), actual);
+        }
+    }
+
+    /**
+     * Listar alertas por estado
+     */
+    @Transactional(readOnly = true)
+    public List<AlertaStock> getAlertas(AlertaStock.EstadoAlerta estado) {
+        return alertaStockRepository.findByEstadoOrderByFechaCreacionDesc(estado);
+    }
+
+    /**
+     * Suscribirse a las alertas nuevas y resueltas (Server-Sent Events)
+     */
+    public SseEmitter suscribir() {
+        SseEmitter emitter = crearEmitter(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(emitter);
+        emitter.onCompletion(suscriptor::terminar);
+        emitter.onTimeout(suscriptor::terminar);
+        emitter.onError(e -> suscriptor.terminar());
+        suscriptores.add(suscriptor);
+        return emitter;
+    }
+
+    public int getSuscriptoresActivos() {
+        return suscriptores.size();
+    }
+
+    SseEmitter crearEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    private void abrirAlerta(Integer productoId, int cantidad, int umbralProducto) {
+        // Un cruce hacia abajo sin haber superado la histéresis no abre una alerta nueva
+        if (alertaStockRepository.findFirstByProductoIdAndEstado(productoId, AlertaStock.EstadoAlerta.ACTIVA).isPresent()) {
+            return;
+        }
+        try {
+            AlertaStock alerta = alertaStockRepository.saveAndFlush(AlertaStock.builder()
+                    .productoId(productoId)
+                    .estado(AlertaStock.EstadoAlerta.ACTIVA)
+                    .umbral(umbralProducto)
+                    .cantidad(cantidad)
+                    .build());
+            log.warn("Alerta de stock bajo para el producto {}: {} unidades (umbral {})", productoId, cantidad, umbralProducto);
+            notificar(alerta);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Alerta activa ya registrada para el producto {}", productoId);
+        }
+    }
+
+    private void resolverAlerta(Integer productoId, int cantidad) {
+        alertaStockRepository.findFirstByProductoIdAndEstado(productoId, AlertaStock.EstadoAlerta.ACTIVA)
+                .ifPresent(alerta -> {
+                    alerta.setEstado(AlertaStock.EstadoAlerta.RESUELTA);
+                    alerta.setCantidadResolucion(cantidad);
+                    alerta.setFechaResolucion(LocalDateTime.now());
+                    AlertaStock resuelta = alertaStockRepository.save(alerta);
+                    log.info("Alerta de stock resuelta para el producto {}: {} unidades", productoId, cantidad);
+                    notificar(resuelta);
+                });
+    }
+
+    private void notificar(AlertaStock alerta) {
+        // Enviar fuera del hilo de la solicitud que provocó el cambio, en orden para cada suscriptor
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.pendientes.add(alerta);
+            suscriptor.programarEnvio();
+        }
+    }
+
+    private final class Suscriptor {
+        private final SseEmitter emitter;
+        private final EnvioSse.Canal canal;
+        private final Queue<AlertaStock> pendientes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean enviando = new AtomicBoolean();
+
+        private Suscriptor(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.canal = envio.abrirCanal(emitter, () -> {
+                suscriptores.remove(this);
+                log.warn("Suscripción a alertas desconectada: un envío lleva más de {} ms bloqueado",
+                        envio.getTimeoutEnvioMs());
+            });
+        }
+
+        private void terminar() {
+            suscriptores.remove(this);
+            canal.cerrar();
+        }
+
+        private void programarEnvio() {
+            if (enviando.compareAndSet(false, true)) {
+                try {
+                    envio.ejecutar(this::drenar);
+                } catch (RuntimeException e) {
+                    enviando.set(false);
+                }
+            }
+        }
+
+        private void drenar() {
+            try {
+                do {
+                    AlertaStock alerta;
+                    while ((alerta = pendientes.poll()) != null) {
+                        canal.enviar(SseEmitter.event()
+                                .id(String.valueOf(alerta.getId()))
+                                .name(alerta.getEstado().name().toLowerCase())
+                                .data(alerta, MediaType.APPLICATION_JSON));
+                    }
+                    enviando.set(false);
+                } while (!pendientes.isEmpty() && enviando.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // El cliente cerró la conexión o su envío se cortó por atascado
+                terminar();
+                pendientes.clear();
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.repository.HistorialCompraRepository;
+import com.linktic.inventario.repository.InventarioRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fase de calentamiento tras el arranque, antes de declarar el servicio listo
+ *
+ * Precarga en caché los productos más activos según el historial reciente, carga sus filas de inventario
+ * y lanza solicitudes sintéticas contra el propio servidor para que el JIT compile las rutas calientes.
+ * La readiness (ver CalentamientoHealthIndicator) pasa a UP al terminar o al agotarse el tiempo límite; en ese
+ * caso el calentamiento se cancela (interrumpiendo su hilo propio) y la readiness no espera a que se detenga.
+ * Cada solicitud sintética tiene su propio plazo, recortado al tiempo que le queda al calentamiento, así que
+ * ninguna sigue en curso mucho después de que llegue el tráfico real.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CalentamientoService {
+
+    private final HistorialCompraRepository historialCompraRepository;
+    private final InventarioRepository inventarioRepository;
+    private final ProductoService productoService;
+    private final WebClient.Builder webClientBuilder;
+    private final Environment environment;
+
+    @Value("${app.calentamiento.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.calentamiento.productos:500}")
+    private int maxProductos;
+
+    @Value("${app.calentamiento.dias-historial:7}")
+    private int diasHistorial;
+
+    @Value("${app.calentamiento.tamano-lote:100}")
+    private int tamanoLote;
+
+    @Value("${app.calentamiento.solicitudes-sinteticas:200}")
+    private int solicitudesSinteticas;
+
+    @Value("${app.calentamiento.timeout-segundos:60}")
+    private long timeoutSegundos;
+
+    @Value("${app.calentamiento.timeout-solicitud-ms:2000}")
+    private long timeoutSolicitudMs;
+
+    @Value("${app.api.key:default-api-key}")
+    private String apiKey;
+
+    private volatile boolean completado;
+    private volatile boolean agotado;
+    private volatile int productosPrecargados;
+    private volatile long duracionMs;
+
+    private ExecutorService ejecutor;
+    private volatile Future<?> tarea;
+    private volatile long inicio;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        if (!habilitado) {
+            completado = true;
+            return;
+        }
+        inicio = System.currentTimeMillis();
+        ejecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "calentamiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        tarea = ejecutor.submit(() -> {
+            try {
+                calentar();
+                if (!agotado) {
+                    log.info("Calentamiento completado en {} ms ({} productos precargados)",
+                            System.currentTimeMillis() - inicio, productosPrecargados);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Calentamiento fallido: {}", e.toString());
+            } finally {
+                if (!agotado) {
+                    duracionMs = System.currentTimeMillis() - inicio;
+                    completado = true;
+                }
+                ejecutor.shutdown();
+            }
+        });
+        CompletableFuture.delayedExecutor(timeoutSegundos, TimeUnit.SECONDS).execute(this::cancelarPorTiempo);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (ejecutor != null) {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Cancelar el calentamiento que no terminó a tiempo y pasar la readiness a UP sin esperar a su hilo
+     */
+    void cancelarPorTiempo() {
+        if (completado) {
+            return;
+        }
+        agotado = true;
+        log.warn("Calentamiento cancelado tras {} s sin terminar", timeoutSegundos);
+        tarea.cancel(true);
+        duracionMs = System.currentTimeMillis() - inicio;
+        completado = true;
+    }
+
+    void calentar() {
+        List<Integer> productoIds = historialCompraRepository.findProductosMasActivos(
+                LocalDateTime.now().minusDays(diasHistorial), PageRequest.of(0, maxProductos));
+        log.info("Calentando caché con {} productos activos", productoIds.size());
+
+        productosPrecargados = productoService.precargar(productoIds, tamanoLote);
+        if (cancelado()) {
+            return;
+        }
+        inventarioRepository.findAllById(productoIds);
+
+        if (!productoIds.isEmpty()) {
+            ejecutarSolicitudesSinteticas(productoIds);
+        }
+    }
+
+    /**
+     * Las llamadas bloqueantes interrumpidas pueden capturarse como fallos normales: se comprueba entre pasos
+     */
+    private boolean cancelado() {
+        return agotado || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Recorrer los endpoints de lectura a través de HTTP para calentar filtros, controladores y serialización
+     */
+    private void ejecutarSolicitudesSinteticas(List<Integer> productoIds) {
+        String puerto = environment.getProperty("local.server.port");
+        if (puerto == null) {
+            return;
+        }
+        String contexto = environment.getProperty("server.servlet.context-path", "");
+        WebClient cliente = webClientBuilder.clone()
+                .baseUrl("http://localhost:" + puerto + contexto)
+                .defaultHeader("X-API-Key", apiKey)
+                .defaultHeader(HttpHeaders.ACCEPT, "application/json")
+                .build();
+
+        for (int i = 0; i < solicitudesSinteticas && !cancelado(); i++) {
+            String uri = i % 10 == 9
+                    ? "/inventario/stock-bajo"
+                    : "/inventario/" + productoIds.get(i % productoIds.size());
+            // Ninguna solicitud se alarga más allá del tiempo límite del calentamiento
+            long restanteMs = TimeUnit.SECONDS.toMillis(timeoutSegundos) - (System.currentTimeMillis() - inicio);
+            if (restanteMs <= 0) {
+                return;
+            }
+            try {
+                cliente.get().uri(uri).retrieve().toBodilessEntity()
+                        .block(Duration.ofMillis(Math.min(timeoutSolicitudMs, restanteMs)));
+            } catch (RuntimeException e) {
+                log.debug("Solicitud sintética {} fallida: {}", uri, e.getMessage());
+            }
+        }
+    }
+
+    public boolean isCompletado() {
+        return completado;
+    }
+
+    public boolean isAgotado() {
+        return agotado;
+    }
+
+    public int getProductosPrecargados() {
+        return productosPrecargados;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+}
@@ -0,0 +1,321 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.event.InventarioCambiadoEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feed de cambios de inventario por Server-Sent Events
+ *
+ * Los cambios confirmados se numeran y se guardan en un buffer circular para reanudar desde Last-Event-ID.
+ * Cada suscriptor tiene su propia cola coalescida por producto: un cliente lento recibe solo el último
+ * estado de cada producto y, si acumula más productos pendientes que el límite, se le desconecta.
+ * Los envíos son bloqueantes y comparten un pool pequeño ({@link EnvioSse}): un envío que no termina dentro de
+ * su plazo desconecta al suscriptor sin detener el feed de todos los demás.
+ */
+@Service
+@Slf4j
+public class CambiosInventarioService {
+
+    static final String EVENTO_CAMBIO = "inventario";
+    static final String EVENTO_REINICIO = "reinicio";
+    static final String EVENTO_DESBORDAMIENTO = "desbordamiento";
+
+    @Value("${app.inventario.cambios.historial:4096}")
+    private int capacidadHistorial;
+
+    @Value("${app.inventario.cambios.max-pendientes:1000}")
+    private int maxPendientes;
+
+    @Value("${app.inventario.cambios.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.inventario.cambios.latido-segundos:15}")
+    private long latidoSegundos;
+
+    @Value("${app.inventario.cambios.hilos-envio:4}")
+    private int hilosEnvio;
+
+    @Value("${app.inventario.cambios.timeout-envio-ms:5000}")
+    private long timeoutEnvioMs;
+
+    // Identifica este arranque: un Last-Event-ID de otro proceso no se puede reanudar
+    private final String instancia = Long.toString(System.currentTimeMillis(), 36);
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+
+    // Protegidos por el monitor de este servicio
+    private CambioRegistrado[] historial;
+    private long siguienteSecuencia = 1;
+
+    private EnvioSse envio;
+    private ScheduledExecutorService latido;
+
+    @PostConstruct
+    void iniciar() {
+        historial = new CambioRegistrado[capacidadHistorial];
+        envio = new EnvioSse("cambios-inventario-envio", hilosEnvio, timeoutEnvioMs);
+        latido = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "cambios-inventario-latido");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        latido.scheduleAtFixedRate(this::enviarLatidos, latidoSegundos, latidoSegundos, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        suscripciones.forEach(suscripcion -> suscripcion.emitter.complete());
+        if (latido != null) {
+            latido.shutdownNow();
+        }
+        if (envio != null) {
+            envio.detener();
+        }
+    }
+
+    /**
+     * Registrar un cambio confirmado y repartirlo a los suscriptores
+     */
+    // fallbackExecution: los cambios del stock fragmentado y del libro mayor se publican ya confirmados
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alConfirmarCambio(InventarioCambiadoEvent evento) {
+        List<Suscripcion> aNotificar = new ArrayList<>();
+        synchronized (this) {
+            // Numerar y encolar bajo el mismo lock garantiza que cada suscriptor reciba las secuencias en orden
+            CambioRegistrado cambio = new CambioRegistrado(siguienteSecuencia++, evento);
+            historial[(int) (cambio.secuencia % historial.length)] = cambio;
+            for (Suscripcion suscripcion : suscripciones) {
+                if (suscripcion.encolar(cambio)) {
+                    aNotificar.add(suscripcion);
+                }
+            }
+        }
+        aNotificar.forEach(Suscripcion::programarEnvio);
+    }
+
+    /**
+     * Abrir una suscripción, opcionalmente filtrada por productos y reanudando tras ultimoEventoId
+     */
+    public SseEmitter suscribir(Set<Integer> productoIds, String ultimoEventoId) {
+        SseEmitter emitter = crearEmitter(timeoutMs);
+        Suscripcion suscripcion = new Suscripcion(emitter, productoIds == null || productoIds.isEmpty() ? null : productoIds);
+        emitter.onCompletion(suscripcion::terminar);
+        emitter.onTimeout(suscripcion::terminar);
+        emitter.onError(e -> suscripcion.terminar());
+
+        synchronized (this) {
+            if (ultimoEventoId != null && !ultimoEventoId.isBlank()) {
+                List<CambioRegistrado> perdidos = cambiosDesde(ultimoEventoId);
+                if (perdidos == null) {
+                    suscripcion.reinicioPendiente = true;
+                } else {
+                    perdidos.forEach(suscripcion::encolar);
+                }
+            }
+            suscripciones.add(suscripcion);
+        }
+        log.info("Nueva suscripción a cambios de inventario (productos: {}, último evento: {})",
+                productoIds, ultimoEventoId);
+
+        suscripcion.programarEnvio();
+        return emitter;
+    }
+
+    public int getSuscriptoresActivos() {
+        return suscripciones.size();
+    }
+
+    SseEmitter crearEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    /**
+     * Cambios posteriores al ID indicado, o null si ya no están en el buffer o el ID es de otro arranque
+     */
+    synchronized List<CambioRegistrado> cambiosDesde(String ultimoEventoId) {
+        long ultimaSecuencia;
+        int separador = ultimoEventoId.lastIndexOf('-');
+        try {
+            if (separador < 0 || !ultimoEventoId.substring(0, separador).equals(instancia)) {
+                return null;
+            }
+            ultimaSecuencia = Long.parseLong(ultimoEventoId.substring(separador + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        long masAntigua = Math.max(1, siguienteSecuencia - historial.length);
+        if (ultimaSecuencia >= siguienteSecuencia || ultimaSecuencia + 1 < masAntigua) {
+            return null;
+        }
+        List<CambioRegistrado> cambios = new ArrayList<>();
+        for (long secuencia = ultimaSecuencia + 1; secuencia < siguienteSecuencia; secuencia++) {
+            cambios.add(historial[(int) (secuencia % historial.length)]);
+        }
+        return cambios;
+    }
+
+    String idEvento(long secuencia) {
+        return instancia + "-" + secuencia;
+    }
+
+    private void enviarLatidos() {
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.latidoPendiente = true;
+            suscripcion.programarEnvio();
+        }
+    }
+
+    static final class CambioRegistrado {
+        final long secuencia;
+        final InventarioCambiadoEvent evento;
+
+        CambioRegistrado(long secuencia, InventarioCambiadoEvent evento) {
+            this.secuencia = secuencia;
+            this.evento = evento;
+        }
+    }
+
+    private final class Suscripcion {
+        private final SseEmitter emitter;
+        private final EnvioSse.Canal canal;
+        private final Set<Integer> productoIds;
+        // Un cambio pendiente por producto, en orden de secuencia
+        private final Map<Integer, CambioRegistrado> pendientes = new LinkedHashMap<>();
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile boolean desbordada;
+        private volatile boolean reinicioPendiente;
+        private volatile boolean latidoPendiente;
+
+        private Suscripcion(SseEmitter emitter, Set<Integer> productoIds) {
+            this.emitter = emitter;
+            this.canal = envio.abrirCanal(emitter, () -> {
+                suscripciones.remove(this);
+                log.warn("Suscripción a cambios desconectada: un envío lleva más de {} ms bloqueado",
+                        envio.getTimeoutEnvioMs());
+            });
+            this.productoIds = productoIds;
+        }
+
+        private void terminar() {
+            suscripciones.remove(this);
+            canal.cerrar();
+        }
+
+        /**
+         * Encolar un cambio reemplazando el pendiente del mismo producto; devuelve false si no aplica
+         */
+        private boolean encolar(CambioRegistrado cambio) {
+            Integer productoId = cambio.evento.getProductoId();
+            if (productoIds != null && !productoIds.contains(productoId)) {
+                return false;
+            }
+            synchronized (pendientes) {
+                if (pendientes.remove(productoId) == null && pendientes.size() >= maxPendientes) {
+                    desbordada = true;
+                    return true;
+                }
+                pendientes.put(productoId, cambio);
+            }
+            return true;
+        }
+
+        private void programarEnvio() {
+            if (enviando.compareAndSet(false, true)) {
+                try {
+                    envio.ejecutar(this::drenar);
+                } catch (RuntimeException e) {
+                    enviando.set(false);
+                }
+            }
+        }
+
+        private void drenar() {
+            try {
+                do {
+                    if (!enviarPendientes()) {
+                        return;
+                    }
+                    enviando.set(false);
+                } while (hayTrabajo() && enviando.compareAndSet(false, true));
+            } catch (RuntimeException e) {
+                enviando.set(false);
+                throw e;
+            }
+        }
+
+        private void enviar(SseEmitter.SseEventBuilder evento) throws IOException {
+            canal.enviar(evento);
+        }
+
+        private boolean hayTrabajo() {
+            synchronized (pendientes) {
+                return !pendientes.isEmpty() || desbordada || reinicioPendiente || latidoPendiente;
+            }
+        }
+
+        /**
+         * Enviar lo pendiente; devuelve false si la suscripción terminó
+         */
+        private boolean enviarPendientes() {
+            try {
+                if (reinicioPendiente) {
+                    reinicioPendiente = false;
+                    enviar(SseEmitter.event().name(EVENTO_REINICIO)
+                            .data("No es posible reanudar desde el último evento; vuelva a consultar el inventario"));
+                }
+                if (desbordada) {
+                    terminar();
+                    log.warn("Suscripción a cambios desconectada por exceder {} productos pendientes", maxPendientes);
+                    enviar(SseEmitter.event().name(EVENTO_DESBORDAMIENTO)
+                            .data("Cliente demasiado lento; reconecte usando Last-Event-ID"));
+                    emitter.complete();
+                    return false;
+                }
+
+                List<CambioRegistrado> lote;
+                synchronized (pendientes) {
+                    lote = new ArrayList<>(pendientes.values());
+                    pendientes.clear();
+                }
+                for (CambioRegistrado cambio : lote) {
+                    enviar(SseEmitter.event()
+                            .id(idEvento(cambio.secuencia))
+                            .name(EVENTO_CAMBIO)
+                            .data(cambio.evento, MediaType.APPLICATION_JSON));
+                }
+                if (latidoPendiente) {
+                    latidoPendiente = false;
+                    if (lote.isEmpty()) {
+                        enviar(SseEmitter.event().comment("latido"));
+                    }
+                }
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // El cliente cerró la conexión
+                terminar();
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.linktic.inventario.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Solicitudes de cobertura (hedging) contra la latencia de cola del servicio de productos
+ *
+ * Si la llamada original no respondió tras el percentil configurado de las latencias recientes, se lanza una
+ * segunda idéntica y se usa la primera que termine; la otra se cancela. Un presupuesto acumulado por cada
+ * solicitud original limita las coberturas a un porcentaje del tráfico.
+ */
+@Component
+public class CoberturaSolicitudes {
+
+    private static final int CAPACIDAD_MUESTRAS = 1000;
+    private static final int RECALCULAR_CADA = 100;
+    private static final double PRESUPUESTO_MAXIMO = 10;
+
+    private final boolean habilitada;
+    private final double percentil;
+    private final long retrasoMinimoMs;
+    private final int muestrasMinimas;
+    private final double presupuestoPorSolicitud;
+
+    private final Counter solicitudes;
+    private final Counter enviadas;
+    private final Counter ganadas;
+    private final Counter denegadas;
+
+    // Protegidos por el monitor de la cobertura
+    private final long[] latenciasMs = new long[CAPACIDAD_MUESTRAS];
+    private long totalMuestras;
+    private double presupuesto;
+
+    private volatile long retrasoMs = -1;
+
+    public CoberturaSolicitudes(@Value("${app.productos-service.cobertura.habilitada:false}") boolean habilitada,
+                                @Value("${app.productos-service.cobertura.percentil:95}") double percentil,
+                                @Value("${app.productos-service.cobertura.retraso-minimo-ms:20}") long retrasoMinimoMs,
+                                @Value("${app.productos-service.cobertura.muestras-minimas:50}") int muestrasMinimas,
+                                @Value("${app.productos-service.cobertura.presupuesto-porcentaje:5}") double presupuestoPorcentaje,
+                                MeterRegistry meterRegistry) {
+        this.habilitada = habilitada;
+        this.percentil = percentil;
+        this.retrasoMinimoMs = retrasoMinimoMs;
+        this.muestrasMinimas = muestrasMinimas;
+        this.presupuestoPorSolicitud = presupuestoPorcentaje / 100;
+        this.solicitudes = Counter.builder("productos.cobertura.solicitudes")
+                .description("Solicitudes originales elegibles para cobertura")
+                .register(meterRegistry);
+        this.enviadas = Counter.builder("productos.cobertura.enviadas")
+                .description("Solicitudes de cobertura lanzadas")
+                .register(meterRegistry);
+        this.ganadas = Counter.builder("productos.cobertura.ganadas")
+                .description("Solicitudes de cobertura que respondieron antes que la original")
+                .register(meterRegistry);
+        this.denegadas = Counter.builder("productos.cobertura.denegadas")
+                .description("Coberturas no lanzadas por falta de presupuesto")
+                .register(meterRegistry);
+        Gauge.builder("productos.cobertura.retraso", this, CoberturaSolicitudes::getRetrasoMs)
+                .description("Espera antes de lanzar la cobertura (ms); -1 sin muestras suficientes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecutar la llamada, lanzando una cobertura si tarda más que el retraso actual
+     */
+    public <T> Mono<T> cubrir(Supplier<Mono<T>> llamada) {
+        if (!habilitada) {
+            return llamada.get();
+        }
+        return Mono.defer(() -> {
+            long inicio = System.nanoTime();
+            long retraso = retrasoMs;
+            solicitudes.increment();
+            acumularPresupuesto();
+
+            Mono<T> original = Mono.defer(llamada)
+                    .doOnSuccess(resultado -> registrarLatencia(inicio));
+            if (retraso < 0) {
+                return original;
+            }
+            Mono<T> cobertura = Mono.delay(Duration.ofMillis(retraso))
+                    .flatMap(tick -> {
+                        if (!consumirPresupuesto()) {
+                            denegadas.increment();
+                            return Mono.<T>never();
+                        }
+                        enviadas.increment();
+                        return Mono.defer(llamada)
+                                // La latencia de la original es al menos el tiempo transcurrido
+                                .doOnSuccess(resultado -> {
+                                    ganadas.increment();
+                                    registrarLatencia(inicio);
+                                });
+                    })
+                    // Un fallo de la cobertura no debe ganar a una original que aún puede responder
+                    .onErrorResume(error -> Mono.never());
+            return Mono.firstWithSignal(original, cobertura);
+        });
+    }
+
+    public long getRetrasoMs() {
+        return retrasoMs;
+    }
+
+    void registrarLatencia(long inicioNanos) {
+        long latenciaMs = (System.nanoTime() - inicioNanos) / 1_000_000;
+        long[] copia = null;
+        synchronized (this) {
+            latenciasMs[(int) (totalMuestras % CAPACIDAD_MUESTRAS)] = latenciaMs;
+            totalMuestras++;
+            if (totalMuestras >= muestrasMinimas
+                    && (totalMuestras == muestrasMinimas || totalMuestras % RECALCULAR_CADA == 0)) {
+                copia = Arrays.copyOf(latenciasMs, (int) Math.min(totalMuestras, CAPACIDAD_MUESTRAS));
+            }
+        }
+        if (copia != null) {
+            Arrays.sort(copia);
+            int indice = (int) Math.ceil(percentil / 100 * copia.length) - 1;
+            retrasoMs = Math.max(retrasoMinimoMs, copia[Math.max(0, Math.min(indice, copia.length - 1))]);
+        }
+    }
+
+    private synchronized void acumularPresupuesto() {
+        presupuesto = Math.min(PRESUPUESTO_MAXIMO, presupuesto + presupuestoPorSolicitud);
+    }
+
+    private synchronized boolean consumirPresupuesto() {
+        if (presupuesto < 1) {
+            return false;
+        }
+        presupuesto--;
+        return true;
+    }
+}
@@ -0,0 +1,180 @@
+package com.linktic.inventario.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool compartido para envíos SSE bloqueantes con plazo por envío
+ *
+ * Un envío que no termina dentro de su plazo (el cliente no lee y el buffer TCP está lleno) corta su canal,
+ * interrumpe su hilo y, mientras ese hilo siga atascado, el pool crece en uno: unos pocos clientes atascados no
+ * detienen los envíos a todos los demás.
+ */
+@Slf4j
+final class EnvioSse {
+
+    private final int hilos;
+    private final long timeoutEnvioMs;
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService vigilante;
+    private final Set<Canal> canales = ConcurrentHashMap.newKeySet();
+    // Hilos del pool retenidos por envíos ya cortados; protegido por el monitor del pool
+    private int hilosAtascados;
+
+    EnvioSse(String nombre, int hilos, long timeoutEnvioMs) {
+        this.hilos = hilos;
+        this.timeoutEnvioMs = timeoutEnvioMs;
+        AtomicInteger contador = new AtomicInteger();
+        pool = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread hilo = new Thread(r, nombre + "-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        vigilante = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, nombre + "-vigilante");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        if (timeoutEnvioMs > 0) {
+            long revision = Math.max(timeoutEnvioMs / 2, 10);
+            vigilante.scheduleAtFixedRate(this::cortarEnviosAtascados, revision, revision, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Abrir un canal para un emitter; alCortar se ejecuta si el vigilante corta un envío atascado
+     */
+    Canal abrirCanal(SseEmitter emitter, Runnable alCortar) {
+        Canal canal = new Canal(emitter, alCortar);
+        canales.add(canal);
+        return canal;
+    }
+
+    void ejecutar(Runnable tarea) {
+        pool.execute(tarea);
+    }
+
+    long getTimeoutEnvioMs() {
+        return timeoutEnvioMs;
+    }
+
+    void detener() {
+        vigilante.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Sumar o restar hilos al pool para que los atascados no resten capacidad a los demás canales
+     */
+    private void compensarHilosAtascados(int cambio) {
+        synchronized (pool) {
+            hilosAtascados += cambio;
+            int total = hilos + hilosAtascados;
+            // El núcleo nunca puede superar al máximo: se crece por el máximo y se reduce por el núcleo
+            if (cambio > 0) {
+                pool.setMaximumPoolSize(total);
+                pool.setCorePoolSize(total);
+            } else {
+                pool.setCorePoolSize(total);
+                pool.setMaximumPoolSize(total);
+            }
+        }
+    }
+
+    private void cortarEnviosAtascados() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(timeoutEnvioMs);
+        for (Canal canal : canales) {
+            try {
+                canal.cortarSiAtascado(limite);
+            } catch (RuntimeException e) {
+                log.warn("No se pudo desconectar un envío atascado: {}", e.getMessage());
+            }
+        }
+    }
+
+    final class Canal {
+        private final SseEmitter emitter;
+        private final Runnable alCortar;
+        // Envío en curso (hilo e instante de inicio); protegidos por el monitor del canal
+        private Thread hiloEnvio;
+        private long envioDesde;
+        private boolean hiloCompensado;
+        private volatile boolean cortado;
+
+        private Canal(SseEmitter emitter, Runnable alCortar) {
+            this.emitter = emitter;
+            this.alCortar = alCortar;
+        }
+
+        /**
+         * Enviar un evento registrando el envío en curso, para que el vigilante pueda cortarlo
+         */
+        void enviar(SseEmitter.SseEventBuilder evento) throws IOException {
+            synchronized (this) {
+                if (cortado) {
+                    throw new IOException("Suscripción desconectada por envío atascado");
+                }
+                hiloEnvio = Thread.currentThread();
+                envioDesde = System.nanoTime();
+            }
+            try {
+                emitter.send(evento);
+            } finally {
+                boolean liberarHilo;
+                synchronized (this) {
+                    hiloEnvio = null;
+                    if (cortado) {
+                        // La interrupción era para este envío: no debe alcanzar al siguiente trabajo del pool
+                        Thread.interrupted();
+                    }
+                    liberarHilo = hiloCompensado;
+                    hiloCompensado = false;
+                }
+                if (liberarHilo) {
+                    compensarHilosAtascados(-1);
+                }
+            }
+            if (cortado) {
+                throw new IOException("Suscripción desconectada por envío atascado");
+            }
+        }
+
+        /**
+         * Dejar de vigilar el canal cuando su suscripción termina
+         */
+        void cerrar() {
+            canales.remove(this);
+        }
+
+        /**
+         * Cortar el canal si su envío en curso empezó antes del límite
+         */
+        private void cortarSiAtascado(long limiteNanos) {
+            synchronized (this) {
+                if (hiloEnvio == null || envioDesde - limiteNanos > 0 || cortado) {
+                    return;
+                }
+                cortado = true;
+                hiloCompensado = true;
+                // La suscripción se retira antes de que el pool crezca y otro hilo siga con los demás envíos. El
+                // emitter se completa desde el hilo del envío al fallar: sus métodos comparten un monitor que el
+                // envío atascado retiene
+                canales.remove(this);
+                alCortar.run();
+                // Dentro del monitor, para que la resta al terminar el envío nunca se adelante a esta suma
+                compensarHilosAtascados(1);
+                hiloEnvio.interrupt();
+            }
+        }
+    }
+}
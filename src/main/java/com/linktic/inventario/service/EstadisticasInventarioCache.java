@@ -0,0 +1,120 @@
+package com.linktic.inventario.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Caché de las estadísticas del inventario con refresco anticipado
+ *
+ * Un único cálculo en curso atiende a todas las solicitudes concurrentes. Pasado el umbral de refresco se
+ * sirve el valor actual mientras se recalcula en segundo plano; solo al expirar el TTL se espera al cálculo.
+ * Si el cálculo falla se sigue sirviendo el último valor, marcado como desactualizado en meta.
+ */
+@Service
+@Slf4j
+public class EstadisticasInventarioCache {
+
+    private final InventarioService inventarioService;
+    private final long ttlMs;
+    private final long refrescarTrasMs;
+    private final ExecutorService calculo;
+
+    private volatile Instantanea actual;
+
+    // Protegido por el monitor de la caché
+    private CompletableFuture<Instantanea> enCurso;
+
+    public EstadisticasInventarioCache(InventarioService inventarioService,
+                                       @Value("${app.inventario.estadisticas.ttl-ms:10000}") long ttlMs,
+                                       @Value("${app.inventario.estadisticas.refrescar-tras-ms:8000}") long refrescarTrasMs) {
+        this.inventarioService = inventarioService;
+        this.ttlMs = ttlMs;
+        this.refrescarTrasMs = Math.min(refrescarTrasMs, ttlMs);
+        this.calculo = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "estadisticas-inventario-calculo");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    void detener() {
+        calculo.shutdownNow();
+    }
+
+    /**
+     * Estadísticas con metadatos de antigüedad
+     */
+    public InventarioService.InventarioStats obtener() {
+        Instantanea instantanea = actual;
+        long ahora = System.currentTimeMillis();
+        if (instantanea == null || ahora - instantanea.calculadoEn >= ttlMs) {
+            try {
+                instantanea = iniciarCalculo().join();
+            } catch (CompletionException e) {
+                if (instantanea == null) {
+                    throw e.getCause() instanceof RuntimeException causa ? causa : e;
+                }
+                log.warn("No se pudieron recalcular las estadísticas; se sirve el último valor: {}", e.getMessage());
+                return conMeta(instantanea, true);
+            }
+        } else if (ahora - instantanea.calculadoEn >= refrescarTrasMs) {
+            iniciarCalculo();
+        }
+        return conMeta(instantanea, false);
+    }
+
+    /**
+     * Cálculo en curso o uno nuevo si no hay ninguno
+     */
+    private synchronized CompletableFuture<Instantanea> iniciarCalculo() {
+        if (enCurso != null) {
+            return enCurso;
+        }
+        CompletableFuture<Instantanea> nuevo = CompletableFuture.supplyAsync(() -> {
+            Instantanea instantanea = new Instantanea(inventarioService.getEstadisticasInventario(), System.currentTimeMillis());
+            actual = instantanea;
+            return instantanea;
+        }, calculo);
+        enCurso = nuevo;
+        // Registrado después de asignar enCurso: si el cálculo ya terminó, se ejecuta aquí mismo
+        nuevo.whenComplete((instantanea, error) -> {
+            synchronized (this) {
+                if (enCurso == nuevo) {
+                    enCurso = null;
+                }
+            }
+            if (error != null) {
+                log.error("Error al calcular las estadísticas del inventario: {}", error.getMessage());
+            }
+        });
+        return nuevo;
+    }
+
+    private InventarioService.InventarioStats conMeta(Instantanea instantanea, boolean desactualizado) {
+        long antiguedadMs = System.currentTimeMillis() - instantanea.calculadoEn;
+        LocalDateTime calculadoEn = LocalDateTime.ofInstant(Instant.ofEpochMilli(instantanea.calculadoEn), ZoneId.systemDefault());
+        return instantanea.stats.conMeta(new InventarioService.InventarioStats.MetaEstadisticas(
+                calculadoEn, antiguedadMs, ttlMs, desactualizado || antiguedadMs >= ttlMs));
+    }
+
+    private static final class Instantanea {
+        private final InventarioService.InventarioStats stats;
+        private final long calculadoEn;
+
+        private Instantanea(InventarioService.InventarioStats stats, long calculadoEn) {
+            this.stats = stats;
+            this.calculadoEn = calculadoEn;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.repository.InventarioRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock fragmentado para los productos con más escrituras concurrentes
+ *
+ * El stock de un producto fragmentado se reparte entre N filas de inventario_fragmentos. Cada compra suma a un
+ * fragmento al azar y cada venta descuenta de un fragmento con unidades suficientes mediante un UPDATE
+ * condicional, así que las escrituras concurrentes bloquean filas distintas y ningún fragmento queda en negativo.
+ * Si ningún fragmento basta por sí solo se bloquean todos, en orden, para descontar entre varios. Un rebalanceo
+ * periódico reparte de nuevo el stock por igual y consolida la suma en Inventario.cantidad para los listados.
+ *
+ * Orden de bloqueo: la fila de Inventario antes que los fragmentos, y los fragmentos en orden ascendente.
+ */
+@Service
+@Slf4j
+public class FragmentosInventarioService {
+
+    private final InventarioRepository inventarioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxFragmentos;
+    private final long rebalanceoSegundos;
+
+    private ScheduledExecutorService rebalanceador;
+
+    public FragmentosInventarioService(InventarioRepository inventarioRepository,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${app.inventario.fragmentos.max-fragmentos:64}") int maxFragmentos,
+                                       @Value("${app.inventario.fragmentos.rebalanceo-segundos:5}") long rebalanceoSegundos) {
+        this.inventarioRepository = inventarioRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxFragmentos = maxFragmentos;
+        this.rebalanceoSegundos = rebalanceoSegundos;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        if (rebalanceoSegundos <= 0) {
+            return;
+        }
+        rebalanceador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "inventario-fragmentos-rebalanceo");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        rebalanceador.scheduleWithFixedDelay(this::rebalancearSeguro, rebalanceoSegundos, rebalanceoSegundos,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (rebalanceador != null) {
+            rebalanceador.shutdownNow();
+        }
+    }
+
+    /**
+     * Repartir el stock de un producto entre el número de fragmentos indicado (también para cambiarlo)
+     */
+    @Transactional
+    public Inventario fragmentar(Integer productoId, int fragmentos) {
+        if (fragmentos < 2 || fragmentos > maxFragmentos) {
+            throw new IllegalArgumentException("El número de fragmentos debe estar entre 2 y " + maxFragmentos);
+        }
+        Inventario inventario = bloquearInventario(productoId);
+        int total = inventario.isFragmentado()
+                ? suma(inventarioRepository.bloquearFragmentos(productoId))
+                : inventario.getCantidad();
+
+        inventarioRepository.fijarFragmentos(productoId, repartir(total, fragmentos));
+        inventarioRepository.actualizarConsolidado(productoId, total, fragmentos);
+
+        log.info("Stock del producto {} repartido en {} fragmentos ({} unidades)", productoId, fragmentos, total);
+        return inventario.toBuilder().cantidad(total).fragmentos(fragmentos).build();
+    }
+
+    /**
+     * Volver a una sola fila de inventario con la suma de los fragmentos
+     */
+    @Transactional
+    public Inventario consolidar(Integer productoId) {
+        Inventario inventario = bloquearInventario(productoId);
+        if (!inventario.isFragmentado()) {
+            return inventario;
+        }
+        int total = suma(inventarioRepository.bloquearFragmentos(productoId));
+
+        inventarioRepository.fijarFragmentos(productoId, new int[0]);
+        inventarioRepository.actualizarConsolidado(productoId, total, 0);
+
+        log.info("Stock del producto {} consolidado en una fila ({} unidades)", productoId, total);
+        return inventario.toBuilder().cantidad(total).fragmentos(0).build();
+    }
+
+    /**
+     * Cantidad total de un producto fragmentado
+     */
+    public int cantidadTotal(Integer productoId) {
+        return suma(inventarioRepository.leerFragmentos(productoId));
+    }
+
+    /**
+     * Sumar unidades a un fragmento al azar; devuelve la cantidad total resultante
+     */
+    public int incrementar(Integer productoId, int cantidad) {
+        int[] actuales = inventarioRepository.leerFragmentos(productoId);
+        if (actuales.length == 0
+                || !inventarioRepository.incrementarFragmento(productoId, azar(actuales.length), cantidad)) {
+            throw conflicto(productoId);
+        }
+        return suma(actuales) + cantidad;
+    }
+
+    /**
+     * Descontar unidades sin dejar ningún fragmento en negativo; devuelve la cantidad total resultante
+     */
+    public int decrementar(Integer productoId, int cantidad) {
+        int[] actuales = inventarioRepository.leerFragmentos(productoId);
+        if (actuales.length == 0) {
+            throw conflicto(productoId);
+        }
+
+        List<Integer> candidatos = new ArrayList<>(actuales.length);
+        for (int fragmento = 0; fragmento < actuales.length; fragmento++) {
+            if (actuales[fragmento] >= cantidad) {
+                candidatos.add(fragmento);
+            }
+        }
+        if (!candidatos.isEmpty()) {
+            // Un solo intento: si otra venta vació el fragmento entre la lectura y el UPDATE, la operación se
+            // rechaza como conflicto en lugar de bloquear más fragmentos fuera de orden
+            int fragmento = candidatos.get(azar(candidatos.size()));
+            if (!inventarioRepository.decrementarFragmento(productoId, fragmento, cantidad)) {
+                throw conflicto(productoId);
+            }
+            return suma(actuales) - cantidad;
+        }
+
+        // Ningún fragmento basta por sí solo: bloquearlos todos y descontar entre varios
+        int[] bloqueados = inventarioRepository.bloquearFragmentos(productoId);
+        if (bloqueados.length == 0) {
+            throw conflicto(productoId);
+        }
+        int total = suma(bloqueados);
+        if (total < cantidad) {
+            throw new IllegalArgumentException("No hay suficiente stock disponible");
+        }
+        int pendiente = cantidad;
+        for (int fragmento = 0; fragmento < bloqueados.length && pendiente > 0; fragmento++) {
+            int descontado = Math.min(bloqueados[fragmento], pendiente);
+            bloqueados[fragmento] -= descontado;
+            pendiente -= descontado;
+        }
+        inventarioRepository.fijarFragmentos(productoId, bloqueados);
+        return total - cantidad;
+    }
+
+    /**
+     * Repartir la nueva cantidad de un producto fragmentado, ya fijada en su fila de Inventario;
+     * devuelve la suma anterior de los fragmentos
+     */
+    public int fijar(Integer productoId) {
+        int anterior = suma(inventarioRepository.bloquearFragmentos(productoId));
+        inventarioRepository.repartirFragmentos(List.of(productoId));
+        return anterior;
+    }
+
+    /**
+     * Rebalancear todos los productos fragmentados, cada uno en su propia transacción
+     */
+    public int rebalancear() {
+        int rebalanceados = 0;
+        for (Integer productoId : inventarioRepository.buscarProductosFragmentados()) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> rebalancearProducto(productoId)))) {
+                rebalanceados++;
+            }
+        }
+        return rebalanceados;
+    }
+
+    private boolean rebalancearProducto(Integer productoId) {
+        Inventario inventario = inventarioRepository.bloquearInventario(productoId);
+        if (inventario == null || !inventario.isFragmentado()) {
+            return false;
+        }
+        int[] actuales = inventarioRepository.bloquearFragmentos(productoId);
+        int total = suma(actuales);
+        int[] repartidos = repartir(total, inventario.getFragmentos());
+
+        boolean cambiado = false;
+        if (!Arrays.equals(actuales, repartidos)) {
+            inventarioRepository.fijarFragmentos(productoId, repartidos);
+            cambiado = true;
+        }
+        if (total != inventario.getCantidad()) {
+            inventarioRepository.actualizarConsolidado(productoId, total, inventario.getFragmentos());
+            cambiado = true;
+        }
+        return cambiado;
+    }
+
+    private void rebalancearSeguro() {
+        try {
+            int rebalanceados = rebalancear();
+            if (rebalanceados > 0) {
+                log.debug("Rebalanceados los fragmentos de {} productos", rebalanceados);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo rebalancear el stock fragmentado: {}", e.getMessage());
+        }
+    }
+
+    private Inventario bloquearInventario(Integer productoId) {
+        Inventario inventario = inventarioRepository.bloquearInventario(productoId);
+        if (inventario == null) {
+            throw new RuntimeException("No se encontró inventario para el producto con ID " + productoId);
+        }
+        return inventario;
+    }
+
+    /**
+     * Reparto equitativo; el resto se asigna de a una unidad a los primeros fragmentos
+     */
+    static int[] repartir(int total, int fragmentos) {
+        int[] cantidades = new int[fragmentos];
+        for (int fragmento = 0; fragmento < fragmentos; fragmento++) {
+            cantidades[fragmento] = total / fragmentos + (fragmento < total % fragmentos ? 1 : 0);
+        }
+        return cantidades;
+    }
+
+    private static int suma(int[] cantidades) {
+        int total = 0;
+        for (int cantidad : cantidades) {
+            total += cantidad;
+        }
+        return total;
+    }
+
+    private static int azar(int limite) {
+        return ThreadLocalRandom.current().nextInt(limite);
+    }
+
+    private static ObjectOptimisticLockingFailureException conflicto(Integer productoId) {
+        return new ObjectOptimisticLockingFailureException(Inventario.class, productoId);
+    }
+}
@@ -0,0 +1,318 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.event.InventarioCambiadoEvent;
+import com.linktic.inventario.model.HistorialCompra;
+import com.linktic.inventario.model.ImportacionInventario;
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.repository.HistorialCompraRepository;
+import com.linktic.inventario.repository.ImportacionInventarioRepository;
+import com.linktic.inventario.repository.InventarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación y exportación masiva de inventario en CSV
+ *
+ * La importación lee el archivo línea a línea y procesa lotes: cada lote bloquea las filas afectadas,
+ * hace upsert e inserta el historial con lotes JDBC, y confirma el punto de control en la misma
+ * transacción. El ID lo elige el cliente antes de enviar el archivo, así que siempre sabe con cuál reanudar o
+ * consultar el progreso aunque la respuesta no llegue; al reanudar con el mismo ID se omiten las líneas ya
+ * confirmadas. Como un ajuste, una fila no
+ * puede dejar el producto por debajo de sus unidades reservadas, y cada lote confirmado publica el cambio de
+ * sus productos para el feed de cambios y las alertas de stock.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportacionInventarioService {
+
+    static final int LONGITUD_MAXIMA_ID = 64;
+    static final String CABECERA_EXPORTACION = "producto_id,cantidad,stock_minimo,stock_maximo,fecha_actualizacion";
+
+    private final InventarioRepository inventarioRepository;
+    private final HistorialCompraRepository historialCompraRepository;
+    private final ImportacionInventarioRepository importacionInventarioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LibroMayorInventarioService libroMayorInventarioService;
+    private final ReservaStockService reservaStockService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.inventario.importacion.tamano-lote:1000}")
+    private int tamanoLote;
+
+    /**
+     * Importar un CSV "producto_id,cantidad" (cabecera opcional); importacionId identifica la importación para
+     * reanudarla o consultar su progreso
+     */
+    public ImportacionInventario importar(InputStream csv, String importacionId) {
+        if (importacionId == null || importacionId.isBlank() || importacionId.length() > LONGITUD_MAXIMA_ID) {
+            throw new IllegalArgumentException("El importacionId es obligatorio (hasta " + LONGITUD_MAXIMA_ID
+                    + " caracteres): identifica la importación para reanudarla o consultar su progreso");
+        }
+        String id = importacionId;
+        ImportacionInventario importacion = transactionTemplate.execute(status -> iniciarImportacion(id));
+        if (importacion.getEstado() == ImportacionInventario.EstadoImportacion.COMPLETADA) {
+            log.info("La importación {} ya estaba completada", id);
+            return importacion;
+        }
+
+        long omitir = importacion.getLineasProcesadas();
+        log.info("Importando inventario {} (reanudando tras {} líneas)", id, omitir);
+
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            List<FilaImportacion> lote = new ArrayList<>(tamanoLote);
+            long lineaDatos = 0;
+            boolean primera = true;
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (primera) {
+                    primera = false;
+                    if (esCabecera(linea)) {
+                        continue;
+                    }
+                }
+                lineaDatos++;
+                if (lineaDatos <= omitir) {
+                    continue;
+                }
+                lote.add(new FilaImportacion(lineaDatos, linea));
+                if (lote.size() >= tamanoLote) {
+                    importacion = procesarLote(id, lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                importacion = procesarLote(id, lote);
+            }
+            importacion = transactionTemplate.execute(status -> finalizarImportacion(id,
+                    ImportacionInventario.EstadoImportacion.COMPLETADA, null));
+            log.info("Importación {} completada: {} filas importadas, {} rechazadas",
+                    id, importacion.getFilasImportadas(), importacion.getFilasRechazadas());
+            return importacion;
+        } catch (IOException | RuntimeException e) {
+            log.error("Importación {} fallida: {}", id, e.getMessage());
+            return transactionTemplate.execute(status -> finalizarImportacion(id,
+                    ImportacionInventario.EstadoImportacion.FALLIDA, e.getMessage()));
+        }
+    }
+
+    /**
+     * Consultar el progreso de una importación
+     */
+    public ImportacionInventario getImportacion(String importacionId) {
+        return importacionInventarioRepository.findById(importacionId)
+                .orElseThrow(() -> new RuntimeException("No se encontró la importación " + importacionId));
+    }
+
+    /**
+     * Exportar todo el inventario en CSV recorriéndolo con un cursor
+     */
+    @Transactional(readOnly = true)
+    public void exportar(OutputStream salida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        escritor.write(CABECERA_EXPORTACION);
+        escritor.write('\n');
+        try {
+            inventarioRepository.recorrerInventario(libroMayorInventarioService.isHabilitado(),
+                    inventario -> escribirFila(escritor, inventario));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritor.flush();
+    }
+
+    private ImportacionInventario iniciarImportacion(String id) {
+        ImportacionInventario importacion = importacionInventarioRepository.findById(id)
+                .orElseGet(() -> ImportacionInventario.builder().id(id).build());
+        if (importacion.getEstado() != ImportacionInventario.EstadoImportacion.COMPLETADA) {
+            importacion.setEstado(ImportacionInventario.EstadoImportacion.EN_PROCESO);
+            importacion.setUltimoError(null);
+        }
+        return importacionInventarioRepository.saveAndFlush(importacion);
+    }
+
+    private ImportacionInventario finalizarImportacion(String id, ImportacionInventario.EstadoImportacion estado,
+                                                       String error) {
+        ImportacionInventario importacion = getImportacion(id);
+        importacion.setEstado(estado);
+        if (error != null) {
+            importacion.setUltimoError(truncar(error));
+        }
+        return importacionInventarioRepository.saveAndFlush(importacion);
+    }
+
+    /**
+     * Procesar un lote en una transacción: bloqueo y lectura, upsert, historial y punto de control
+     */
+    private ImportacionInventario procesarLote(String id, List<FilaImportacion> lote) {
+        return transactionTemplate.execute(status -> {
+            ImportacionInventario importacion = getImportacion(id);
+
+            List<Inventario> validas = new ArrayList<>(lote.size());
+            for (FilaImportacion fila : lote) {
+                try {
+                    validas.add(fila.parsear());
+                } catch (IllegalArgumentException e) {
+                    importacion.setFilasRechazadas(importacion.getFilasRechazadas() + 1);
+                    importacion.setUltimoError(truncar("Línea " + fila.numero + ": " + e.getMessage()));
+                }
+            }
+
+            Set<Integer> productoIds = new LinkedHashSet<>();
+            validas.forEach(inventario -> productoIds.add(inventario.getProductoId()));
+            Map<Integer, Integer> cantidades = inventarioRepository.bloquearCantidadesActuales(productoIds);
+            if (libroMayorInventarioService.isHabilitado()) {
+                // Los productos del libro mayor parten de su saldo; el AJUSTE por la diferencia lo deja en lo importado
+                libroMayorInventarioService.sustituirPorSaldos(cantidades);
+            }
+
+            List<Inventario> upserts = new ArrayList<>(validas.size());
+            List<HistorialCompra> historial = new ArrayList<>();
+            // Cantidad de cada producto modificado antes del lote
+            Map<Integer, Integer> anteriores = new LinkedHashMap<>();
+            for (Inventario inventario : validas) {
+                Integer productoId = inventario.getProductoId();
+                if (!cantidades.containsKey(productoId)) {
+                    importacion.setFilasRechazadas(importacion.getFilasRechazadas() + 1);
+                    importacion.setUltimoError(truncar("El producto con ID " + productoId + " no existe"));
+                    continue;
+                }
+                // Las filas ya están bloqueadas, así que ninguna reserva puede colarse entre esta lectura y el commit
+                int retenido = reservaStockService.cantidadRetenida(productoId);
+                if (inventario.getCantidad() < retenido) {
+                    importacion.setFilasRechazadas(importacion.getFilasRechazadas() + 1);
+                    importacion.setUltimoError(truncar("El producto con ID " + productoId + " tiene " + retenido
+                            + " unidades reservadas"));
+                    continue;
+                }
+                Integer anterior = cantidades.get(productoId);
+                int cantidadAnterior = anterior != null ? anterior : 0;
+                upserts.add(inventario);
+                if (anterior == null || cantidadAnterior != inventario.getCantidad()) {
+                    anteriores.putIfAbsent(productoId, cantidadAnterior);
+                    historial.add(HistorialCompra.builder()
+                            .productoId(productoId)
+                            .cantidad(Math.abs(inventario.getCantidad() - cantidadAnterior))
+                            .delta(inventario.getCantidad() - cantidadAnterior)
+                            .tipoOperacion(HistorialCompra.TipoOperacion.AJUSTE)
+                            .fechaOperacion(LocalDateTime.now())
+                            .observaciones("Importación " + id + ": " + cantidadAnterior + " -> " + inventario.getCantidad())
+                            .build());
+                }
+                // Las filas repetidas del mismo producto dentro del lote parten de la cantidad ya importada
+                cantidades.put(productoId, inventario.getCantidad());
+            }
+
+            if (!upserts.isEmpty()) {
+                inventarioRepository.upsertCantidades(upserts);
+                // Los productos con stock fragmentado reparten la cantidad importada entre sus fragmentos
+                inventarioRepository.repartirFragmentos(productoIds);
+            }
+            if (!historial.isEmpty()) {
+                historialCompraRepository.insertarLote(historial);
+            }
+            publicarCambios(anteriores);
+
+            importacion.setFilasImportadas(importacion.getFilasImportadas() + upserts.size());
+            importacion.setLineasProcesadas(lote.get(lote.size() - 1).numero);
+            return importacionInventarioRepository.saveAndFlush(importacion);
+        });
+    }
+
+    /**
+     * Publicar un cambio por producto modificado en el lote; los listeners lo reciben tras su commit
+     */
+    private void publicarCambios(Map<Integer, Integer> anteriores) {
+        if (anteriores.isEmpty()) {
+            return;
+        }
+        LocalDateTime fecha = LocalDateTime.now();
+        for (Inventario inventario : inventarioRepository.bloquearInventarios(anteriores.keySet())) {
+            Integer anterior = anteriores.get(inventario.getProductoId());
+            if (!inventario.getCantidad().equals(anterior)) {
+                eventPublisher.publishEvent(new InventarioCambiadoEvent(inventario.getProductoId(),
+                        inventario.getCantidad(), anterior, inventario.getVersion(), inventario.getStockMinimo(),
+                        "IMPORTACION", fecha, InventarioCambiadoEvent.siguienteSecuencia()));
+            }
+        }
+    }
+
+    private static boolean esCabecera(String linea) {
+        String primerCampo = linea.split(",", 2)[0].trim();
+        return !primerCampo.isEmpty() && !Character.isDigit(primerCampo.charAt(0));
+    }
+
+    private static void escribirFila(Writer escritor, Inventario inventario) {
+        try {
+            escritor.write(Integer.toString(inventario.getProductoId()));
+            escritor.write(',');
+            escritor.write(Integer.toString(inventario.getCantidad()));
+            escritor.write(',');
+            escritor.write(inventario.getStockMinimo() != null ? inventario.getStockMinimo().toString() : "");
+            escritor.write(',');
+            escritor.write(inventario.getStockMaximo() != null ? inventario.getStockMaximo().toString() : "");
+            escritor.write(',');
+            escritor.write(inventario.getFechaActualizacion() != null ? inventario.getFechaActualizacion().toString() : "");
+            escritor.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String truncar(String mensaje) {
+        return mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje;
+    }
+
+    private static final class FilaImportacion {
+        private final long numero;
+        private final String linea;
+
+        private FilaImportacion(long numero, String linea) {
+            this.numero = numero;
+            this.linea = linea;
+        }
+
+        private Inventario parsear() {
+            String[] campos = linea.split(",");
+            if (campos.length < 2) {
+                throw new IllegalArgumentException("Se esperaban las columnas producto_id,cantidad");
+            }
+            try {
+                int productoId = Integer.parseInt(campos[0].trim());
+                int cantidad = Integer.parseInt(campos[1].trim());
+                if (productoId <= 0 || cantidad < 0) {
+                    throw new IllegalArgumentException("producto_id debe ser positivo y cantidad no negativa");
+                }
+                return Inventario.builder().productoId(productoId).cantidad(cantidad).build();
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor numérico inválido: " + linea);
+            }
+        }
+    }
+}
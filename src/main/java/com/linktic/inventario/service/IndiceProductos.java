@@ -0,0 +1,108 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.repository.InventarioRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Índice local de IDs de producto existentes (un bit por ID)
+ *
+ * Se reconstruye periódicamente desde la tabla Producto y se amplía con cada respuesta positiva del
+ * servicio de productos. Un bit activo es una respuesta definitiva; un bit inactivo no prueba que el
+ * producto no exista, solo que hay que preguntar al servicio.
+ */
+@Component
+@Slf4j
+public class IndiceProductos {
+
+    private final InventarioRepository inventarioRepository;
+    private final boolean habilitado;
+    private final long intervaloSegundos;
+
+    // Protegido por el monitor del índice
+    private BitSet conocidos = new BitSet();
+    private ScheduledExecutorService sincronizador;
+
+    public IndiceProductos(InventarioRepository inventarioRepository,
+                           @Value("${app.productos-service.indice.habilitado:true}") boolean habilitado,
+                           @Value("${app.productos-service.indice.intervalo-segundos:300}") long intervaloSegundos) {
+        this.inventarioRepository = inventarioRepository;
+        this.habilitado = habilitado;
+        this.intervaloSegundos = intervaloSegundos;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        if (!habilitado) {
+            return;
+        }
+        sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "indice-productos-sincronizacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        sincronizador.scheduleWithFixedDelay(this::sincronizarSeguro, 0, intervaloSegundos, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (sincronizador != null) {
+            sincronizador.shutdownNow();
+        }
+    }
+
+    /**
+     * true si se sabe que el producto existe; false significa "desconocido", no "inexistente"
+     */
+    public synchronized boolean contiene(Integer productoId) {
+        return habilitado && productoId != null && productoId >= 0 && conocidos.get(productoId);
+    }
+
+    /**
+     * Registrar un producto cuya existencia confirmó el servicio de productos
+     */
+    public synchronized void marcar(Integer productoId) {
+        if (habilitado && productoId != null && productoId >= 0) {
+            conocidos.set(productoId);
+        }
+    }
+
+    public synchronized int size() {
+        return conocidos.cardinality();
+    }
+
+    /**
+     * Reconstruir el índice desde la tabla Producto; los productos eliminados desaparecen aquí
+     */
+    public void sincronizar() {
+        long inicio = System.currentTimeMillis();
+        BitSet nuevo = new BitSet();
+        inventarioRepository.recorrerIdsProducto(productoId -> {
+            if (productoId >= 0) {
+                nuevo.set(productoId);
+            }
+        });
+        synchronized (this) {
+            conocidos = nuevo;
+        }
+        log.info("Índice de productos sincronizado: {} IDs en {} ms", nuevo.cardinality(), System.currentTimeMillis() - inicio);
+    }
+
+    private void sincronizarSeguro() {
+        try {
+            sincronizar();
+        } catch (Exception e) {
+            // Se conserva el índice anterior; los IDs no marcados siguen consultándose al servicio
+            log.warn("No se pudo sincronizar el índice de productos: {}", e.getMessage());
+        }
+    }
+}
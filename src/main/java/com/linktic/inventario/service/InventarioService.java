@@ -1,20 +1,46 @@
 package com.linktic.inventario.service;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.linktic.inventario.dto.InventarioColeccion;
 import com.linktic.inventario.dto.InventarioResponse;
+import com.linktic.inventario.dto.PedidoRequest;
+import com.linktic.inventario.event.InventarioCambiadoEvent;
 import com.linktic.inventario.model.HistorialCompra;
 import com.linktic.inventario.model.Inventario;
 import com.linktic.inventario.model.Producto;
+import com.linktic.inventario.model.ReservaStock;
+import com.linktic.inventario.monitoring.MutacionInventarioEvent;
 import com.linktic.inventario.repository.HistorialCompraRepository;
 import com.linktic.inventario.repository.InventarioRepository;
+import com.linktic.inventario.repository.UpsertInventarioResultado;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Servicio principal para la gestión de inventario
@@ -25,9 +51,20 @@ import java.util.Optional;
 @Transactional
 public class InventarioService {
 
+    static final int MAX_IDS_POR_LECTURA = 200;
+    static final int MAX_LINEAS_POR_PEDIDO = 200;
+
     private final InventarioRepository inventarioRepository;
     private final HistorialCompraRepository historialCompraRepository;
     private final ProductoService productoService;
+    private final ReservaStockService reservaStockService;
+    private final FragmentosInventarioService fragmentosInventarioService;
+    private final LibroMayorInventarioService libroMayorInventarioService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    // Serializan por producto la relectura y la secuencia de los cambios publicados tras el commit
+    private final Object[] monitoresCambio = crearMonitores(64);
 
     /**
      * Consultar la cantidad disponible de un producto específico por ID
@@ -36,12 +73,7 @@ public class InventarioService {
         log.info("Consultando cantidad disponible para el producto: {}", productoId);
 
         // Verificar que el producto existe en el servicio de productos
-        productoService.productoExists(productoId)
-                .subscribe(exists -> {
-                    if (!exists) {
-                        throw new RuntimeException("El producto con ID " + productoId + " no existe");
-                    }
-                });
+        verificarProductoExiste(productoId);
 
         // Buscar el inventario del producto
         Optional<Inventario> inventarioOpt = inventarioRepository.findByProductoId(productoId);
@@ -51,7 +83,7 @@ public class InventarioService {
             throw new RuntimeException("No se encontró inventario para el producto con ID " + productoId);
         }
 
-        Inventario inventario = inventarioOpt.get();
+        Inventario inventario = conCantidadTotal(inventarioOpt.get());
         
         // Obtener información del producto
         Producto producto = productoService.getProductoById(productoId).block();
@@ -70,36 +102,56 @@ public class InventarioService {
             throw new IllegalArgumentException("La cantidad no puede ser negativa");
         }
 
-        // Verificar que el producto existe
-        productoService.productoExists(productoId)
-                .subscribe(exists -> {
-                    if (!exists) {
-                        throw new RuntimeException("El producto con ID " + productoId + " no existe");
-                    }
-                });
+        MutacionInventarioEvent evento = MutacionInventarioEvent.iniciar(productoId, "AJUSTE");
+        try {
+            // Verificar que el producto existe
+            evento.medirRemoto(() -> verificarProductoExiste(productoId));
+
+            Optional<Inventario> existente = libroMayorInventarioService.isHabilitado()
+                    ? evento.medirBaseDatos(() -> inventarioRepository.findByProductoId(productoId))
+                    : Optional.empty();
+
+            Integer cantidadAnterior;
+            Inventario inventarioGuardado;
+            if (existente.isPresent()) {
+                // Libro mayor: el ajuste se registra como un movimiento por la diferencia
+                cantidadAnterior = evento.medirBaseDatos(
+                        () -> libroMayorInventarioService.registrarAjuste(productoId, nuevaCantidad));
+                inventarioGuardado = existente.get().toBuilder().cantidad(nuevaCantidad).build();
+            } else {
+                // Crear o actualizar la fila y obtener la cantidad anterior en una sola llamada atómica
+                UpsertInventarioResultado resultado = evento.medirBaseDatos(
+                        () -> inventarioRepository.upsertCantidad(productoId, nuevaCantidad));
+                inventarioGuardado = resultado.getInventario();
+                cantidadAnterior = inventarioGuardado.isFragmentado()
+                        ? evento.medirBaseDatos(() -> fragmentosInventarioService.fijar(productoId))
+                        : resultado.getCantidadAnterior();
+
+                // Registrar en el historial
+                evento.medirBaseDatos(() -> registrarEnHistorial(productoId, cantidadAnterior, nuevaCantidad, "AJUSTE"));
+            }
+            // Con la fila ya bloqueada por la escritura, una reserva concurrente espera al commit o al rollback
+            int retenido = reservaStockService.cantidadRetenida(productoId);
+            if (nuevaCantidad < retenido) {
+                throw new IllegalArgumentException("La cantidad no puede ser menor que las unidades reservadas ("
+                        + retenido + ")");
+            }
+            publicarCambio(inventarioGuardado, cantidadAnterior, "AJUSTE");
 
-        // Buscar o crear el inventario
-        Inventario inventario = inventarioRepository.findByProductoId(productoId)
-                .orElse(Inventario.builder()
-                        .productoId(productoId)
-                        .cantidad(0)
-                        .build());
+            // Obtener información del producto
+            Producto producto = evento.medirRemoto(() -> productoService.getProductoById(productoId).block());
 
-        Integer cantidadAnterior = inventario.getCantidad();
-        inventario.actualizarCantidad(nuevaCantidad);
-        
-        Inventario inventarioGuardado = inventarioRepository.save(inventario);
-        
-        // Registrar en el historial
-        registrarEnHistorial(productoId, cantidadAnterior, nuevaCantidad, "AJUSTE");
-        
-        // Obtener información del producto
-        Producto producto = productoService.getProductoById(productoId).block();
-        
-        log.info("Cantidad actualizada exitosamente para el producto {}: {} -> {}", 
-                productoId, cantidadAnterior, nuevaCantidad);
-        
-        return buildInventarioResponse(inventarioGuardado, producto);
+            log.info("Cantidad actualizada exitosamente para el producto {}: {} -> {}",
+                    productoId, cantidadAnterior, nuevaCantidad);
+
+            evento.marcarExitosa();
+            return buildInventarioResponse(inventarioGuardado, producto);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            evento.marcarConflictoOptimista();
+            throw e;
+        } finally {
+            evento.finalizar();
+        }
     }
 
     /**
@@ -112,36 +164,59 @@ public class InventarioService {
             throw new IllegalArgumentException("La cantidad de incremento debe ser positiva");
         }
 
-        // Verificar que el producto existe
-        productoService.productoExists(productoId)
-                .subscribe(exists -> {
-                    if (!exists) {
-                        throw new RuntimeException("El producto con ID " + productoId + " no existe");
-                    }
-                });
+        MutacionInventarioEvent evento = MutacionInventarioEvent.iniciar(productoId, "COMPRA");
+        try {
+            // Verificar que el producto existe
+            evento.medirRemoto(() -> verificarProductoExiste(productoId));
 
-        // Buscar o crear el inventario
-        Inventario inventario = inventarioRepository.findByProductoId(productoId)
-                .orElse(Inventario.builder()
-                        .productoId(productoId)
-                        .cantidad(0)
-                        .build());
+            // Buscar o crear el inventario
+            Optional<Inventario> existente = evento.medirBaseDatos(() -> inventarioRepository.findByProductoId(productoId));
+            Inventario inventario = existente.orElse(Inventario.builder()
+                    .productoId(productoId)
+                    .cantidad(0)
+                    .build());
+
+            boolean enLibroMayor = libroMayorInventarioService.isHabilitado() && existente.isPresent();
+            Integer cantidadAnterior;
+            Inventario inventarioGuardado;
+            if (enLibroMayor) {
+                // Libro mayor: la compra solo añade su movimiento, que es a la vez el historial
+                int cantidadNueva = evento.medirBaseDatos(
+                        () -> libroMayorInventarioService.registrarEntrada(productoId, cantidadIncremento, precioUnitario));
+                cantidadAnterior = cantidadNueva - cantidadIncremento;
+                inventarioGuardado = inventario.toBuilder().cantidad(cantidadNueva).build();
+            } else if (inventario.isFragmentado()) {
+                // Stock fragmentado: se suma a un fragmento sin tocar la fila de Inventario
+                int cantidadNueva = evento.medirBaseDatos(
+                        () -> fragmentosInventarioService.incrementar(productoId, cantidadIncremento));
+                cantidadAnterior = cantidadNueva - cantidadIncremento;
+                inventarioGuardado = inventario.toBuilder().cantidad(cantidadNueva).build();
+            } else {
+                cantidadAnterior = inventario.getCantidad();
+                inventario.incrementarCantidad(cantidadIncremento);
+                inventarioGuardado = evento.medirBaseDatos(() -> inventarioRepository.saveAndFlush(inventario));
+            }
 
-        Integer cantidadAnterior = inventario.getCantidad();
-        inventario.incrementarCantidad(cantidadIncremento);
-        
-        Inventario inventarioGuardado = inventarioRepository.save(inventario);
-        
-        // Registrar en el historial
-        registrarEnHistorial(productoId, cantidadIncremento, precioUnitario, "COMPRA");
-        
-        // Obtener información del producto
-        Producto producto = productoService.getProductoById(productoId).block();
-        
-        log.info("Cantidad incrementada exitosamente para el producto {}: {} -> {}", 
-                productoId, cantidadAnterior, inventarioGuardado.getCantidad());
-        
-        return buildInventarioResponse(inventarioGuardado, producto);
+            // Registrar en el historial
+            if (!enLibroMayor) {
+                evento.medirBaseDatos(() -> registrarEnHistorial(productoId, cantidadIncremento, precioUnitario, "COMPRA"));
+            }
+            publicarCambio(inventarioGuardado, cantidadAnterior, "COMPRA");
+
+            // Obtener información del producto
+            Producto producto = evento.medirRemoto(() -> productoService.getProductoById(productoId).block());
+
+            log.info("Cantidad incrementada exitosamente para el producto {}: {} -> {}",
+                    productoId, cantidadAnterior, inventarioGuardado.getCantidad());
+
+            evento.marcarExitosa();
+            return buildInventarioResponse(inventarioGuardado, producto);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            evento.marcarConflictoOptimista();
+            throw e;
+        } finally {
+            evento.finalizar();
+        }
     }
 
     /**
@@ -154,77 +229,375 @@ public class InventarioService {
             throw new IllegalArgumentException("La cantidad de decremento debe ser positiva");
         }
 
-        // Verificar que el producto existe
-        productoService.productoExists(productoId)
-                .subscribe(exists -> {
-                    if (!exists) {
-                        throw new RuntimeException("El producto con ID " + productoId + " no existe");
-                    }
-                });
+        return decrementar(productoId, cantidadDecremento, precioUnitario, 0);
+    }
+
+    /**
+     * Confirmar una reserva de stock: descuenta sus unidades del inventario y la elimina tras el commit
+     */
+    public InventarioResponse confirmarReserva(String reservaId) {
+        log.info("Confirmando reserva {}", reservaId);
+
+        ReservaStock reserva = reservaStockService.iniciarConfirmacion(reservaId);
+        try {
+            InventarioResponse response = decrementar(reserva.getProductoId(), reserva.getCantidad(),
+                    reserva.getPrecioUnitario(), reserva.getCantidad());
+            alCompletarTransaccion(confirmada -> {
+                if (confirmada) {
+                    reservaStockService.finalizarConfirmacion(reservaId);
+                } else {
+                    reservaStockService.cancelarConfirmacion(reservaId);
+                }
+            });
+            return response;
+        } catch (RuntimeException e) {
+            reservaStockService.cancelarConfirmacion(reservaId);
+            throw e;
+        }
+    }
+
+    /**
+     * Descontar stock respetando las reservas activas; cantidadReservadaPropia son las unidades
+     * retenidas por la propia operación (al confirmar una reserva) que sí puede consumir
+     */
+    private InventarioResponse decrementar(Integer productoId, Integer cantidadDecremento, BigDecimal precioUnitario,
+                                           int cantidadReservadaPropia) {
+        MutacionInventarioEvent evento = MutacionInventarioEvent.iniciar(productoId, "VENTA");
+        try {
+            // Verificar que el producto existe
+            evento.medirRemoto(() -> verificarProductoExiste(productoId));
+
+            // Buscar el inventario
+            Inventario inventario = evento.medirBaseDatos(() -> inventarioRepository.findByProductoId(productoId))
+                    .orElseThrow(() -> new RuntimeException("No se encontró inventario para el producto con ID " + productoId));
+
+            // Bloquear la fila antes de leer lo retenido: una reserva concurrente la bloquea en exclusiva, así que
+            // queda ordenada antes o después de la venta. El stock fragmentado la bloquea en modo compartido para
+            // que sus ventas sigan sin esperarse entre sí
+            boolean enLibroMayor = libroMayorInventarioService.isHabilitado();
+            Inventario bloqueado = evento.medirBaseDatos(() -> inventario.isFragmentado() && !enLibroMayor
+                    ? inventarioRepository.bloquearInventarioCompartido(productoId)
+                    : inventarioRepository.bloquearInventario(productoId));
+            if (bloqueado == null) {
+                throw new RuntimeException("No se encontró inventario para el producto con ID " + productoId);
+            }
+
+            // Las unidades reservadas por otros clientes no están disponibles; sin reservas, el stock
+            // fragmentado se comprueba en el propio UPDATE condicional del fragmento. La cantidad se toma de la
+            // lectura bloqueada: la primera lectura puede ser anterior a una venta que acaba de confirmarse
+            int retenidoAjeno = reservaStockService.cantidadRetenida(productoId) - cantidadReservadaPropia;
+            if (!enLibroMayor && (!inventario.isFragmentado() || retenidoAjeno > 0)) {
+                int cantidadActual = inventario.isFragmentado()
+                        ? evento.medirBaseDatos(() -> fragmentosInventarioService.cantidadTotal(productoId))
+                        : bloqueado.getCantidad();
+                if (cantidadActual - Math.max(retenidoAjeno, 0) < cantidadDecremento) {
+                    throw new IllegalArgumentException("No hay suficiente stock disponible (unidades reservadas: "
+                            + retenidoAjeno + ")");
+                }
+            }
+
+            Integer cantidadAnterior;
+            Inventario inventarioGuardado;
+            if (enLibroMayor) {
+                // Libro mayor: el saldo exacto se comprueba con la fila bloqueada y la venta añade su movimiento
+                cantidadAnterior = evento.medirBaseDatos(() -> libroMayorInventarioService.registrarSalida(
+                        productoId, cantidadDecremento, retenidoAjeno, precioUnitario));
+                inventarioGuardado = inventario.toBuilder().cantidad(cantidadAnterior - cantidadDecremento).build();
+            } else if (inventario.isFragmentado()) {
+                // Stock fragmentado: se descuenta de un fragmento sin tocar la fila de Inventario
+                int cantidadNueva = evento.medirBaseDatos(
+                        () -> fragmentosInventarioService.decrementar(productoId, cantidadDecremento));
+                cantidadAnterior = cantidadNueva + cantidadDecremento;
+                inventarioGuardado = inventario.toBuilder().cantidad(cantidadNueva).build();
+            } else {
+                cantidadAnterior = inventario.getCantidad();
+                inventario.decrementarCantidad(cantidadDecremento);
+                inventarioGuardado = evento.medirBaseDatos(() -> inventarioRepository.saveAndFlush(inventario));
+            }
+
+            // Registrar en el historial
+            if (!enLibroMayor) {
+                evento.medirBaseDatos(() -> registrarEnHistorial(productoId, cantidadDecremento, precioUnitario, "VENTA"));
+            }
+            publicarCambio(inventarioGuardado, cantidadAnterior, "VENTA");
+
+            // Obtener información del producto
+            Producto producto = evento.medirRemoto(() -> productoService.getProductoById(productoId).block());
+
+            log.info("Cantidad decrementada exitosamente para el producto {}: {} -> {}",
+                    productoId, cantidadAnterior, inventarioGuardado.getCantidad());
+
+            evento.marcarExitosa();
+            return buildInventarioResponse(inventarioGuardado, producto);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            evento.marcarConflictoOptimista();
+            throw e;
+        } finally {
+            evento.finalizar();
+        }
+    }
+
+    /**
+     * Descontar todas las líneas de un pedido de venta en una sola transacción: o se aplican todas o ninguna
+     *
+     * Las filas de Inventario se bloquean en orden de producto_id, así que dos pedidos con productos en común
+     * esperan uno al otro en lugar de formar un ciclo de bloqueos. Las cantidades se descuentan con un UPDATE por
+     * bloque y el historial VENTA se inserta en un solo lote; el stock fragmentado se descuenta después, producto a
+     * producto en el mismo orden. Con el libro mayor solo se insertan los movimientos.
+     */
+    public InventarioColeccion decrementarPedido(List<PedidoRequest.LineaPedido> lineas) {
+        if (lineas == null || lineas.isEmpty()) {
+            throw new IllegalArgumentException("El pedido debe tener al menos una línea");
+        }
+        if (lineas.size() > MAX_LINEAS_POR_PEDIDO) {
+            throw new IllegalArgumentException("Un pedido no puede tener más de " + MAX_LINEAS_POR_PEDIDO + " líneas");
+        }
+        Map<Integer, Integer> porProducto = new TreeMap<>();
+        for (PedidoRequest.LineaPedido linea : lineas) {
+            if (linea.getProductoId() == null || linea.getCantidad() == null || linea.getCantidad() <= 0) {
+                throw new IllegalArgumentException("Cada línea debe indicar un producto y una cantidad positiva");
+            }
+            porProducto.merge(linea.getProductoId(), linea.getCantidad(), Integer::sum);
+        }
+        List<Integer> ids = new ArrayList<>(porProducto.keySet());
+        log.info("Decrementando pedido de {} líneas sobre {} productos", lineas.size(), ids.size());
+
+        // Verificar los productos antes de bloquear filas, para no retenerlas durante la llamada remota. El lote
+        // solo aporta los datos de included: un ID que no devuelve (o un lote fallido) se comprueba uno a uno contra
+        // el índice local, y solo los desconocidos llegan al servicio
+        List<Producto> productos = productoService.getProductosBatch(ids)
+                .onErrorResume(error -> {
+                    log.warn("No se pudieron obtener los productos del pedido: {}", error.getMessage());
+                    return Mono.just(List.of());
+                })
+                .block();
+        Set<Integer> devueltos = productos == null ? Set.of()
+                : productos.stream().map(Producto::getId).collect(Collectors.toSet());
+        List<Integer> inexistentes = ids.stream()
+                .filter(id -> !devueltos.contains(id))
+                .filter(id -> !Boolean.TRUE.equals(productoService.confirmarExistencia(id).block()))
+                .toList();
+        if (!inexistentes.isEmpty()) {
+            throw new RuntimeException("Los productos con ID " + inexistentes + " no existen");
+        }
+
+        List<Inventario> bloqueados = inventarioRepository.bloquearInventarios(ids);
+        if (bloqueados.size() < ids.size()) {
+            Set<Integer> conInventario = bloqueados.stream().map(Inventario::getProductoId).collect(Collectors.toSet());
+            throw new RuntimeException("No se encontró inventario para los productos con ID "
+                    + ids.stream().filter(id -> !conInventario.contains(id)).toList());
+        }
+
+        // Con el libro mayor los saldos salen de las instantáneas y el pedido solo añade sus movimientos
+        boolean enLibroMayor = libroMayorInventarioService.isHabilitado();
+        Map<Integer, Integer> cantidadesActuales = enLibroMayor
+                ? libroMayorInventarioService.saldosBloqueados(bloqueados)
+                : new HashMap<>();
+        List<String> insuficientes = new ArrayList<>();
+        for (Inventario inventario : bloqueados) {
+            Integer productoId = inventario.getProductoId();
+            int cantidadActual = enLibroMayor ? cantidadesActuales.get(productoId)
+                    : inventario.isFragmentado() ? fragmentosInventarioService.cantidadTotal(productoId)
+                    : inventario.getCantidad();
+            int disponible = cantidadActual - reservaStockService.cantidadRetenida(productoId);
+            if (disponible < porProducto.get(productoId)) {
+                insuficientes.add(productoId + " (disponible: " + disponible + ", pedido: " + porProducto.get(productoId) + ")");
+            }
+            cantidadesActuales.put(productoId, cantidadActual);
+        }
+        if (!insuficientes.isEmpty()) {
+            throw new IllegalArgumentException("No hay suficiente stock disponible para los productos " + insuficientes);
+        }
+
+        Map<Integer, Integer> sinFragmentar = new LinkedHashMap<>();
+        for (Inventario inventario : enLibroMayor ? List.<Inventario>of() : bloqueados) {
+            if (!inventario.isFragmentado()) {
+                sinFragmentar.put(inventario.getProductoId(), porProducto.get(inventario.getProductoId()));
+            }
+        }
+        if (!sinFragmentar.isEmpty() && inventarioRepository.decrementarCantidades(sinFragmentar) != sinFragmentar.size()) {
+            throw new IllegalStateException("El pedido no pudo descontar todas sus líneas");
+        }
+        for (Inventario inventario : enLibroMayor ? List.<Inventario>of() : bloqueados) {
+            if (inventario.isFragmentado()) {
+                fragmentosInventarioService.decrementar(inventario.getProductoId(), porProducto.get(inventario.getProductoId()));
+            }
+        }
+
+        LocalDateTime fechaOperacion = LocalDateTime.now();
+        historialCompraRepository.insertarLote(lineas.stream().map(linea -> {
+            HistorialCompra historial = HistorialCompra.builder()
+                    .productoId(linea.getProductoId())
+                    .cantidad(linea.getCantidad())
+                    .delta(-linea.getCantidad())
+                    .precioUnitario(linea.getPrecioUnitario())
+                    .tipoOperacion(HistorialCompra.TipoOperacion.VENTA)
+                    .fechaOperacion(fechaOperacion)
+                    .build();
+            historial.calcularPrecioTotal();
+            return historial;
+        }).toList());
+
+        List<Inventario> inventarios = new ArrayList<>(bloqueados.size());
+        for (Inventario inventario : bloqueados) {
+            Integer productoId = inventario.getProductoId();
+            Integer cantidadAnterior = cantidadesActuales.get(productoId);
+            Long version = inventario.getVersion();
+            Inventario actualizado = inventario.toBuilder()
+                    .cantidad(cantidadAnterior - porProducto.get(productoId))
+                    .version(enLibroMayor || inventario.isFragmentado() || version == null
+                            ? version : Long.valueOf(version + 1))
+                    .build();
+            publicarCambio(actualizado, cantidadAnterior, "VENTA");
+            inventarios.add(actualizado);
+        }
+
+        log.info("Pedido descontado exitosamente: {} productos", inventarios.size());
+        return new InventarioColeccion(inventarios, productos != null ? productos : List.of(), List.of());
+    }
+
+    /**
+     * Actualizar el stock mínimo y máximo de un producto; null en el mínimo vuelve al umbral por defecto
+     */
+    public InventarioResponse actualizarUmbrales(Integer productoId, Integer stockMinimo, Integer stockMaximo) {
+        log.info("Actualizando umbrales del producto {}: mínimo {} - máximo {}", productoId, stockMinimo, stockMaximo);
 
-        // Buscar el inventario
         Inventario inventario = inventarioRepository.findByProductoId(productoId)
                 .orElseThrow(() -> new RuntimeException("No se encontró inventario para el producto con ID " + productoId));
 
-        Integer cantidadAnterior = inventario.getCantidad();
-        inventario.decrementarCantidad(cantidadDecremento);
-        
-        Inventario inventarioGuardado = inventarioRepository.save(inventario);
-        
-        // Registrar en el historial
-        registrarEnHistorial(productoId, cantidadDecremento, precioUnitario, "VENTA");
-        
-        // Obtener información del producto
-        Producto producto = productoService.getProductoById(productoId).block();
-        
-        log.info("Cantidad decrementada exitosamente para el producto {}: {} -> {}", 
-                productoId, cantidadAnterior, inventarioGuardado.getCantidad());
-        
-        return buildInventarioResponse(inventarioGuardado, producto);
+        inventario.actualizarUmbrales(stockMinimo, stockMaximo);
+        Inventario inventarioGuardado = inventarioRepository.saveAndFlush(inventario);
+        // La cantidad no cambia, pero las alertas del producto deben evaluarse con el nuevo mínimo
+        publicarCambio(inventarioGuardado, inventarioGuardado.getCantidad(), InventarioCambiadoEvent.OPERACION_UMBRALES);
+
+        return buildInventarioResponse(inventarioGuardado, null);
+    }
+
+    /**
+     * Repartir el stock de un producto muy concurrido entre varios fragmentos
+     */
+    public InventarioResponse fragmentarInventario(Integer productoId, Integer fragmentos) {
+        log.info("Fragmentando el stock del producto {} en {} fragmentos", productoId, fragmentos);
+
+        if (libroMayorInventarioService.isHabilitado()) {
+            throw new IllegalArgumentException("El stock fragmentado no está disponible con el libro mayor activo");
+        }
+
+        return buildInventarioResponse(fragmentosInventarioService.fragmentar(productoId, fragmentos), null);
+    }
+
+    /**
+     * Volver a guardar el stock de un producto en una sola fila
+     */
+    public InventarioResponse consolidarInventario(Integer productoId) {
+        log.info("Consolidando el stock fragmentado del producto {}", productoId);
+
+        return buildInventarioResponse(fragmentosInventarioService.consolidar(productoId), null);
     }
 
     /**
      * Obtener productos con stock bajo
      */
+    @Transactional(readOnly = true)
     public List<InventarioResponse> getProductosConStockBajo(Integer cantidadMinima) {
+        return getInventariosConStockBajo(cantidadMinima).stream()
+                .map(inventario -> buildInventarioResponse(inventario, null))
+                .toList();
+    }
+
+    /**
+     * Obtener las entidades de inventario con stock bajo, para serialización directa.
+     * Sin cantidadMinima se compara cada producto con su propio stock mínimo
+     */
+    @Transactional(readOnly = true)
+    public List<Inventario> getInventariosConStockBajo(Integer cantidadMinima) {
+        if (cantidadMinima == null) {
+            log.info("Consultando productos por debajo de su stock mínimo");
+            return verificarProductos(conFragmentados(inventarioRepository.findProductosBajoStockMinimo(),
+                    inventario -> inventario.getCantidad() < inventario.stockMinimoEfectivo()));
+        }
+
         log.info("Consultando productos con stock bajo (menos de {} unidades)", cantidadMinima);
         
-        List<Inventario> inventarios = inventarioRepository.findProductosConStockBajo(cantidadMinima);
-        
-        return inventarios.stream()
-                .map(inventario -> {
-                    Producto producto = productoService.getProductoById(inventario.getProductoId()).block();
-                    return buildInventarioResponse(inventario, producto);
-                })
-                .toList();
+        return verificarProductos(conFragmentados(inventarioRepository.findProductosConStockBajo(cantidadMinima),
+                inventario -> inventario.getCantidad() < cantidadMinima));
     }
 
     /**
      * Obtener productos sin stock
      */
+    @Transactional(readOnly = true)
     public List<InventarioResponse> getProductosSinStock() {
+        return getInventariosSinStock().stream()
+                .map(inventario -> buildInventarioResponse(inventario, null))
+                .toList();
+    }
+
+    /**
+     * Obtener las entidades de inventario sin stock, para serialización directa
+     */
+    @Transactional(readOnly = true)
+    public List<Inventario> getInventariosSinStock() {
         log.info("Consultando productos sin stock");
         
-        List<Inventario> inventarios = inventarioRepository.findProductosSinStock();
-        
-        return inventarios.stream()
-                .map(inventario -> {
-                    Producto producto = productoService.getProductoById(inventario.getProductoId()).block();
-                    return buildInventarioResponse(inventario, producto);
-                })
-                .toList();
+        return verificarProductos(conFragmentados(inventarioRepository.findProductosSinStock(),
+                inventario -> inventario.getCantidad() == 0));
+    }
+
+    /**
+     * Leer el inventario de varios productos con una sola consulta IN y una sola llamada por lotes
+     * al servicio de productos. Los IDs sin inventario se devuelven aparte, sin fallar la lectura
+     */
+    @Transactional(readOnly = true)
+    public InventarioColeccion getInventariosPorIds(List<Integer> productoIds) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(productoIds));
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un ID de producto");
+        }
+        if (ids.size() > MAX_IDS_POR_LECTURA) {
+            throw new IllegalArgumentException("No se pueden consultar más de " + MAX_IDS_POR_LECTURA + " productos a la vez");
+        }
+        log.info("Consultando inventario de {} productos", ids.size());
+
+        Map<Integer, Inventario> porId = conCantidadesTotales(inventarioRepository.findAllById(ids)).stream()
+                .collect(Collectors.toMap(Inventario::getProductoId, Function.identity()));
+
+        List<Inventario> inventarios = new ArrayList<>(porId.size());
+        List<Integer> sinInventario = new ArrayList<>();
+        for (Integer productoId : ids) {
+            Inventario inventario = porId.get(productoId);
+            if (inventario != null) {
+                inventarios.add(inventario);
+            } else {
+                sinInventario.add(productoId);
+            }
+        }
+
+        List<Producto> productos = inventarios.isEmpty()
+                ? List.of()
+                : productoService.getProductosBatch(inventarios.stream().map(Inventario::getProductoId).toList())
+                        .onErrorResume(error -> {
+                            log.warn("No se pudieron incluir los productos de la lectura por lote: {}", error.getMessage());
+                            return Mono.just(List.of());
+                        })
+                        .block();
+        return new InventarioColeccion(inventarios, productos != null ? productos : List.of(), sinInventario);
     }
 
     /**
      * Obtener estadísticas del inventario
      */
+    @Transactional(readOnly = true)
     public InventarioStats getEstadisticasInventario() {
         log.info("Consultando estadísticas del inventario");
         
         long totalProductos = inventarioRepository.countTotalProductos();
         long totalCantidades = inventarioRepository.sumTotalCantidades();
-        long productosSinStock = inventarioRepository.findProductosSinStock().size();
-        long productosConStockBajo = inventarioRepository.findProductosConStockBajo(10).size();
+        List<Inventario> fragmentados = inventarioRepository.buscarFragmentadosConCantidadActual();
+        long productosSinStock = inventarioRepository.countProductosSinStock()
+                + fragmentados.stream().filter(inventario -> inventario.getCantidad() == 0).count();
+        long productosConStockBajo = inventarioRepository.countProductosBajoStockMinimo()
+                + fragmentados.stream().filter(inventario -> inventario.getCantidad() < inventario.stockMinimoEfectivo()).count();
         
         return InventarioStats.builder()
                 .totalProductos(totalProductos)
@@ -234,6 +607,170 @@ public class InventarioService {
                 .build();
     }
 
+    /**
+     * Añadir a un listado de productos sin fragmentar los fragmentados que cumplen la condición con la suma actual
+     * de sus fragmentos: su fila solo se consolida en cada rebalanceo
+     */
+    private List<Inventario> conFragmentados(List<Inventario> sinFragmentar, Predicate<Inventario> condicion) {
+        List<Inventario> fragmentados = inventarioRepository.buscarFragmentadosConCantidadActual().stream()
+                .filter(condicion)
+                .toList();
+        if (fragmentados.isEmpty()) {
+            return sinFragmentar;
+        }
+        List<Inventario> inventarios = new ArrayList<>(sinFragmentar);
+        inventarios.addAll(fragmentados);
+        return inventarios;
+    }
+
+    /**
+     * Copia del inventario con su saldo en el libro mayor o la suma exacta de sus fragmentos; en ambos casos
+     * la fila solo guarda la última consolidación
+     */
+    /**
+     * Inventario de un producto con su cantidad actual, sea de la fila, de sus fragmentos o del libro mayor
+     */
+    @Transactional(readOnly = true)
+    public Optional<Inventario> buscarConCantidadActual(Integer productoId) {
+        return inventarioRepository.findByProductoId(productoId).map(this::conCantidadTotal);
+    }
+
+    private Inventario conCantidadTotal(Inventario inventario) {
+        Integer saldo = libroMayorInventarioService.isHabilitado()
+                ? libroMayorInventarioService.saldo(inventario.getProductoId())
+                : null;
+        if (saldo != null) {
+            return inventario.toBuilder().cantidad(saldo).build();
+        }
+        if (!inventario.isFragmentado()) {
+            return inventario;
+        }
+        return inventario.toBuilder()
+                .cantidad(fragmentosInventarioService.cantidadTotal(inventario.getProductoId()))
+                .build();
+    }
+
+    /**
+     * Copias de los inventarios con su cantidad actual, como {@link #conCantidadTotal} pero con una sola consulta
+     * por lote: los saldos del libro mayor y, para los fragmentados sin saldo, la suma agrupada de sus fragmentos
+     */
+    private List<Inventario> conCantidadesTotales(List<Inventario> inventarios) {
+        Map<Integer, Integer> cantidades = new HashMap<>();
+        if (libroMayorInventarioService.isHabilitado() && !inventarios.isEmpty()) {
+            cantidades.putAll(inventarioRepository.calcularSaldos(
+                    inventarios.stream().map(Inventario::getProductoId).toList()));
+        }
+        List<Integer> fragmentados = inventarios.stream()
+                .filter(inventario -> inventario.isFragmentado() && !cantidades.containsKey(inventario.getProductoId()))
+                .map(Inventario::getProductoId)
+                .toList();
+        if (!fragmentados.isEmpty()) {
+            cantidades.putAll(inventarioRepository.sumarFragmentos(fragmentados));
+        }
+        if (cantidades.isEmpty()) {
+            return inventarios;
+        }
+        return inventarios.stream()
+                .map(inventario -> cantidades.containsKey(inventario.getProductoId())
+                        ? inventario.toBuilder().cantidad(cantidades.get(inventario.getProductoId())).build()
+                        : inventario)
+                .toList();
+    }
+
+    /**
+     * Publicar el cambio; los listeners transaccionales solo lo reciben si la transacción hace commit
+     *
+     * Sin fragmentos ni libro mayor la fila queda bloqueada en exclusiva hasta el commit, así que la cantidad es la
+     * confirmada y la secuencia sigue el orden de los commits del producto. En el stock fragmentado y en el libro
+     * mayor las escrituras no se serializan sobre la fila y la cantidad calculada puede no incluir operaciones
+     * concurrentes: el cambio se publica tras el commit con el stock releído.
+     */
+    private void publicarCambio(Inventario inventario, Integer cantidadAnterior, String operacion) {
+        if (!inventario.isFragmentado() && !libroMayorInventarioService.isHabilitado()) {
+            eventPublisher.publishEvent(new InventarioCambiadoEvent(inventario.getProductoId(), inventario.getCantidad(),
+                    cantidadAnterior, inventario.getVersion(), inventario.getStockMinimo(), operacion,
+                    LocalDateTime.now(), InventarioCambiadoEvent.siguienteSecuencia()));
+            return;
+        }
+        int movimiento = inventario.getCantidad() - (cantidadAnterior != null ? cantidadAnterior : 0);
+        alCompletarTransaccion(confirmada -> {
+            if (confirmada) {
+                publicarCambioConfirmado(inventario.getProductoId(), movimiento, operacion);
+            }
+        });
+    }
+
+    /**
+     * Releer el stock confirmado en una transacción nueva y publicar el cambio; la relectura y la secuencia se
+     * toman bajo el monitor del producto, así que una secuencia mayor nunca lleva un stock más antiguo. La
+     * cantidad anterior es la releída menos el movimiento de la propia operación
+     */
+    private void publicarCambioConfirmado(Integer productoId, int movimiento, String operacion) {
+        TransactionTemplate relectura = new TransactionTemplate(transactionManager);
+        relectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        relectura.setReadOnly(true);
+
+        InventarioCambiadoEvent cambio;
+        try {
+            synchronized (monitoresCambio[Math.floorMod(productoId, monitoresCambio.length)]) {
+                Inventario actual = relectura.execute(status -> buscarConCantidadActual(productoId).orElse(null));
+                if (actual == null) {
+                    return;
+                }
+                cambio = new InventarioCambiadoEvent(productoId, actual.getCantidad(), actual.getCantidad() - movimiento,
+                        actual.getVersion(), actual.getStockMinimo(), operacion, LocalDateTime.now(),
+                        InventarioCambiadoEvent.siguienteSecuencia());
+            }
+        } catch (RuntimeException e) {
+            // La operación ya está confirmada: sin relectura solo se pierde la notificación
+            log.warn("No se pudo publicar el cambio confirmado del producto {}: {}", productoId, e.getMessage());
+            return;
+        }
+        eventPublisher.publishEvent(cambio);
+    }
+
+    private static Object[] crearMonitores(int cantidad) {
+        Object[] monitores = new Object[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            monitores[i] = new Object();
+        }
+        return monitores;
+    }
+
+    /**
+     * Ejecutar una acción al terminar la transacción actual (true si hizo commit), o de inmediato sin transacción
+     */
+    private void alCompletarTransaccion(Consumer<Boolean> accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                accion.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    /**
+     * Consultar cada producto en el servicio de productos; falla si alguno no está disponible
+     */
+    private List<Inventario> verificarProductos(List<Inventario> inventarios) {
+        inventarios.forEach(inventario -> productoService.getProductoById(inventario.getProductoId()).block());
+        return inventarios;
+    }
+
+    /**
+     * Verificar de forma síncrona que el producto existe en el servicio de productos
+     */
+    private void verificarProductoExiste(Integer productoId) {
+        Boolean existe = productoService.productoExists(productoId).block();
+        if (!Boolean.TRUE.equals(existe)) {
+            throw new RuntimeException("El producto con ID " + productoId + " no existe");
+        }
+    }
+
     /**
      * Registrar operación en el historial
      */
@@ -242,6 +779,7 @@ public class InventarioService {
             HistorialCompra historial = HistorialCompra.builder()
                     .productoId(productoId)
                     .cantidad(cantidad)
+                    .delta("VENTA".equals(tipoOperacion) ? -cantidad : cantidad)
                     .precioUnitario(precioUnitario)
                     .tipoOperacion(HistorialCompra.TipoOperacion.valueOf(tipoOperacion))
                     .fechaOperacion(LocalDateTime.now())
@@ -266,6 +804,7 @@ public class InventarioService {
             HistorialCompra historial = HistorialCompra.builder()
                     .productoId(productoId)
                     .cantidad(Math.abs(cantidadNueva - cantidadAnterior))
+                    .delta(cantidadNueva - cantidadAnterior)
                     .tipoOperacion(HistorialCompra.TipoOperacion.valueOf(tipoOperacion))
                     .fechaOperacion(LocalDateTime.now())
                     .observaciones("Ajuste de inventario: " + cantidadAnterior + " -> " + cantidadNueva)
@@ -284,23 +823,7 @@ public class InventarioService {
      * Construir respuesta JSON API
      */
     private InventarioResponse buildInventarioResponse(Inventario inventario, Producto producto) {
-        return InventarioResponse.builder()
-                .data(InventarioResponse.InventarioData.builder()
-                        .id(String.valueOf(inventario.getProductoId()))
-                        .attributes(InventarioResponse.InventarioAttributes.builder()
-                                .cantidad(inventario.getCantidad())
-                                .fechaCreacion(inventario.getFechaCreacion())
-                                .fechaActualizacion(inventario.getFechaActualizacion())
-                                .build())
-                        .relationships(InventarioResponse.InventarioRelationships.builder()
-                                .producto(InventarioResponse.ProductoRelationship.builder()
-                                        .data(InventarioResponse.ProductoReference.builder()
-                                                .id(String.valueOf(inventario.getProductoId()))
-                                                .build())
-                                        .build())
-                                .build())
-                        .build())
-                .build();
+        return InventarioResponse.fromInventario(inventario);
     }
 
     /**
@@ -311,6 +834,7 @@ public class InventarioService {
         private long totalCantidades;
         private long productosSinStock;
         private long productosConStockBajo;
+        private MetaEstadisticas meta;
 
         public InventarioStats() {}
 
@@ -333,6 +857,40 @@ public class InventarioService {
         public void setProductosSinStock(long productosSinStock) { this.productosSinStock = productosSinStock; }
         public long getProductosConStockBajo() { return productosConStockBajo; }
         public void setProductosConStockBajo(long productosConStockBajo) { this.productosConStockBajo = productosConStockBajo; }
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public MetaEstadisticas getMeta() { return meta; }
+        public void setMeta(MetaEstadisticas meta) { this.meta = meta; }
+
+        /**
+         * Copia con los metadatos de frescura de la respuesta
+         */
+        public InventarioStats conMeta(MetaEstadisticas meta) {
+            InventarioStats copia = new InventarioStats(totalProductos, totalCantidades, productosSinStock, productosConStockBajo);
+            copia.setMeta(meta);
+            return copia;
+        }
+
+        /**
+         * Frescura de unas estadísticas servidas desde caché
+         */
+        public static class MetaEstadisticas {
+            private final LocalDateTime calculadoEn;
+            private final long antiguedadMs;
+            private final long ttlMs;
+            private final boolean desactualizado;
+
+            public MetaEstadisticas(LocalDateTime calculadoEn, long antiguedadMs, long ttlMs, boolean desactualizado) {
+                this.calculadoEn = calculadoEn;
+                this.antiguedadMs = antiguedadMs;
+                this.ttlMs = ttlMs;
+                this.desactualizado = desactualizado;
+            }
+
+            public LocalDateTime getCalculadoEn() { return calculadoEn; }
+            public long getAntiguedadMs() { return antiguedadMs; }
+            public long getTtlMs() { return ttlMs; }
+            public boolean isDesactualizado() { return desactualizado; }
+        }
 
         public static class InventarioStatsBuilder {
             private long totalProductos;
@@ -0,0 +1,291 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.HistorialCompra;
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.repository.HistorialCompraRepository;
+import com.linktic.inventario.repository.InstantaneaInventario;
+import com.linktic.inventario.repository.InventarioRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Libro mayor de stock (opcional, app.inventario.libro-mayor.habilitado)
+ *
+ * Con el libro mayor las mutaciones no reescriben Inventario.cantidad: solo añaden su movimiento con signo a
+ * historial_compras, y el stock de un producto es su última instantánea más los deltas posteriores. Historial y
+ * stock no pueden divergir porque son la misma escritura. Las compras toman un bloqueo compartido de la fila de
+ * Inventario, así que no se esperan entre sí; las ventas y ajustes, que necesitan un saldo exacto, la bloquean en
+ * exclusiva. Una tarea periódica compacta: suma los movimientos nuevos en una instantánea, descarta la anterior
+ * y deja el saldo en Inventario.cantidad para los listados. Los movimientos nunca se borran.
+ *
+ * La primera operación sobre un producto sin instantánea crea la inicial con su cantidad actual (consolidando
+ * antes el stock fragmentado) y, al arrancar con el libro mayor desactivado, las instantáneas de una ejecución
+ * anterior se compactan en Inventario.cantidad y se eliminan.
+ */
+@Service
+@Slf4j
+public class LibroMayorInventarioService {
+
+    private final InventarioRepository inventarioRepository;
+    private final HistorialCompraRepository historialCompraRepository;
+    private final FragmentosInventarioService fragmentosInventarioService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitado;
+    private final long compactacionSegundos;
+
+    private ScheduledExecutorService compactador;
+
+    public LibroMayorInventarioService(InventarioRepository inventarioRepository,
+                                       HistorialCompraRepository historialCompraRepository,
+                                       FragmentosInventarioService fragmentosInventarioService,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${app.inventario.libro-mayor.habilitado:false}") boolean habilitado,
+                                       @Value("${app.inventario.libro-mayor.compactacion-segundos:30}") long compactacionSegundos) {
+        this.inventarioRepository = inventarioRepository;
+        this.historialCompraRepository = historialCompraRepository;
+        this.fragmentosInventarioService = fragmentosInventarioService;
+        this.transactionTemplate = transactionTemplate;
+        this.habilitado = habilitado;
+        this.compactacionSegundos = compactacionSegundos;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        if (!habilitado) {
+            retirarInstantaneasSeguro();
+            return;
+        }
+        if (compactacionSegundos <= 0) {
+            return;
+        }
+        compactador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "inventario-libro-mayor-compactacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        compactador.scheduleWithFixedDelay(this::compactarSeguro, compactacionSegundos, compactacionSegundos,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (compactador != null) {
+            compactador.shutdownNow();
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Saldo de un producto sin bloquear; null si aún no tiene instantánea
+     */
+    public Integer saldo(Integer productoId) {
+        InstantaneaInventario instantanea = inventarioRepository.buscarInstantanea(productoId, false);
+        return instantanea == null ? null : inventarioRepository.aplicarMovimientos(instantanea, false).getCantidad();
+    }
+
+    /**
+     * Compra: añadir el movimiento bajo un bloqueo compartido; devuelve el saldo resultante, que bajo
+     * concurrencia puede no incluir otras compras aún sin confirmar
+     */
+    public int registrarEntrada(Integer productoId, int cantidad, BigDecimal precioUnitario) {
+        InstantaneaInventario instantanea = inventarioRepository.buscarInstantanea(productoId, false);
+        if (instantanea == null) {
+            // Crear la instantánea inicial requiere el bloqueo exclusivo
+            instantanea = instantaneaBloqueada(bloquear(productoId));
+        } else if (inventarioRepository.bloquearInventarioCompartido(productoId) == null) {
+            throw sinInventario(productoId);
+        }
+        historialCompraRepository.insertarLote(List.of(movimiento(productoId, cantidad, cantidad, precioUnitario,
+                HistorialCompra.TipoOperacion.COMPRA, null)));
+        return inventarioRepository.aplicarMovimientos(instantanea, false).getCantidad();
+    }
+
+    /**
+     * Venta: comprobar el saldo exacto menos lo retenido por otros y añadir el movimiento; devuelve el saldo anterior
+     */
+    public int registrarSalida(Integer productoId, int cantidad, int retenidoAjeno, BigDecimal precioUnitario) {
+        int saldo = saldoBloqueado(bloquear(productoId));
+        if (saldo - Math.max(retenidoAjeno, 0) < cantidad) {
+            throw new IllegalArgumentException("No hay suficiente stock disponible (unidades reservadas: "
+                    + retenidoAjeno + ")");
+        }
+        historialCompraRepository.insertarLote(List.of(movimiento(productoId, cantidad, -cantidad, precioUnitario,
+                HistorialCompra.TipoOperacion.VENTA, null)));
+        return saldo;
+    }
+
+    /**
+     * Ajuste: fijar el saldo con un movimiento por la diferencia; devuelve el saldo anterior
+     */
+    public int registrarAjuste(Integer productoId, int nuevaCantidad) {
+        int saldo = saldoBloqueado(bloquear(productoId));
+        historialCompraRepository.insertarLote(List.of(movimiento(productoId, Math.abs(nuevaCantidad - saldo),
+                nuevaCantidad - saldo, null, HistorialCompra.TipoOperacion.AJUSTE,
+                "Ajuste de inventario: " + saldo + " -> " + nuevaCantidad)));
+        return saldo;
+    }
+
+    /**
+     * Saldos exactos de filas de inventario ya bloqueadas en exclusiva por el llamador
+     */
+    public Map<Integer, Integer> saldosBloqueados(List<Inventario> bloqueados) {
+        Map<Integer, Integer> saldos = new HashMap<>();
+        for (Inventario inventario : bloqueados) {
+            saldos.put(inventario.getProductoId(), saldoBloqueado(inventario));
+        }
+        return saldos;
+    }
+
+    /**
+     * Sustituir por su saldo la cantidad de los productos llevados en el libro mayor, con sus filas ya
+     * bloqueadas; los que no tienen instantánea conservan su cantidad de Inventario
+     */
+    public void sustituirPorSaldos(Map<Integer, Integer> cantidades) {
+        for (Map.Entry<Integer, Integer> cantidad : cantidades.entrySet()) {
+            if (cantidad.getValue() == null) {
+                continue;
+            }
+            InstantaneaInventario instantanea = inventarioRepository.buscarInstantanea(cantidad.getKey(), true);
+            if (instantanea != null) {
+                cantidad.setValue(inventarioRepository.aplicarMovimientos(instantanea, true).getCantidad());
+            }
+        }
+    }
+
+    /**
+     * Compactar los productos con movimientos nuevos, cada uno en su propia transacción
+     */
+    public int compactar() {
+        int compactados = 0;
+        for (Integer productoId : inventarioRepository.buscarProductosConMovimientosPendientes()) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> compactarProducto(productoId)))) {
+                compactados++;
+            }
+        }
+        return compactados;
+    }
+
+    /**
+     * Dejar el saldo de cada producto en Inventario.cantidad y eliminar sus instantáneas
+     */
+    public int retirarInstantaneas() {
+        List<Integer> productoIds = inventarioRepository.buscarProductosConInstantanea();
+        for (Integer productoId : productoIds) {
+            transactionTemplate.execute(status -> {
+                compactarProducto(productoId);
+                inventarioRepository.eliminarInstantaneas(productoId);
+                return null;
+            });
+        }
+        return productoIds.size();
+    }
+
+    private boolean compactarProducto(Integer productoId) {
+        if (inventarioRepository.bloquearInventario(productoId) == null) {
+            return false;
+        }
+        InstantaneaInventario actual = inventarioRepository.buscarInstantanea(productoId, true);
+        if (actual == null) {
+            return false;
+        }
+        InstantaneaInventario nueva = inventarioRepository.aplicarMovimientos(actual, true);
+        if (nueva.getHistorialId() == actual.getHistorialId()) {
+            return false;
+        }
+        inventarioRepository.guardarInstantanea(nueva);
+        inventarioRepository.actualizarConsolidado(productoId, nueva.getCantidad(), 0);
+        return true;
+    }
+
+    private void compactarSeguro() {
+        try {
+            int compactados = compactar();
+            if (compactados > 0) {
+                log.debug("Compactado el libro mayor de {} productos", compactados);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo compactar el libro mayor: {}", e.getMessage());
+        }
+    }
+
+    private void retirarInstantaneasSeguro() {
+        try {
+            int retirados = retirarInstantaneas();
+            if (retirados > 0) {
+                log.info("Libro mayor desactivado: saldo de {} productos consolidado en Inventario", retirados);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudieron retirar las instantáneas del libro mayor: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Saldo exacto de una fila bloqueada en exclusiva por el llamador
+     */
+    public int saldoBloqueado(Inventario bloqueado) {
+        return inventarioRepository.aplicarMovimientos(instantaneaBloqueada(bloqueado), true).getCantidad();
+    }
+
+    /**
+     * Última instantánea de una fila bloqueada en exclusiva; si no tiene, se crea con su cantidad actual
+     */
+    private InstantaneaInventario instantaneaBloqueada(Inventario bloqueado) {
+        Integer productoId = bloqueado.getProductoId();
+        InstantaneaInventario instantanea = inventarioRepository.buscarInstantanea(productoId, true);
+        if (instantanea != null) {
+            return instantanea;
+        }
+        int cantidad = bloqueado.isFragmentado()
+                ? fragmentosInventarioService.consolidar(productoId).getCantidad()
+                : bloqueado.getCantidad();
+        InstantaneaInventario inicial = new InstantaneaInventario(productoId,
+                inventarioRepository.ultimoMovimiento(productoId), cantidad);
+        inventarioRepository.guardarInstantanea(inicial);
+        log.info("Producto {} incorporado al libro mayor con {} unidades", productoId, cantidad);
+        return inicial;
+    }
+
+    private Inventario bloquear(Integer productoId) {
+        Inventario inventario = inventarioRepository.bloquearInventario(productoId);
+        if (inventario == null) {
+            throw sinInventario(productoId);
+        }
+        return inventario;
+    }
+
+    private static HistorialCompra movimiento(Integer productoId, int cantidad, int delta, BigDecimal precioUnitario,
+                                              HistorialCompra.TipoOperacion tipoOperacion, String observaciones) {
+        HistorialCompra movimiento = HistorialCompra.builder()
+                .productoId(productoId)
+                .cantidad(cantidad)
+                .delta(delta)
+                .precioUnitario(precioUnitario)
+                .tipoOperacion(tipoOperacion)
+                .observaciones(observaciones)
+                .fechaOperacion(LocalDateTime.now())
+                .build();
+        movimiento.calcularPrecioTotal();
+        return movimiento;
+    }
+
+    private static RuntimeException sinInventario(Integer productoId) {
+        return new RuntimeException("No se encontró inventario para el producto con ID " + productoId);
+    }
+}
@@ -0,0 +1,237 @@
+package com.linktic.inventario.service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Límite adaptativo de llamadas concurrentes al estilo TCP Vegas
+ *
+ * Compara la latencia de cada llamada con la mínima observada (latencia sin carga) para estimar cuántas
+ * solicitudes están haciendo cola en el servicio remoto: si la cola estimada es pequeña el límite crece y si
+ * es grande decrece; un fallo por sobrecarga (timeout, 5xx) lo reduce multiplicativamente. Las llamadas que
+ * exceden el límite esperan en una cola acotada y se rechazan si se llena o si vence el tiempo de espera.
+ */
+public class LimitadorConcurrenciaAdaptativo {
+
+    private static final double FACTOR_REDUCCION = 0.9;
+
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final int maxCola;
+    private final long maxEsperaMs;
+    private final int muestrasSondeo;
+    private final Scheduler temporizador;
+    private final Function<Throwable, Resultado> clasificador;
+    private final Runnable alRechazar;
+
+    // Protegidos por el monitor del limitador
+    private double limite;
+    private int enVuelo;
+    private long rttSinCargaNanos = Long.MAX_VALUE;
+    private int muestras;
+    private final Deque<Espera> cola = new ArrayDeque<>();
+
+    public LimitadorConcurrenciaAdaptativo(int limiteInicial, int limiteMinimo, int limiteMaximo, int maxCola,
+                                           long maxEsperaMs, int muestrasSondeo, Scheduler temporizador,
+                                           Function<Throwable, Resultado> clasificador, Runnable alRechazar) {
+        if (limiteMinimo <= 0 || limiteMinimo > limiteInicial || limiteInicial > limiteMaximo) {
+            throw new IllegalArgumentException("Se requiere 0 < límite mínimo <= límite inicial <= límite máximo");
+        }
+        this.limite = limiteInicial;
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.maxCola = maxCola;
+        this.maxEsperaMs = maxEsperaMs;
+        this.muestrasSondeo = muestrasSondeo;
+        this.temporizador = temporizador;
+        this.clasificador = clasificador;
+        this.alRechazar = alRechazar;
+    }
+
+    /**
+     * Ejecutar la llamada cuando haya un permiso libre; la latencia medida excluye la espera en cola
+     */
+    public <T> Mono<T> limitar(Mono<T> llamada) {
+        return adquirir().flatMap(permiso -> llamada
+                .doOnSuccess(resultado -> permiso.liberar(Resultado.EXITO))
+                .doOnError(error -> permiso.liberar(clasificador.apply(error)))
+                .doOnCancel(() -> permiso.liberar(Resultado.IGNORADO)));
+    }
+
+    public synchronized int getLimite() {
+        return (int) limite;
+    }
+
+    public synchronized int getEnVuelo() {
+        return enVuelo;
+    }
+
+    public synchronized int getEnCola() {
+        return cola.size();
+    }
+
+    private Mono<Permiso> adquirir() {
+        return Mono.create(sink -> {
+            Permiso inmediato = null;
+            boolean rechazar = false;
+            Espera espera = null;
+            synchronized (this) {
+                if (cola.isEmpty() && enVuelo < (int) limite) {
+                    inmediato = conceder();
+                } else if (cola.size() >= maxCola) {
+                    rechazar = true;
+                } else {
+                    espera = new Espera(sink);
+                    cola.addLast(espera);
+                }
+            }
+            if (inmediato != null) {
+                sink.success(inmediato);
+            } else if (rechazar) {
+                rechazar(sink, "cola llena");
+            } else {
+                Espera enCola = espera;
+                enCola.vencimiento = temporizador.schedule(() -> {
+                    if (retirar(enCola)) {
+                        rechazar(sink, "tiempo de espera agotado");
+                    }
+                }, maxEsperaMs, TimeUnit.MILLISECONDS);
+                sink.onCancel(() -> {
+                    if (!retirar(enCola)) {
+                        Permiso concedido;
+                        synchronized (this) {
+                            concedido = enCola.permiso;
+                        }
+                        // Concedido en paralelo a la cancelación: nadie más lo liberará
+                        if (concedido != null) {
+                            concedido.liberar(Resultado.IGNORADO);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void rechazar(MonoSink<Permiso> sink, String motivo) {
+        alRechazar.run();
+        sink.error(new LlamadaRechazadaException("Límite de concurrencia del servicio de productos excedido: " + motivo));
+    }
+
+    /**
+     * Sacar de la cola una espera aún pendiente; false si ya se concedió o se retiró
+     */
+    private boolean retirar(Espera espera) {
+        if (!espera.estado.compareAndSet(Espera.PENDIENTE, Espera.RETIRADA)) {
+            return false;
+        }
+        synchronized (this) {
+            cola.remove(espera);
+        }
+        return true;
+    }
+
+    private Permiso conceder() {
+        enVuelo++;
+        return new Permiso(enVuelo);
+    }
+
+    private void registrar(Permiso permiso, Resultado resultado) {
+        Deque<Espera> concedidas = new ArrayDeque<>();
+        synchronized (this) {
+            enVuelo--;
+            ajustar(System.nanoTime() - permiso.inicioNanos, permiso.enVueloAlIniciar, resultado);
+            while (enVuelo < (int) limite && !cola.isEmpty()) {
+                Espera espera = cola.pollFirst();
+                if (espera.estado.compareAndSet(Espera.PENDIENTE, Espera.CONCEDIDA)) {
+                    espera.permiso = conceder();
+                    concedidas.add(espera);
+                }
+            }
+        }
+        for (Espera espera : concedidas) {
+            if (espera.vencimiento != null) {
+                espera.vencimiento.dispose();
+            }
+            espera.sink.success(espera.permiso);
+        }
+    }
+
+    /**
+     * Ajuste Vegas: cola estimada = límite * (1 - rttSinCarga / rtt), con umbrales alfa = 3·log10(límite)
+     * y beta = 6·log10(límite)
+     */
+    private void ajustar(long rttNanos, int enVueloAlIniciar, Resultado resultado) {
+        if (resultado == Resultado.SOBRECARGA) {
+            limite = Math.max(limiteMinimo, limite * FACTOR_REDUCCION);
+            return;
+        }
+        if (resultado != Resultado.EXITO || rttNanos <= 0) {
+            return;
+        }
+        // Sondeo periódico: olvidar la latencia mínima para adaptarse si el servicio cambió de velocidad
+        if (++muestras % muestrasSondeo == 0) {
+            rttSinCargaNanos = Long.MAX_VALUE;
+        }
+        rttSinCargaNanos = Math.min(rttSinCargaNanos, rttNanos);
+        // Sin carga suficiente la latencia no dice nada sobre el límite
+        if (enVueloAlIniciar * 2 < limite) {
+            return;
+        }
+        double escala = Math.max(1, Math.log10(limite));
+        double colaEstimada = limite * (1 - (double) rttSinCargaNanos / rttNanos);
+        if (colaEstimada < 3 * escala) {
+            limite = Math.min(limiteMaximo, limite + escala);
+        } else if (colaEstimada > 6 * escala) {
+            limite = Math.max(limiteMinimo, limite - escala);
+        }
+    }
+
+    /**
+     * Cómo cuenta una llamada terminada para el ajuste del límite
+     */
+    public enum Resultado {
+        EXITO,
+        SOBRECARGA,
+        IGNORADO
+    }
+
+    private final class Permiso {
+        private final long inicioNanos = System.nanoTime();
+        private final int enVueloAlIniciar;
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        private Permiso(int enVueloAlIniciar) {
+            this.enVueloAlIniciar = enVueloAlIniciar;
+        }
+
+        private void liberar(Resultado resultado) {
+            if (liberado.compareAndSet(false, true)) {
+                registrar(this, resultado);
+            }
+        }
+    }
+
+    private static final class Espera {
+        private static final int PENDIENTE = 0;
+        private static final int CONCEDIDA = 1;
+        private static final int RETIRADA = 2;
+
+        private final MonoSink<Permiso> sink;
+        private final AtomicInteger estado = new AtomicInteger(PENDIENTE);
+        private volatile Disposable vencimiento;
+        private volatile Permiso permiso;
+
+        private Espera(MonoSink<Permiso> sink) {
+            this.sink = sink;
+        }
+    }
+}
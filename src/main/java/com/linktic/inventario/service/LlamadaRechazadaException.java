@@ -0,0 +1,11 @@
+package com.linktic.inventario.service;
+
+/**
+ * Llamada al servicio de productos rechazada localmente por el límite de concurrencia adaptativo
+ */
+public class LlamadaRechazadaException extends RuntimeException {
+
+    public LlamadaRechazadaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,78 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Producto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché local de productos con expiración y tamaño acotado (LRU)
+ *
+ * Las entradas expiradas no se borran: dejan de servirse como vigentes pero siguen disponibles como último
+ * valor conocido mientras el servicio de productos no responde. El límite LRU acota ambas.
+ */
+@Component
+public class ProductoCache {
+
+    private final long ttlMs;
+    private final Map<Integer, Entrada> entradas;
+
+    public ProductoCache(@Value("${app.productos-service.cache.ttl-segundos:300}") long ttlSegundos,
+                         @Value("${app.productos-service.cache.max-entradas:10000}") int maxEntradas) {
+        this.ttlMs = ttlSegundos * 1000;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entrada> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * Obtener un producto vigente, o null si no está o expiró
+     */
+    public synchronized Producto obtener(Integer productoId) {
+        Entrada entrada = entradas.get(productoId);
+        if (entrada == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entrada.cargadoEn > ttlMs) {
+            return null;
+        }
+        return entrada.producto;
+    }
+
+    /**
+     * Obtener el último valor conocido de un producto aunque haya expirado, o null si nunca se cargó
+     */
+    public synchronized Producto obtenerUltimoConocido(Integer productoId) {
+        Entrada entrada = entradas.get(productoId);
+        return entrada != null ? entrada.producto : null;
+    }
+
+    public synchronized void guardar(Producto producto) {
+        if (producto != null && producto.getId() != null) {
+            entradas.put(producto.getId(), new Entrada(producto, System.currentTimeMillis()));
+        }
+    }
+
+    public synchronized void invalidar(Integer productoId) {
+        entradas.remove(productoId);
+    }
+
+    public synchronized int size() {
+        return entradas.size();
+    }
+
+    private static final class Entrada {
+        private final Producto producto;
+        private final long cargadoEn;
+
+        private Entrada(Producto producto, long cargadoEn) {
+            this.producto = producto;
+            this.cargadoEn = cargadoEn;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.linktic.inventario.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché negativa de IDs que el servicio de productos confirmó como inexistentes
+ *
+ * TTL corto y tamaño acotado: todas las entradas viven lo mismo, así que el orden de inserción es también
+ * el de expiración y al llenarse se descarta la más antigua.
+ */
+@Component
+public class ProductoCacheNegativa {
+
+    private final long ttlMs;
+    private final Map<Integer, Long> registradoEn;
+    private final Counter aciertos;
+    private final Counter altas;
+    private final Counter descartes;
+
+    public ProductoCacheNegativa(@Value("${app.productos-service.cache-negativa.ttl-segundos:30}") long ttlSegundos,
+                                 @Value("${app.productos-service.cache-negativa.max-entradas:10000}") int maxEntradas,
+                                 MeterRegistry meterRegistry) {
+        this.ttlMs = ttlSegundos * 1000;
+        this.registradoEn = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+                if (size() > maxEntradas) {
+                    descartes.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.aciertos = Counter.builder("productos.cache.negativa.aciertos")
+                .description("Consultas de productos inexistentes resueltas sin llamar al servicio de productos")
+                .register(meterRegistry);
+        this.altas = Counter.builder("productos.cache.negativa.altas")
+                .description("Productos confirmados como inexistentes por el servicio de productos")
+                .register(meterRegistry);
+        this.descartes = Counter.builder("productos.cache.negativa.descartes")
+                .description("Entradas descartadas antes de expirar por exceder el tamaño máximo")
+                .register(meterRegistry);
+        Gauge.builder("productos.cache.negativa.entradas", this, ProductoCacheNegativa::size)
+                .description("Productos inexistentes en la caché negativa")
+                .register(meterRegistry);
+    }
+
+    /**
+     * true si el producto se confirmó como inexistente y la entrada no expiró
+     */
+    public synchronized boolean contiene(Integer productoId) {
+        Long registrado = registradoEn.get(productoId);
+        if (registrado == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - registrado > ttlMs) {
+            registradoEn.remove(productoId);
+            return false;
+        }
+        aciertos.increment();
+        return true;
+    }
+
+    public synchronized void registrar(Integer productoId) {
+        if (productoId != null) {
+            // Reinsertar para que la entrada pase al final del orden de expiración
+            registradoEn.remove(productoId);
+            registradoEn.put(productoId, System.currentTimeMillis());
+            altas.increment();
+        }
+    }
+
+    public synchronized void invalidar(Integer productoId) {
+        registradoEn.remove(productoId);
+    }
+
+    public synchronized int size() {
+        return registradoEn.size();
+    }
+}
@@ -0,0 +1,319 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Producto;
+import com.linktic.inventario.monitoring.LlamadaProductosEvent;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cliente HTTP del microservicio de productos, con circuit breaker y reintentos
+ *
+ * Cada intento pasa antes por un límite de concurrencia adaptativo ({@link LimitadorConcurrenciaAdaptativo}):
+ * si el servicio se ralentiza se reducen las llamadas en vuelo y el exceso se rechaza localmente.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductoClient {
+
+    private final WebClient.Builder webClientBuilder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.productos-service.base-url}")
+    private String baseUrl;
+
+    @Value("${app.productos-service.api-key}")
+    private String apiKey;
+
+    @Value("${app.productos-service.timeout}")
+    private int timeout;
+
+    @Value("${app.productos-service.concurrencia.limite-inicial:20}")
+    private int limiteInicial;
+
+    @Value("${app.productos-service.concurrencia.limite-minimo:2}")
+    private int limiteMinimo;
+
+    @Value("${app.productos-service.concurrencia.limite-maximo:200}")
+    private int limiteMaximo;
+
+    @Value("${app.productos-service.concurrencia.max-cola:100}")
+    private int maxCola;
+
+    @Value("${app.productos-service.concurrencia.max-espera-ms:500}")
+    private long maxEsperaMs;
+
+    @Value("${app.productos-service.concurrencia.muestras-sondeo:1000}")
+    private int muestrasSondeo;
+
+    private LimitadorConcurrenciaAdaptativo limitador;
+
+    @PostConstruct
+    void iniciar() {
+        Counter rechazadas = Counter.builder("productos.llamadas.rechazadas")
+                .description("Llamadas al servicio de productos rechazadas por el límite de concurrencia")
+                .register(meterRegistry);
+        limitador = new LimitadorConcurrenciaAdaptativo(limiteInicial, limiteMinimo, limiteMaximo, maxCola,
+                maxEsperaMs, muestrasSondeo, Schedulers.parallel(), ProductoClient::clasificar, rechazadas::increment);
+        Gauge.builder("productos.llamadas.limite", limitador, LimitadorConcurrenciaAdaptativo::getLimite)
+                .description("Límite adaptativo de llamadas concurrentes al servicio de productos")
+                .register(meterRegistry);
+        Gauge.builder("productos.llamadas.en-vuelo", limitador, LimitadorConcurrenciaAdaptativo::getEnVuelo)
+                .description("Llamadas al servicio de productos en curso")
+                .register(meterRegistry);
+        Gauge.builder("productos.llamadas.en-cola", limitador, LimitadorConcurrenciaAdaptativo::getEnCola)
+                .description("Llamadas al servicio de productos esperando un permiso")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Obtener un producto por ID; vacío si el servicio responde 404
+     */
+    @CircuitBreaker(name = "productos-service", fallbackMethod = "getProductoFallback")
+    @Retry(name = "productos-service")
+    public Mono<Producto> getProductoById(Integer productoId) {
+        log.info("Consultando producto con ID: {}", productoId);
+        
+        return registrarLlamada("getProductoById", String.valueOf(productoId), webClientBuilder
+                .baseUrl(baseUrl)
+                .build()
+                .get()
+                .uri("/api/v1/products/{id}", productoId)
+                .header(HttpHeaders.ACCEPT, "application/vnd.api+json")
+                .header("X-API-Key", apiKey)
+                .retrieve()
+                .bodyToMono(ProductoResponse.class)
+                .timeout(Duration.ofMillis(timeout))
+                .map(this::mapToProducto)
+                // Un 404 es una respuesta, no un fallo: no se reintenta ni cuenta para el circuit breaker
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty()))
+                .doOnSuccess(producto -> {
+                    if (producto != null) {
+                        log.info("Producto obtenido exitosamente: {}", producto.getNombre());
+                    } else {
+                        log.info("El producto con ID {} no existe", productoId);
+                    }
+                })
+                .doOnError(error -> log.error("Error al obtener producto con ID {}: {}", productoId, error.getMessage()));
+    }
+
+    /**
+     * Verificar si un producto existe; vacío si el servicio no respondió (fallback)
+     */
+    @CircuitBreaker(name = "productos-service", fallbackMethod = "productoExistsFallback")
+    @Retry(name = "productos-service")
+    public Mono<Boolean> productoExists(Integer productoId) {
+        log.info("Verificando existencia del producto con ID: {}", productoId);
+        
+        return registrarLlamada("productoExists", String.valueOf(productoId), webClientBuilder
+                .baseUrl(baseUrl)
+                .build()
+                .get()
+                .uri("/api/v1/products/{id}/exists", productoId)
+                .header(HttpHeaders.ACCEPT, "application/vnd.api+json")
+                .header("X-API-Key", apiKey)
+                .retrieve()
+                .bodyToMono(ProductoExistsResponse.class)
+                .timeout(Duration.ofMillis(timeout))
+                .map(ProductoExistsResponse::isExists)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(false)))
+                .doOnSuccess(exists -> log.info("Producto {} existe: {}", productoId, exists))
+                .doOnError(error -> log.error("Error al verificar existencia del producto {}: {}", productoId, error.getMessage()));
+    }
+
+    /**
+     * Obtener productos por lotes
+     */
+    @CircuitBreaker(name = "productos-service", fallbackMethod = "getProductosBatchFallback")
+    @Retry(name = "productos-service")
+    public Mono<List<Producto>> getProductosBatch(List<Integer> productoIds) {
+        log.info("Consultando productos por lotes: {}", productoIds);
+        
+        String idsParam = String.join(",", productoIds.stream().map(String::valueOf).toList());
+        
+        return registrarLlamada("getProductosBatch", idsParam, webClientBuilder
+                .baseUrl(baseUrl)
+                .build()
+                .get()
+                .uri("/api/v1/products/batch?ids={ids}", idsParam)
+                .header(HttpHeaders.ACCEPT, "application/vnd.api+json")
+                .header("X-API-Key", apiKey)
+                .retrieve()
+                .bodyToMono(ProductosBatchResponse.class)
+                .timeout(Duration.ofMillis(timeout))
+                .map(this::mapToProductosList))
+                .doOnSuccess(productos -> log.info("Productos obtenidos exitosamente: {}", productos.size()))
+                .doOnError(error -> log.error("Error al obtener productos por lotes: {}", error.getMessage()));
+    }
+
+    // Métodos de fallback para circuit breaker
+    public Mono<Producto> getProductoFallback(Integer productoId, Exception ex) {
+        log.warn("Fallback: No se pudo obtener el producto {} debido a: {}", productoId, ex.getMessage());
+        return Mono.error(new RuntimeException("Servicio de productos no disponible"));
+    }
+
+    public Mono<Boolean> productoExistsFallback(Integer productoId, Exception ex) {
+        log.warn("Fallback: No se pudo verificar la existencia del producto {} debido a: {}", productoId, ex.getMessage());
+        // Sin respuesta no hay confirmación: vacío para distinguirlo de un "no existe" real
+        return Mono.empty();
+    }
+
+    public Mono<List<Producto>> getProductosBatchFallback(List<Integer> productoIds, Exception ex) {
+        log.warn("Fallback: No se pudieron obtener los productos {} debido a: {}", productoIds, ex.getMessage());
+        return Mono.error(new RuntimeException("Servicio de productos no disponible"));
+    }
+
+    /**
+     * Emitir un evento JFR por cada intento de la llamada y pasarlo por el límite de concurrencia;
+     * los reintentos vuelven a suscribirse
+     */
+    private <T> Mono<T> registrarLlamada(String operacion, String productoIds, Mono<T> llamada) {
+        AtomicInteger intentos = new AtomicInteger();
+        return Mono.defer(() -> {
+            LlamadaProductosEvent evento = LlamadaProductosEvent.iniciar(operacion, productoIds, intentos.incrementAndGet());
+            return limitador.limitar(llamada)
+                    .doOnSuccess(resultado -> evento.finalizar(true, null))
+                    .doOnError(error -> evento.finalizar(false, error))
+                    .doOnCancel(() -> evento.finalizar(false, null));
+        });
+    }
+
+    /**
+     * Timeouts, errores de conexión, 429 y 5xx indican sobrecarga y reducen el límite
+     */
+    private static LimitadorConcurrenciaAdaptativo.Resultado clasificar(Throwable error) {
+        if (error instanceof TimeoutException || error instanceof WebClientRequestException) {
+            return LimitadorConcurrenciaAdaptativo.Resultado.SOBRECARGA;
+        }
+        if (error instanceof WebClientResponseException respuesta
+                && (respuesta.getStatusCode().is5xxServerError() || respuesta.getStatusCode().value() == 429)) {
+            return LimitadorConcurrenciaAdaptativo.Resultado.SOBRECARGA;
+        }
+        return LimitadorConcurrenciaAdaptativo.Resultado.IGNORADO;
+    }
+
+    // Métodos auxiliares para mapeo de respuestas
+    private Producto mapToProducto(ProductoResponse response) {
+        if (response != null && response.getData() != null && response.getData().getAttributes() != null) {
+            ProductoResponse.ProductoAttributes attrs = response.getData().getAttributes();
+            return Producto.builder()
+                    .id(Integer.valueOf(response.getData().getId()))
+                    .nombre(attrs.getNombre())
+                    .descripcion(attrs.getDescripcion())
+                    .precio(attrs.getPrecio())
+                    .categoria(attrs.getCategoria())
+                    .activo(attrs.getActivo())
+                    .fechaCreacion(attrs.getFechaCreacion())
+                    .fechaActualizacion(attrs.getFechaActualizacion())
+                    .build();
+        }
+        return null;
+    }
+
+    private List<Producto> mapToProductosList(ProductosBatchResponse response) {
+        if (response != null && response.getData() != null) {
+            return response.getData().stream()
+                    .map(this::mapToProductoFromData)
+                    .toList();
+        }
+        return List.of();
+    }
+
+    private Producto mapToProductoFromData(ProductoResponse.ProductoData data) {
+        if (data != null && data.getAttributes() != null) {
+            ProductoResponse.ProductoAttributes attrs = data.getAttributes();
+            return Producto.builder()
+                    .id(Integer.valueOf(data.getId()))
+                    .nombre(attrs.getNombre())
+                    .descripcion(attrs.getDescripcion())
+                    .precio(attrs.getPrecio())
+                    .categoria(attrs.getCategoria())
+                    .activo(attrs.getActivo())
+                    .fechaCreacion(attrs.getFechaCreacion())
+                    .fechaActualizacion(attrs.getFechaActualizacion())
+                    .build();
+        }
+        return null;
+    }
+
+    // Clases DTO para las respuestas del servicio de productos
+    public static class ProductoResponse {
+        private ProductoData data;
+
+        public ProductoData getData() { return data; }
+        public void setData(ProductoData data) { this.data = data; }
+
+        public static class ProductoData {
+            private String id;
+            private String type;
+            private ProductoAttributes attributes;
+
+            public String getId() { return id; }
+            public void setId(String id) { this.id = id; }
+            public String getType() { return type; }
+            public void setType(String type) { this.type = type; }
+            public ProductoAttributes getAttributes() { return attributes; }
+            public void setAttributes(ProductoAttributes attributes) { this.attributes = attributes; }
+        }
+
+        public static class ProductoAttributes {
+            private String nombre;
+            private String descripcion;
+            private java.math.BigDecimal precio;
+            private String categoria;
+            private Boolean activo;
+            private java.time.LocalDateTime fechaCreacion;
+            private java.time.LocalDateTime fechaActualizacion;
+
+            // Getters y setters
+            public String getNombre() { return nombre; }
+            public void setNombre(String nombre) { this.nombre = nombre; }
+            public String getDescripcion() { return descripcion; }
+            public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
+            public java.math.BigDecimal getPrecio() { return precio; }
+            public void setPrecio(java.math.BigDecimal precio) { this.precio = precio; }
+            public String getCategoria() { return categoria; }
+            public void setCategoria(String categoria) { this.categoria = categoria; }
+            public Boolean getActivo() { return activo; }
+            public void setActivo(Boolean activo) { this.activo = activo; }
+            public java.time.LocalDateTime getFechaCreacion() { return fechaCreacion; }
+            public void setFechaCreacion(java.time.LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+            public java.time.LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+            public void setFechaActualizacion(java.time.LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+        }
+    }
+
+    public static class ProductoExistsResponse {
+        private boolean exists;
+
+        public boolean isExists() { return exists; }
+        public void setExists(boolean exists) { this.exists = exists; }
+    }
+
+    public static class ProductosBatchResponse {
+        private List<ProductoResponse.ProductoData> data;
+
+        public List<ProductoResponse.ProductoData> getData() { return data; }
+        public void setData(List<ProductoResponse.ProductoData> data) { this.data = data; }
+    }
+}
\ No newline at end of file
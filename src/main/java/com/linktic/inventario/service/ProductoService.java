@@ -1,229 +1,242 @@
 package com.linktic.inventario.service;
 
 import com.linktic.inventario.model.Producto;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Servicio para comunicarse con el microservicio de productos
+ * Servicio de productos: resuelve desde la caché local y consulta el microservicio solo en los fallos
+ *
+ * La existencia se responde primero con el índice local de IDs ({@link IndiceProductos}); solo los IDs
+ * que el índice no conoce llegan al servicio. Los IDs confirmados como inexistentes se rechazan localmente
+ * mientras sigan en la caché negativa.
+ *
+ * Si el servicio no responde (o el circuit breaker está abierto) se sirve el último valor conocido marcado
+ * como desactualizado, y al cerrarse el circuito esos productos se refrescan en segundo plano.
+ * Las consultas individuales se agrupan en llamadas por lotes ({@link AgrupadorProductos}) y pueden cubrirse
+ * con una segunda solicitud ({@link CoberturaSolicitudes}).
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductoService {
 
-    private final WebClient.Builder webClientBuilder;
-
-    @Value("${app.productos-service.base-url}")
-    private String baseUrl;
-
-    @Value("${app.productos-service.api-key}")
-    private String apiKey;
-
-    @Value("${app.productos-service.timeout}")
-    private int timeout;
+    private static final String CIRCUITO_PRODUCTOS = "productos-service";
+    private static final int TAMANO_LOTE_REFRESCO = 100;
+
+    private final ProductoClient productoClient;
+    private final ProductoCache productoCache;
+    private final IndiceProductos indiceProductos;
+    private final ProductoCacheNegativa productoCacheNegativa;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final CoberturaSolicitudes coberturaSolicitudes;
+    private final AgrupadorProductos agrupadorProductos;
+
+    // Productos servidos como desactualizados que hay que refrescar al recuperarse el servicio
+    private final Set<Integer> pendientesRefresco = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void suscribirCircuito() {
+        circuitBreakerRegistry.circuitBreaker(CIRCUITO_PRODUCTOS).getEventPublisher()
+                .onStateTransition(evento -> {
+                    if (evento.getStateTransition().getToState() == CircuitBreaker.State.CLOSED) {
+                        refrescarDesactualizados();
+                    }
+                });
+    }
 
     /**
      * Obtener un producto por ID
      */
-    @CircuitBreaker(name = "productos-service", fallbackMethod = "getProductoFallback")
-    @Retry(name = "productos-service")
     public Mono<Producto> getProductoById(Integer productoId) {
-        log.info("Consultando producto con ID: {}", productoId);
-        
-        return webClientBuilder
-                .baseUrl(baseUrl)
-                .build()
-                .get()
-                .uri("/api/v1/products/{id}", productoId)
-                .header(HttpHeaders.ACCEPT, "application/vnd.api+json")
-                .header("X-API-Key", apiKey)
-                .retrieve()
-                .bodyToMono(ProductoResponse.class)
-                .timeout(Duration.ofMillis(timeout))
-                .map(this::mapToProducto)
-                .doOnSuccess(producto -> log.info("Producto obtenido exitosamente: {}", producto.getNombre()))
-                .doOnError(error -> log.error("Error al obtener producto con ID {}: {}", productoId, error.getMessage()));
+        Producto enCache = productoCache.obtener(productoId);
+        if (enCache != null) {
+            return Mono.just(enCache);
+        }
+        if (productoCacheNegativa.contiene(productoId)) {
+            return Mono.error(productoNoExiste(productoId));
+        }
+        return coberturaSolicitudes.cubrir(() -> agrupadorProductos.cargar(productoId))
+                .doOnNext(this::registrar)
+                .onErrorResume(error -> {
+                    Producto ultimoConocido = ultimoConocido(productoId);
+                    return ultimoConocido != null ? Mono.just(ultimoConocido) : Mono.error(error);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    productoCacheNegativa.registrar(productoId);
+                    return Mono.error(productoNoExiste(productoId));
+                }));
     }
 
     /**
-     * Verificar si un producto existe
+     * Verificar si un producto existe; un producto indexado o en caché existe sin consultar el servicio
      */
-    @CircuitBreaker(name = "productos-service", fallbackMethod = "productoExistsFallback")
-    @Retry(name = "productos-service")
     public Mono<Boolean> productoExists(Integer productoId) {
-        log.info("Verificando existencia del producto con ID: {}", productoId);
-        
-        return webClientBuilder
-                .baseUrl(baseUrl)
-                .build()
-                .get()
-                .uri("/api/v1/products/{id}/exists", productoId)
-                .header(HttpHeaders.ACCEPT, "application/vnd.api+json")
-                .header("X-API-Key", apiKey)
-                .retrieve()
-                .bodyToMono(ProductoExistsResponse.class)
-                .timeout(Duration.ofMillis(timeout))
-                .map(ProductoExistsResponse::isExists)
-                .doOnSuccess(exists -> log.info("Producto {} existe: {}", productoId, exists))
-                .doOnError(error -> log.error("Error al verificar existencia del producto {}: {}", productoId, error.getMessage()));
+        return consultarExistencia(productoId)
+                .switchIfEmpty(Mono.fromSupplier(() -> productoCache.obtenerUltimoConocido(productoId) != null));
     }
 
     /**
-     * Obtener productos por lotes
+     * Como {@link #productoExists}, pero si el servicio no responde y el producto no se conocía antes de la caída
+     * falla con {@link ServicioProductosNoDisponibleException} en lugar de darlo por inexistente
      */
-    @CircuitBreaker(name = "productos-service", fallbackMethod = "getProductosBatchFallback")
-    @Retry(name = "productos-service")
-    public Mono<List<Producto>> getProductosBatch(List<Integer> productoIds) {
-        log.info("Consultando productos por lotes: {}", productoIds);
-        
-        String idsParam = String.join(",", productoIds.stream().map(String::valueOf).toList());
-        
-        return webClientBuilder
-                .baseUrl(baseUrl)
-                .build()
-                .get()
-                .uri("/api/v1/products/batch?ids={ids}", idsParam)
-                .header(HttpHeaders.ACCEPT, "application/vnd.api+json")
-                .header("X-API-Key", apiKey)
-                .retrieve()
-                .bodyToMono(ProductosBatchResponse.class)
-                .timeout(Duration.ofMillis(timeout))
-                .map(this::mapToProductosList)
-                .doOnSuccess(productos -> log.info("Productos obtenidos exitosamente: {}", productos.size()))
-                .doOnError(error -> log.error("Error al obtener productos por lotes: {}", error.getMessage()));
-    }
-
-    // Métodos de fallback para circuit breaker
-    public Mono<Producto> getProductoFallback(Integer productoId, Exception ex) {
-        log.warn("Fallback: No se pudo obtener el producto {} debido a: {}", productoId, ex.getMessage());
-        return Mono.error(new RuntimeException("Servicio de productos no disponible"));
+    public Mono<Boolean> confirmarExistencia(Integer productoId) {
+        return consultarExistencia(productoId)
+                .switchIfEmpty(Mono.defer(() -> productoCache.obtenerUltimoConocido(productoId) != null
+                        ? Mono.just(true)
+                        : Mono.error(new ServicioProductosNoDisponibleException(
+                                "No se pudo verificar el producto con ID " + productoId + ": servicio de productos no disponible"))));
     }
 
-    public Mono<Boolean> productoExistsFallback(Integer productoId, Exception ex) {
-        log.warn("Fallback: No se pudo verificar la existencia del producto {} debido a: {}", productoId, ex.getMessage());
-        return Mono.just(false);
-    }
-
-    public Mono<List<Producto>> getProductosBatchFallback(List<Integer> productoIds, Exception ex) {
-        log.warn("Fallback: No se pudieron obtener los productos {} debido a: {}", productoIds, ex.getMessage());
-        return Mono.error(new RuntimeException("Servicio de productos no disponible"));
+    /**
+     * Existencia según el índice, las cachés o el servicio; vacío si el servicio no respondió
+     */
+    private Mono<Boolean> consultarExistencia(Integer productoId) {
+        if (indiceProductos.contiene(productoId) || productoCache.obtener(productoId) != null) {
+            return Mono.just(true);
+        }
+        if (productoCacheNegativa.contiene(productoId)) {
+            return Mono.just(false);
+        }
+        // El fallback del circuit breaker llega vacío: sin respuesta no se cachea nada y un producto
+        // conocido antes de la caída se sigue dando por existente
+        return productoClient.productoExists(productoId)
+                .doOnNext(existe -> {
+                    if (Boolean.TRUE.equals(existe)) {
+                        indiceProductos.marcar(productoId);
+                        productoCacheNegativa.invalidar(productoId);
+                    } else {
+                        productoCacheNegativa.registrar(productoId);
+                    }
+                });
     }
 
-    // Métodos auxiliares para mapeo de respuestas
-    private Producto mapToProducto(ProductoResponse response) {
-        if (response != null && response.getData() != null && response.getData().getAttributes() != null) {
-            ProductoResponse.ProductoAttributes attrs = response.getData().getAttributes();
-            return Producto.builder()
-                    .id(Integer.valueOf(response.getData().getId()))
-                    .nombre(attrs.getNombre())
-                    .descripcion(attrs.getDescripcion())
-                    .precio(attrs.getPrecio())
-                    .categoria(attrs.getCategoria())
-                    .activo(attrs.getActivo())
-                    .fechaCreacion(attrs.getFechaCreacion())
-                    .fechaActualizacion(attrs.getFechaActualizacion())
-                    .build();
+    /**
+     * Obtener productos por lotes, pidiendo al servicio solo los que no están en caché
+     */
+    public Mono<List<Producto>> getProductosBatch(List<Integer> productoIds) {
+        Map<Integer, Producto> encontrados = new HashMap<>();
+        List<Integer> faltantes = new ArrayList<>();
+        for (Integer productoId : productoIds) {
+            Producto enCache = productoCache.obtener(productoId);
+            if (enCache != null) {
+                encontrados.put(productoId, enCache);
+            } else {
+                faltantes.add(productoId);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return Mono.just(ordenar(productoIds, encontrados));
         }
-        return null;
+        return productoClient.getProductosBatch(faltantes)
+                .map(productos -> {
+                    for (Producto producto : productos) {
+                        if (producto != null) {
+                            registrar(producto);
+                            encontrados.put(producto.getId(), producto);
+                        }
+                    }
+                    return ordenar(productoIds, encontrados);
+                })
+                .onErrorResume(error -> {
+                    for (Integer productoId : faltantes) {
+                        Producto ultimoConocido = ultimoConocido(productoId);
+                        if (ultimoConocido != null) {
+                            encontrados.put(productoId, ultimoConocido);
+                        }
+                    }
+                    return encontrados.isEmpty() ? Mono.error(error) : Mono.just(ordenar(productoIds, encontrados));
+                });
     }
 
-    private List<Producto> mapToProductosList(ProductosBatchResponse response) {
-        if (response != null && response.getData() != null) {
-            return response.getData().stream()
-                    .map(this::mapToProductoFromData)
-                    .toList();
+    /**
+     * Cargar en caché los productos indicados, en lotes
+     */
+    public int precargar(List<Integer> productoIds, int tamanoLote) {
+        int cargados = 0;
+        for (int desde = 0; desde < productoIds.size(); desde += tamanoLote) {
+            List<Integer> lote = productoIds.subList(desde, Math.min(desde + tamanoLote, productoIds.size()));
+            try {
+                List<Producto> productos = getProductosBatch(lote).block();
+                cargados += productos != null ? productos.size() : 0;
+            } catch (RuntimeException e) {
+                log.warn("No se pudo precargar el lote de productos {}: {}", lote, e.getMessage());
+            }
         }
-        return List.of();
+        return cargados;
     }
 
-    private Producto mapToProductoFromData(ProductoResponse.ProductoData data) {
-        if (data != null && data.getAttributes() != null) {
-            ProductoResponse.ProductoAttributes attrs = data.getAttributes();
-            return Producto.builder()
-                    .id(Integer.valueOf(data.getId()))
-                    .nombre(attrs.getNombre())
-                    .descripcion(attrs.getDescripcion())
-                    .precio(attrs.getPrecio())
-                    .categoria(attrs.getCategoria())
-                    .activo(attrs.getActivo())
-                    .fechaCreacion(attrs.getFechaCreacion())
-                    .fechaActualizacion(attrs.getFechaActualizacion())
-                    .build();
+    /**
+     * Volver a pedir al servicio los productos servidos como desactualizados
+     */
+    void refrescarDesactualizados() {
+        List<Integer> pendientes = new ArrayList<>(pendientesRefresco);
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        log.info("Circuito de productos cerrado: refrescando {} productos desactualizados", pendientes.size());
+        for (int desde = 0; desde < pendientes.size(); desde += TAMANO_LOTE_REFRESCO) {
+            List<Integer> lote = pendientes.subList(desde, Math.min(desde + TAMANO_LOTE_REFRESCO, pendientes.size()));
+            productoClient.getProductosBatch(lote).subscribe(
+                    productos -> {
+                        productos.forEach(producto -> {
+                            if (producto != null) {
+                                registrar(producto);
+                            }
+                        });
+                        // Los que el servicio ya no devuelve dejan de estar pendientes
+                        pendientesRefresco.removeAll(lote);
+                    },
+                    error -> log.warn("No se pudo refrescar el lote de productos {}: {}", lote, error.getMessage()));
         }
-        return null;
     }
 
-    // Clases DTO para las respuestas del servicio de productos
-    public static class ProductoResponse {
-        private ProductoData data;
-
-        public ProductoData getData() { return data; }
-        public void setData(ProductoData data) { this.data = data; }
-
-        public static class ProductoData {
-            private String id;
-            private String type;
-            private ProductoAttributes attributes;
-
-            public String getId() { return id; }
-            public void setId(String id) { this.id = id; }
-            public String getType() { return type; }
-            public void setType(String type) { this.type = type; }
-            public ProductoAttributes getAttributes() { return attributes; }
-            public void setAttributes(ProductoAttributes attributes) { this.attributes = attributes; }
+    /**
+     * Último valor conocido marcado como desactualizado, o null si el producto nunca se cargó
+     */
+    private Producto ultimoConocido(Integer productoId) {
+        Producto producto = productoCache.obtenerUltimoConocido(productoId);
+        if (producto == null) {
+            return null;
         }
+        pendientesRefresco.add(productoId);
+        log.debug("Servicio de productos no disponible: se usa el último valor conocido del producto {}", productoId);
+        return producto.toBuilder().desactualizado(true).build();
+    }
 
-        public static class ProductoAttributes {
-            private String nombre;
-            private String descripcion;
-            private java.math.BigDecimal precio;
-            private String categoria;
-            private Boolean activo;
-            private java.time.LocalDateTime fechaCreacion;
-            private java.time.LocalDateTime fechaActualizacion;
-
-            // Getters y setters
-            public String getNombre() { return nombre; }
-            public void setNombre(String nombre) { this.nombre = nombre; }
-            public String getDescripcion() { return descripcion; }
-            public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
-            public java.math.BigDecimal getPrecio() { return precio; }
-            public void setPrecio(java.math.BigDecimal precio) { this.precio = precio; }
-            public String getCategoria() { return categoria; }
-            public void setCategoria(String categoria) { this.categoria = categoria; }
-            public Boolean getActivo() { return activo; }
-            public void setActivo(Boolean activo) { this.activo = activo; }
-            public java.time.LocalDateTime getFechaCreacion() { return fechaCreacion; }
-            public void setFechaCreacion(java.time.LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
-            public java.time.LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
-            public void setFechaActualizacion(java.time.LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+    private void registrar(Producto producto) {
+        productoCache.guardar(producto);
+        if (producto != null) {
+            pendientesRefresco.remove(producto.getId());
+            indiceProductos.marcar(producto.getId());
+            productoCacheNegativa.invalidar(producto.getId());
         }
     }
 
-    public static class ProductoExistsResponse {
-        private boolean exists;
-
-        public boolean isExists() { return exists; }
-        public void setExists(boolean exists) { this.exists = exists; }
+    private static RuntimeException productoNoExiste(Integer productoId) {
+        return new RuntimeException("El producto con ID " + productoId + " no existe");
     }
 
-    public static class ProductosBatchResponse {
-        private List<ProductoResponse.ProductoData> data;
-
-        public List<ProductoResponse.ProductoData> getData() { return data; }
-        public void setData(List<ProductoResponse.ProductoData> data) { this.data = data; }
+    private static List<Producto> ordenar(List<Integer> productoIds, Map<Integer, Producto> encontrados) {
+        List<Producto> productos = new ArrayList<>(productoIds.size());
+        for (Integer productoId : productoIds) {
+            Producto producto = encontrados.get(productoId);
+            if (producto != null) {
+                productos.add(producto);
+            }
+        }
+        return productos;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.monitoring.MutacionInventarioEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Reintento de las mutaciones de inventario que pierden frente a una escritura concurrente
+ *
+ * Cada intento es una llamada completa al servicio transaccional, así que vuelve a leer la fila con su nueva
+ * versión y aplica la operación sobre ella. Entre intentos se espera un tiempo al azar entre cero y un techo
+ * que se duplica en cada intento (jitter completo), para que los perdedores no vuelvan a chocar a la vez.
+ * Los conflictos, reintentos y agotamientos se cuentan por producto para localizar las filas más disputadas.
+ */
+@Service
+@Slf4j
+public class ReintentoConflictosInventario {
+
+    static final String OTROS_PRODUCTOS = "otros";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxIntentos;
+    private final long esperaInicialMs;
+    private final long esperaMaximaMs;
+    private final int maxProductosMetricas;
+
+    // Productos con métricas propias; el resto se agrupa en "otros" para acotar la cardinalidad
+    private final Set<String> productosMedidos = ConcurrentHashMap.newKeySet();
+
+    public ReintentoConflictosInventario(MeterRegistry meterRegistry,
+                                         @Value("${app.inventario.reintentos.max-intentos:4}") int maxIntentos,
+                                         @Value("${app.inventario.reintentos.espera-inicial-ms:10}") long esperaInicialMs,
+                                         @Value("${app.inventario.reintentos.espera-maxima-ms:200}") long esperaMaximaMs,
+                                         @Value("${app.inventario.reintentos.max-productos-metricas:1000}") int maxProductosMetricas) {
+        if (maxIntentos < 1) {
+            throw new IllegalArgumentException("Se requiere al menos un intento");
+        }
+        this.meterRegistry = meterRegistry;
+        this.maxIntentos = maxIntentos;
+        this.esperaInicialMs = esperaInicialMs;
+        this.esperaMaximaMs = Math.max(esperaMaximaMs, esperaInicialMs);
+        this.maxProductosMetricas = maxProductosMetricas;
+    }
+
+    /**
+     * Ejecutar una mutación de un producto reintentándola ante conflictos de bloqueo optimista; en las
+     * mutaciones de varios productos productoId es null y se cuenta el producto que produjo el conflicto
+     */
+    public <T> T ejecutar(Integer productoId, Supplier<T> mutacion) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // La transacción envolvente ya quedó marcada para rollback: el reintento le corresponde a quien la abrió
+            return mutacion.get();
+        }
+        for (int intento = 1; ; intento++) {
+            try {
+                return MutacionInventarioEvent.enIntento(intento, mutacion);
+            } catch (OptimisticLockingFailureException e) {
+                Integer enConflicto = productoEnConflicto(e, productoId);
+                String producto = etiqueta(enConflicto);
+                contar("inventario.conflictos", producto, "Conflictos de bloqueo optimista en mutaciones de inventario");
+                if (intento >= maxIntentos) {
+                    contar("inventario.conflictos.agotados", producto,
+                            "Mutaciones rechazadas tras agotar los reintentos por conflicto");
+                    log.warn("Conflicto en el producto {} tras {} intentos; se rechaza la operación", enConflicto, intento);
+                    throw e;
+                }
+                contar("inventario.conflictos.reintentos", producto, "Reintentos de mutaciones de inventario por conflicto");
+                log.debug("Conflicto en el producto {} (intento {} de {}); se reintenta", enConflicto, intento, maxIntentos);
+                if (!esperar(intento)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Espera al azar en [0, min(máxima, inicial * 2^(intento-1))]; false si el hilo fue interrumpido
+     */
+    private boolean esperar(int intento) {
+        long techo = Math.min(esperaMaximaMs, esperaInicialMs << Math.min(intento - 1, 20));
+        if (techo <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(techo + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Integer productoEnConflicto(OptimisticLockingFailureException e, Integer productoId) {
+        if (e instanceof ObjectOptimisticLockingFailureException conflicto
+                && conflicto.getIdentifier() instanceof Integer identificador) {
+            return identificador;
+        }
+        return productoId;
+    }
+
+    private String etiqueta(Integer productoId) {
+        if (productoId == null) {
+            return OTROS_PRODUCTOS;
+        }
+        String producto = String.valueOf(productoId);
+        if (productosMedidos.contains(producto)) {
+            return producto;
+        }
+        if (productosMedidos.size() < maxProductosMetricas && productosMedidos.add(producto)) {
+            return producto;
+        }
+        return OTROS_PRODUCTOS;
+    }
+
+    private void contar(String nombre, String producto, String descripcion) {
+        Counter.builder(nombre)
+                .tag("producto", producto)
+                .description(descripcion)
+                .register(meterRegistry)
+                .increment();
+    }
+}
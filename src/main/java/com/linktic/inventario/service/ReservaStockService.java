@@ -0,0 +1,284 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.model.ReservaStock;
+import com.linktic.inventario.repository.InventarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de reservas de stock con expiración (TTL)
+ *
+ * Las reservas activas viven solo en memoria; el stock disponible es la cantidad actual del inventario (en los
+ * productos fragmentados, la suma exacta de sus fragmentos; con el libro mayor, el saldo) menos lo retenido. Únicamente la confirmación
+ * (ver {@link InventarioService#confirmarReserva}) escribe la fila.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservaStockService {
+
+    private final InventarioRepository inventarioRepository;
+    private final FragmentosInventarioService fragmentosInventarioService;
+    private final LibroMayorInventarioService libroMayorInventarioService;
+
+    @Value("${app.inventario.reservas.ttl-por-defecto-segundos:300}")
+    private int ttlPorDefectoSegundos;
+
+    @Value("${app.inventario.reservas.ttl-maximo-segundos:3600}")
+    private int ttlMaximoSegundos;
+
+    @Value("${app.inventario.reservas.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.inventario.reservas.ranuras:512}")
+    private int ranuras;
+
+    private final Map<String, ReservaStock> reservas = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> retenidoPorProducto = new ConcurrentHashMap<>();
+
+    private RuedaTemporizadora<String> rueda;
+    private ScheduledExecutorService temporizador;
+
+    @PostConstruct
+    void iniciar() {
+        rueda = new RuedaTemporizadora<>(tickMs, ranuras, this::expirar);
+        temporizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "reservas-stock-rueda");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        temporizador.scheduleAtFixedRate(this::avanzarRueda, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (temporizador != null) {
+            temporizador.shutdownNow();
+        }
+    }
+
+    /**
+     * Reservar stock de un producto durante el TTL indicado; devuelve la reserva y el stock que queda disponible
+     */
+    @Transactional // Lectura bloqueante en el primario: una réplica atrasada permitiría reservar stock ya vendido
+    public ResultadoReserva reservar(Integer productoId, Integer cantidad, Integer ttlSegundos, BigDecimal precioUnitario) {
+        log.info("Reservando {} unidades del producto {} (TTL: {}s)", cantidad, productoId, ttlSegundos);
+
+        if (cantidad == null || cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a reservar debe ser positiva");
+        }
+        int ttl = ttlSegundos != null ? ttlSegundos : ttlPorDefectoSegundos;
+        if (ttl <= 0 || ttl > ttlMaximoSegundos) {
+            throw new IllegalArgumentException("El TTL debe estar entre 1 y " + ttlMaximoSegundos + " segundos");
+        }
+
+        // La fila queda bloqueada hasta el commit: una venta del mismo producto, que la bloquea antes de leer lo
+        // retenido, se ordena antes o después de la reserva y nunca cuentan ambas con las mismas unidades
+        Inventario inventario = inventarioRepository.bloquearInventario(productoId);
+        if (inventario == null) {
+            throw new RuntimeException("No se encontró inventario para el producto con ID " + productoId);
+        }
+
+        int cantidadActual = libroMayorInventarioService.isHabilitado()
+                ? libroMayorInventarioService.saldoBloqueado(inventario)
+                : cantidadActual(inventario);
+
+        // La comprobación y la retención son atómicas por producto. La retención cuenta desde ya para las demás
+        // reservas de la instancia, y se deshace si la transacción no llega a confirmarse
+        int[] disponible = new int[1];
+        retenidoPorProducto.compute(productoId, (id, retenido) -> {
+            int actual = retenido != null ? retenido : 0;
+            if (cantidadActual - actual < cantidad) {
+                throw new IllegalArgumentException("No hay suficiente stock disponible para reservar");
+            }
+            disponible[0] = cantidadActual - actual - cantidad;
+            return actual + cantidad;
+        });
+
+        LocalDateTime ahora = LocalDateTime.now();
+        ReservaStock reserva = ReservaStock.builder()
+                .id(UUID.randomUUID().toString())
+                .productoId(productoId)
+                .cantidad(cantidad)
+                .precioUnitario(precioUnitario)
+                .fechaCreacion(ahora)
+                .fechaExpiracion(ahora.plusSeconds(ttl))
+                .estado(ReservaStock.EstadoReserva.ACTIVA)
+                .build();
+        reservas.put(reserva.getId(), reserva);
+        rueda.programar(reserva.getId(), ttl * 1000L);
+        deshacerSiNoSeConfirma(reserva);
+
+        log.info("Reserva {} creada para el producto {}: {} unidades", reserva.getId(), productoId, cantidad);
+        return new ResultadoReserva(reserva, disponible[0]);
+    }
+
+    /**
+     * Retirar la reserva y devolver su retención si la transacción que la creó termina en rollback
+     */
+    private void deshacerSiNoSeConfirma(ReservaStock reserva) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && retirarSiActiva(reserva.getId()) != null) {
+                    rueda.cancelar(reserva.getId());
+                    devolverRetencion(reserva);
+                    log.warn("Reserva {} descartada: su transacción no se confirmó", reserva.getId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Consultar una reserva activa
+     */
+    public ReservaStock obtenerReserva(String reservaId) {
+        ReservaStock reserva = reservas.get(reservaId);
+        if (reserva == null) {
+            throw new RuntimeException("No se encontró la reserva " + reservaId + " o ya expiró");
+        }
+        return reserva;
+    }
+
+    /**
+     * Liberar una reserva activa devolviendo su stock
+     */
+    public void liberar(String reservaId) {
+        log.info("Liberando reserva {}", reservaId);
+
+        ReservaStock reserva = retirarSiActiva(reservaId);
+        if (reserva == null) {
+            if (reservas.containsKey(reservaId)) {
+                throw new IllegalArgumentException("La reserva " + reservaId + " se está confirmando");
+            }
+            throw new RuntimeException("No se encontró la reserva " + reservaId + " o ya expiró");
+        }
+        rueda.cancelar(reservaId);
+        devolverRetencion(reserva);
+    }
+
+    /**
+     * Unidades retenidas por reservas activas de un producto
+     */
+    public int cantidadRetenida(Integer productoId) {
+        return retenidoPorProducto.getOrDefault(productoId, 0);
+    }
+
+    /**
+     * Stock disponible: cantidad del inventario menos lo retenido
+     */
+    @Transactional
+    public int cantidadDisponible(Integer productoId) {
+        Inventario inventario = inventarioRepository.findByProductoId(productoId)
+                .orElseThrow(() -> new RuntimeException("No se encontró inventario para el producto con ID " + productoId));
+        Integer saldo = libroMayorInventarioService.isHabilitado() ? libroMayorInventarioService.saldo(productoId) : null;
+        return (saldo != null ? saldo : cantidadActual(inventario)) - cantidadRetenida(productoId);
+    }
+
+    /**
+     * Cantidad actual del producto: en el stock fragmentado, la fila solo guarda la última consolidación del
+     * rebalanceo y se suman los fragmentos (tras el bloqueo de la fila, la lectura ya ve las ventas confirmadas)
+     */
+    private int cantidadActual(Inventario inventario) {
+        return inventario.isFragmentado()
+                ? fragmentosInventarioService.cantidadTotal(inventario.getProductoId())
+                : inventario.getCantidad();
+    }
+
+    /**
+     * Marcar la reserva como en confirmación para que no expire ni se libere en paralelo
+     */
+    ReservaStock iniciarConfirmacion(String reservaId) {
+        ReservaStock[] marcada = new ReservaStock[1];
+        reservas.computeIfPresent(reservaId, (id, actual) -> {
+            if (actual.getEstado() != ReservaStock.EstadoReserva.ACTIVA) {
+                throw new IllegalArgumentException("La reserva " + reservaId + " ya se está confirmando");
+            }
+            marcada[0] = actual.toBuilder().estado(ReservaStock.EstadoReserva.CONFIRMANDO).build();
+            return marcada[0];
+        });
+        if (marcada[0] == null) {
+            throw new RuntimeException("No se encontró la reserva " + reservaId + " o ya expiró");
+        }
+        rueda.cancelar(reservaId);
+        return marcada[0];
+    }
+
+    /**
+     * Eliminar la reserva confirmada; su stock ya fue descontado del inventario
+     */
+    void finalizarConfirmacion(String reservaId) {
+        ReservaStock reserva = reservas.remove(reservaId);
+        if (reserva != null) {
+            devolverRetencion(reserva);
+            log.info("Reserva {} confirmada", reservaId);
+        }
+    }
+
+    /**
+     * Devolver la reserva a estado activo si la confirmación falló
+     */
+    void cancelarConfirmacion(String reservaId) {
+        ReservaStock reserva = reservas.computeIfPresent(reservaId, (id, actual) ->
+                actual.toBuilder().estado(ReservaStock.EstadoReserva.ACTIVA).build());
+        if (reserva != null) {
+            long restanteMs = Duration.between(LocalDateTime.now(), reserva.getFechaExpiracion()).toMillis();
+            rueda.programar(reservaId, Math.max(restanteMs, 1));
+        }
+    }
+
+    void avanzarRueda() {
+        try {
+            rueda.avanzar();
+        } catch (Exception e) {
+            log.error("Error al expirar reservas: {}", e.getMessage());
+        }
+    }
+
+    private void expirar(String reservaId) {
+        ReservaStock reserva = retirarSiActiva(reservaId);
+        if (reserva != null) {
+            devolverRetencion(reserva);
+            log.info("Reserva {} expirada: {} unidades del producto {} liberadas",
+                    reservaId, reserva.getCantidad(), reserva.getProductoId());
+        }
+    }
+
+    private ReservaStock retirarSiActiva(String reservaId) {
+        ReservaStock[] retirada = new ReservaStock[1];
+        reservas.computeIfPresent(reservaId, (id, actual) -> {
+            if (actual.getEstado() != ReservaStock.EstadoReserva.ACTIVA) {
+                return actual;
+            }
+            retirada[0] = actual;
+            return null;
+        });
+        return retirada[0];
+    }
+
+    private void devolverRetencion(ReservaStock reserva) {
+        retenidoPorProducto.computeIfPresent(reserva.getProductoId(), (id, retenido) ->
+                retenido - reserva.getCantidad() > 0 ? retenido - reserva.getCantidad() : null);
+    }
+}
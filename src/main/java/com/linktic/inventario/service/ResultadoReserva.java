@@ -0,0 +1,15 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.ReservaStock;
+import lombok.Value;
+
+/**
+ * Reserva creada y el stock que quedó disponible al crearla, sin otra lectura del inventario
+ */
+@Value
+public class ResultadoReserva {
+
+    ReservaStock reserva;
+
+    int cantidadDisponible;
+}
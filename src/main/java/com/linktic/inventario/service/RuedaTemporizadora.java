@@ -0,0 +1,109 @@
+package com.linktic.inventario.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Rueda temporizadora (hashed timing wheel) para expirar claves con coste O(1) por alta y baja
+ *
+ * Cada tick avanza una ranura y solo recorre las claves de esa ranura; los plazos mayores que una
+ * vuelta completa se resuelven con un contador de vueltas pendientes. Un único hilo debe llamar a {@link #avanzar()}.
+ * El cálculo de la ranura en {@link #programar} y el avance del cursor comparten monitor, de modo que una clave
+ * programada durante un avance nunca cae en la ranura que se está recorriendo.
+ */
+public class RuedaTemporizadora<K> {
+
+    private final long tickMs;
+    private final Set<K>[] ranuras;
+    private final Map<K, Entrada> entradas = new ConcurrentHashMap<>();
+    private final Consumer<K> alExpirar;
+    private final Object cursor = new Object();
+    private long tickActual;
+
+    @SuppressWarnings("unchecked")
+    public RuedaTemporizadora(long tickMs, int numeroRanuras, Consumer<K> alExpirar) {
+        if (tickMs <= 0 || numeroRanuras <= 0) {
+            throw new IllegalArgumentException("El tick y el número de ranuras deben ser positivos");
+        }
+        this.tickMs = tickMs;
+        this.ranuras = new Set[numeroRanuras];
+        for (int i = 0; i < numeroRanuras; i++) {
+            ranuras[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.alExpirar = alExpirar;
+    }
+
+    /**
+     * Programar la expiración de una clave tras el plazo indicado
+     */
+    public void programar(K clave, long plazoMs) {
+        cancelar(clave);
+        long ticks = Math.max(1, (plazoMs + tickMs - 1) / tickMs);
+        synchronized (cursor) {
+            long destino = tickActual + ticks;
+            int ranura = (int) (destino % ranuras.length);
+            Entrada entrada = new Entrada(ranura, (ticks - 1) / ranuras.length);
+            entradas.put(clave, entrada);
+            ranuras[ranura].add(clave);
+        }
+    }
+
+    /**
+     * Cancelar la expiración de una clave; devuelve false si no estaba programada
+     */
+    public boolean cancelar(K clave) {
+        Entrada entrada = entradas.remove(clave);
+        if (entrada == null) {
+            return false;
+        }
+        ranuras[entrada.ranura].remove(clave);
+        return true;
+    }
+
+    /**
+     * Avanzar un tick y expirar las claves vencidas en la ranura alcanzada
+     *
+     * Las devoluciones de llamada se ejecutan fuera del monitor para no bloquear a quien programa.
+     */
+    public void avanzar() {
+        List<K> vencidas = new ArrayList<>();
+        synchronized (cursor) {
+            tickActual++;
+            Set<K> ranura = ranuras[(int) (tickActual % ranuras.length)];
+            for (K clave : ranura) {
+                Entrada entrada = entradas.get(clave);
+                if (entrada == null) {
+                    ranura.remove(clave);
+                } else if (entrada.vueltas > 0) {
+                    entrada.vueltas--;
+                } else if (entradas.remove(clave, entrada)) {
+                    ranura.remove(clave);
+                    vencidas.add(clave);
+                }
+            }
+        }
+        vencidas.forEach(alExpirar);
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public int size() {
+        return entradas.size();
+    }
+
+    private static final class Entrada {
+        private final int ranura;
+        private volatile long vueltas;
+
+        private Entrada(int ranura, long vueltas) {
+            this.ranura = ranura;
+            this.vueltas = vueltas;
+        }
+    }
+}
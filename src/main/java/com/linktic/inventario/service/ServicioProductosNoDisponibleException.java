@@ -0,0 +1,11 @@
+package com.linktic.inventario.service;
+
+/**
+ * El servicio de productos no respondió y no hay información local para confirmar la existencia del producto
+ */
+public class ServicioProductosNoDisponibleException extends RuntimeException {
+
+    public ServicioProductosNoDisponibleException(String message) {
+        super(message);
+    }
+}
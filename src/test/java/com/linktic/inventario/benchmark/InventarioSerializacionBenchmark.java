@@ -0,0 +1,84 @@
+package com.linktic.inventario.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.linktic.inventario.dto.InventarioJsonApiSerializer;
+import com.linktic.inventario.dto.InventarioResponse;
+import com.linktic.inventario.model.Inventario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmark JMH de la serialización de listados de inventario: DTO + ObjectMapper frente al serializador directo
+ *
+ * Ejecutar con el perfilador de asignaciones:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main InventarioSerializacionBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventarioSerializacionBenchmark {
+
+    @Param({"10", "200"})
+    private int tamano;
+
+    private ObjectMapper objectMapper;
+    private List<Inventario> inventarios;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        LocalDateTime fecha = LocalDateTime.of(2024, 1, 15, 10, 30, 0);
+        inventarios = IntStream.rangeClosed(1, tamano)
+                .mapToObj(id -> Inventario.builder()
+                        .productoId(id)
+                        .cantidad(id * 3)
+                        .fechaCreacion(fecha)
+                        .fechaActualizacion(fecha.plusSeconds(id))
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    public void jacksonConDto() throws IOException {
+        List<InventarioResponse> respuestas = inventarios.stream()
+                .map(InventarioResponse::fromInventario)
+                .toList();
+        objectMapper.writeValue(OutputStream.nullOutputStream(), respuestas);
+    }
+
+    @Benchmark
+    public void serializadorDirecto() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(OutputStream.nullOutputStream(), JsonEncoding.UTF8)) {
+            InventarioJsonApiSerializer.escribirListado(generator, inventarios);
+        }
+    }
+}
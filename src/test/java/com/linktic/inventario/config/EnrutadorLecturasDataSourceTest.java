@@ -0,0 +1,95 @@
+package com.linktic.inventario.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para EnrutadorLecturasDataSource, con bases H2 en memoria como pools y réplica
+ */
+class EnrutadorLecturasDataSourceTest {
+
+    private DataSource caida;
+    private EnrutadorLecturasDataSource enrutador;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        caida = mock(DataSource.class);
+        when(caida.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", h2("replica"));
+        replicas.put("replica-2", caida);
+        enrutador = new EnrutadorLecturasDataSource(h2("oltp"), h2("reportes"), replicas, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_EscriturasAlPoolOltpYLecturasSinReplicaAlDeReportes() throws SQLException {
+        assertEquals("oltp", base());
+
+        // Hasta la primera verificación ninguna réplica recibe lecturas
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("reportes", base());
+    }
+
+    @Test
+    void getConnection_LecturasVanALaReplicaDentroDeLaTolerancia() throws SQLException {
+        enrutador.marcarReplica("replica-1", true, 2);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("replica", base());
+        assertEquals("replica", base());
+
+        // Fuera de la tolerancia de retraso se vuelve al pool de reportes del primario
+        enrutador.marcarReplica("replica-1", false, 30);
+        assertEquals("reportes", base());
+    }
+
+    @Test
+    void getConnection_ReplicaSinConexionCaeAlPrimarioYSeDescarta() throws SQLException {
+        enrutador.marcarReplica("replica-2", true, 0);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("reportes", base());
+        assertEquals(0, enrutador.getReplicasDisponibles());
+        verify(caida, times(1)).getConnection();
+    }
+
+    @Test
+    void verificarReplicas_DescartaLasQueNoInformanSuRetraso() {
+        enrutador.marcarReplica("replica-1", true, 0);
+
+        // H2 no entiende SHOW REPLICA STATUS: se trata como una réplica que no responde
+        enrutador.verificarReplicas();
+
+        assertEquals(0, enrutador.getReplicasDisponibles());
+    }
+
+    private String base() throws SQLException {
+        try (Connection conexion = enrutador.getConnection()) {
+            return conexion.getCatalog().toLowerCase();
+        }
+    }
+
+    private static DataSource h2(String nombre) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
@@ -0,0 +1,169 @@
+package com.linktic.inventario.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para MuestreoLogTurboFilter
+ */
+class MuestreoLogTurboFilterTest {
+
+    private final LoggerContext contexto = new LoggerContext();
+    private final MuestreoLogTurboFilter filtro = new MuestreoLogTurboFilter();
+
+    @AfterEach
+    void tearDown() {
+        MDC.remove(MuestreoLogTurboFilter.MDC_MUESTREADO);
+    }
+
+    @Test
+    void decide_WarnYErrorNuncaSeFiltran() {
+        filtro.setTasaMuestreo(0.0);
+        filtro.setMaxEventosPorSegundo(1);
+        filtro.start();
+        Logger logger = logger("com.linktic.inventario.service", Level.INFO);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(FilterReply.NEUTRAL, decidir(logger, Level.WARN));
+            assertEquals(FilterReply.NEUTRAL, decidir(logger, Level.ERROR));
+        }
+    }
+
+    @Test
+    void decide_AplicaLaTasaDeLaReglaMasEspecifica() {
+        filtro.setTasaMuestreo(1.0);
+        filtro.setTasasPorLogger("com.linktic=0.0, com.linktic.inventario.controller=1.0");
+        filtro.start();
+
+        assertEquals(FilterReply.DENY, decidir(logger("com.linktic.inventario.service", Level.INFO), Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decidir(logger("com.linktic.inventario.controller", Level.INFO), Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decidir(logger("org.hibernate", Level.INFO), Level.INFO));
+    }
+
+    @Test
+    void decide_LimitaLosEventosPorSegundoDeCadaLogger() {
+        filtro.setMaxEventosPorSegundo(2);
+        filtro.start();
+        Logger logger = logger("com.linktic.inventario.service", Level.INFO);
+        Logger otro = logger("com.linktic.inventario.controller", Level.INFO);
+        esperarInicioDeSegundo();
+
+        assertEquals(FilterReply.NEUTRAL, decidir(logger, Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decidir(logger, Level.INFO));
+        assertEquals(FilterReply.DENY, decidir(logger, Level.INFO));
+        // Cada logger tiene su propia ventana
+        assertEquals(FilterReply.NEUTRAL, decidir(otro, Level.INFO));
+    }
+
+    @Test
+    void decide_LosEventosPorDebajoDelNivelNoConsumenLaVentana() {
+        filtro.setMaxEventosPorSegundo(1);
+        filtro.start();
+        Logger logger = logger("com.linktic.inventario.service", Level.INFO);
+        esperarInicioDeSegundo();
+
+        assertEquals(FilterReply.NEUTRAL, decidir(logger, Level.DEBUG));
+        assertEquals(FilterReply.NEUTRAL, decidir(logger, Level.DEBUG));
+        assertEquals(FilterReply.NEUTRAL, decidir(logger, Level.INFO));
+    }
+
+    @Test
+    void decide_SolicitudMuestreadaRegistraLosLoggersDeDetalleCompletos() {
+        filtro.setTasaMuestreo(0.0);
+        filtro.setMaxEventosPorSegundo(1);
+        filtro.setLoggersDetalle("com.linktic.inventario");
+        filtro.start();
+        Logger detalle = logger("com.linktic.inventario.service", Level.INFO);
+        Logger ajeno = logger("org.hibernate", Level.INFO);
+        MDC.put(MuestreoLogTurboFilter.MDC_MUESTREADO, "true");
+
+        // Por debajo del nivel configurado, sin muestreo ni límite de tasa
+        for (int i = 0; i < 3; i++) {
+            assertEquals(FilterReply.ACCEPT, decidir(detalle, Level.DEBUG));
+        }
+        assertEquals(FilterReply.NEUTRAL, decidir(ajeno, Level.INFO));
+
+        MDC.remove(MuestreoLogTurboFilter.MDC_MUESTREADO);
+        assertEquals(FilterReply.DENY, decidir(detalle, Level.INFO));
+    }
+
+    @Test
+    void decide_LaConsultaDeNivelNoSeMuestrea() {
+        filtro.setTasaMuestreo(0.0);
+        filtro.setMaxEventosPorSegundo(1);
+        filtro.start();
+        Logger logger = logger("com.linktic.inventario.service", Level.INFO);
+
+        // isInfoEnabled() llega sin formato: no se descarta ni consume la ventana
+        for (int i = 0; i < 3; i++) {
+            assertEquals(FilterReply.NEUTRAL, filtro.decide(null, logger, Level.INFO, null, null, null));
+        }
+        assertEquals(FilterReply.DENY, decidir(logger, Level.INFO));
+    }
+
+    @Test
+    void decide_LlamadaProtegidaPorIsInfoEnabledSeMuestreaUnaSolaVez() {
+        filtro.setTasaMuestreo(0.5);
+        filtro.start();
+        contexto.addTurboFilter(filtro);
+        Logger logger = logger("com.linktic.inventario.service", Level.INFO);
+        AtomicInteger registrados = new AtomicInteger();
+        AppenderBase<ILoggingEvent> contador = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent evento) {
+                registrados.incrementAndGet();
+            }
+        };
+        contador.setContext(contexto);
+        contador.start();
+        logger.addAppender(contador);
+
+        int llamadas = 20_000;
+        for (int i = 0; i < llamadas; i++) {
+            if (logger.isInfoEnabled()) {
+                logger.info("mensaje {}", i);
+            }
+        }
+
+        // Con doble muestreo la fracción sería 0.25
+        double fraccion = (double) registrados.get() / llamadas;
+        assertEquals(0.5, fraccion, 0.05);
+    }
+
+    @Test
+    void decide_SinIniciarNoFiltra() {
+        filtro.setTasaMuestreo(0.0);
+
+        assertEquals(FilterReply.NEUTRAL, decidir(logger("com.linktic.inventario.service", Level.INFO), Level.INFO));
+    }
+
+    private Logger logger(String nombre, Level nivel) {
+        Logger logger = contexto.getLogger(nombre);
+        logger.setLevel(nivel);
+        return logger;
+    }
+
+    private FilterReply decidir(Logger logger, Level nivel) {
+        return filtro.decide(null, logger, nivel, "mensaje {}", new Object[]{1}, null);
+    }
+
+    /**
+     * Evitar que la ventana de un segundo se reinicie a mitad de una prueba
+     */
+    private static void esperarInicioDeSegundo() {
+        while (System.currentTimeMillis() % 1000 > 500) {
+            Thread.onSpinWait();
+        }
+    }
+}
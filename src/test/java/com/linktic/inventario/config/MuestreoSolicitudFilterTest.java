@@ -0,0 +1,41 @@
+package com.linktic.inventario.config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para MuestreoSolicitudFilter
+ */
+class MuestreoSolicitudFilterTest {
+
+    private final MuestreoSolicitudFilter filtro = new MuestreoSolicitudFilter();
+
+    @Test
+    void doFilter_MarcaLaSolicitudMuestreadaSoloDuranteLaCadena() throws Exception {
+        ReflectionTestUtils.setField(filtro, "tasaSolicitudes", 1.0);
+
+        assertEquals("true", marcaDuranteLaCadena());
+        assertNull(MDC.get(MuestreoLogTurboFilter.MDC_MUESTREADO));
+    }
+
+    @Test
+    void doFilter_SinTasaNoMarcaNinguna() throws Exception {
+        ReflectionTestUtils.setField(filtro, "tasaSolicitudes", 0.0);
+
+        assertNull(marcaDuranteLaCadena());
+    }
+
+    private String marcaDuranteLaCadena() throws Exception {
+        AtomicReference<String> marca = new AtomicReference<>();
+        filtro.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                (request, response) -> marca.set(MDC.get(MuestreoLogTurboFilter.MDC_MUESTREADO)));
+        return marca.get();
+    }
+}
@@ -0,0 +1,110 @@
+package com.linktic.inventario.dto;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.model.Producto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para InventarioJsonApiSerializer
+ */
+class InventarioJsonApiSerializerTest {
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        // Misma configuración base que aplica Spring Boot al ObjectMapper de la aplicación
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Test
+    void escribirListado_IdenticoAJackson() throws IOException {
+        // Arrange
+        List<Inventario> inventarios = new ArrayList<>();
+        inventarios.add(Inventario.builder()
+                .productoId(1)
+                .cantidad(25)
+                .stockMinimo(5)
+                .stockMaximo(200)
+                .fechaCreacion(LocalDateTime.of(2024, 1, 15, 10, 30, 0))
+                .fechaActualizacion(LocalDateTime.of(2024, 1, 15, 10, 30, 5, 123_456_789))
+                .build());
+        inventarios.add(Inventario.builder()
+                .productoId(2)
+                .cantidad(0)
+                .fechaCreacion(LocalDateTime.of(2024, 2, 1, 0, 0, 0, 500_000_000))
+                .build());
+        inventarios.add(Inventario.builder()
+                .productoId(3)
+                .build());
+
+        List<InventarioResponse> respuestas = inventarios.stream()
+                .map(InventarioResponse::fromInventario)
+                .toList();
+
+        // Act
+        byte[] esperado = objectMapper.writeValueAsBytes(respuestas);
+        byte[] obtenido = serializar(inventarios);
+
+        // Assert
+        assertArrayEquals(esperado, obtenido, () -> new String(obtenido));
+    }
+
+    @Test
+    void escribirListado_Vacio() throws IOException {
+        assertEquals("[]", new String(serializar(List.of())));
+    }
+
+    @Test
+    void escribirColeccion_IncluyeProductosYErroresPorId() throws IOException {
+        // Arrange
+        InventarioColeccion coleccion = new InventarioColeccion(
+                List.of(Inventario.builder().productoId(1).cantidad(4).build()),
+                List.of(Producto.builder().id(1).nombre("Teclado").precio(new BigDecimal("10.50")).activo(true).build()),
+                List.of(9));
+
+        // Act
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8)) {
+            InventarioJsonApiSerializer.escribirColeccion(generator, coleccion);
+        }
+        JsonNode documento = objectMapper.readTree(salida.toByteArray());
+
+        // Assert
+        assertEquals("1", documento.at("/data/0/id").asText());
+        assertEquals(4, documento.at("/data/0/attributes/cantidad").asInt());
+        assertEquals("productos", documento.at("/included/0/type").asText());
+        assertEquals("Teclado", documento.at("/included/0/attributes/nombre").asText());
+        assertEquals(10.50, documento.at("/included/0/attributes/precio").asDouble());
+        assertEquals("9", documento.at("/meta/errores/0/id").asText());
+        assertEquals("404", documento.at("/meta/errores/0/status").asText());
+        assertEquals("ids", documento.at("/meta/errores/0/source/parameter").asText());
+        assertFalse(documento.has("errors"));
+    }
+
+    private byte[] serializar(List<Inventario> inventarios) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8)) {
+            InventarioJsonApiSerializer.escribirListado(generator, inventarios);
+        }
+        return salida.toByteArray();
+    }
+}
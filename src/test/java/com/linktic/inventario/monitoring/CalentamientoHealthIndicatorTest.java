@@ -0,0 +1,136 @@
+package com.linktic.inventario.monitoring;
+
+import com.linktic.inventario.repository.HistorialCompraRepository;
+import com.linktic.inventario.repository.InventarioRepository;
+import com.linktic.inventario.service.CalentamientoService;
+import com.linktic.inventario.service.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.core.env.Environment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CalentamientoHealthIndicator sobre la fase de calentamiento real
+ */
+class CalentamientoHealthIndicatorTest {
+
+    private final HistorialCompraRepository historialCompraRepository = mock(HistorialCompraRepository.class);
+    private final InventarioRepository inventarioRepository = mock(InventarioRepository.class);
+    private final ProductoService productoService = mock(ProductoService.class);
+
+    private CalentamientoService calentamientoService;
+    private CalentamientoHealthIndicator indicador;
+
+    @BeforeEach
+    void setUp() {
+        calentamientoService = new CalentamientoService(historialCompraRepository, inventarioRepository, productoService,
+                mock(WebClient.Builder.class), mock(Environment.class));
+        ReflectionTestUtils.setField(calentamientoService, "habilitado", true);
+        ReflectionTestUtils.setField(calentamientoService, "maxProductos", 10);
+        ReflectionTestUtils.setField(calentamientoService, "diasHistorial", 7);
+        ReflectionTestUtils.setField(calentamientoService, "tamanoLote", 5);
+        ReflectionTestUtils.setField(calentamientoService, "timeoutSegundos", 1L);
+        indicador = new CalentamientoHealthIndicator(calentamientoService);
+        when(historialCompraRepository.findProductosMasActivos(any(), any())).thenReturn(List.of(1, 2));
+    }
+
+    @Test
+    void health_FueraDeServicioHastaTerminarElCalentamiento() throws Exception {
+        CountDownLatch terminar = new CountDownLatch(1);
+        when(productoService.precargar(List.of(1, 2), 5)).thenAnswer(i -> {
+            terminar.await();
+            return 2;
+        });
+
+        calentamientoService.alArrancar();
+        assertEquals(Status.OUT_OF_SERVICE, indicador.health().getStatus());
+
+        terminar.countDown();
+        Health health = esperarUp();
+        assertEquals(2, health.getDetails().get("productosPrecargados"));
+        assertEquals(false, health.getDetails().get("tiempoAgotado"));
+        verify(inventarioRepository).findAllById(List.of(1, 2));
+    }
+
+    @Test
+    void health_AlAgotarseElTiempoCancelaElCalentamientoAntesDePasarAUp() throws Exception {
+        CountDownLatch interrumpido = new CountDownLatch(1);
+        when(productoService.precargar(List.of(1, 2), 5)).thenAnswer(i -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrumpido.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        });
+
+        calentamientoService.alArrancar();
+        assertEquals(Status.OUT_OF_SERVICE, indicador.health().getStatus());
+
+        // La readiness no espera al hilo del calentamiento, que se interrumpe igualmente
+        Health health = esperarUp();
+        assertEquals(true, health.getDetails().get("tiempoAgotado"));
+        assertTrue(interrumpido.await(5, TimeUnit.SECONDS));
+        // El resto del calentamiento no llega a ejecutarse contra la instancia ya lista
+        verify(inventarioRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void health_UpAlAgotarseElTiempoAunqueElHiloSigaBloqueado() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(productoService.precargar(List.of(1, 2), 5)).thenAnswer(i -> {
+            // Como una llamada bloqueante que ignora la interrupción
+            boolean liberado = false;
+            while (!liberado) {
+                try {
+                    liberado = liberar.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // Se ignora
+                }
+            }
+            return 0;
+        });
+
+        try {
+            calentamientoService.alArrancar();
+
+            Health health = esperarUp();
+            assertEquals(true, health.getDetails().get("tiempoAgotado"));
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    void health_UpDeInmediatoConElCalentamientoDesactivado() {
+        ReflectionTestUtils.setField(calentamientoService, "habilitado", false);
+
+        calentamientoService.alArrancar();
+
+        assertEquals(Status.UP, indicador.health().getStatus());
+        verifyNoInteractions(historialCompraRepository);
+    }
+
+    private Health esperarUp() throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Health health = indicador.health();
+        while (health.getStatus() != Status.UP && System.nanoTime() < limite) {
+            Thread.sleep(10);
+            health = indicador.health();
+        }
+        assertEquals(Status.UP, health.getStatus());
+        return health;
+    }
+}
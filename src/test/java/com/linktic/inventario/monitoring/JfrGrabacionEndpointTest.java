@@ -0,0 +1,81 @@
+package com.linktic.inventario.monitoring;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para JfrGrabacionEndpoint y los eventos JFR del servicio
+ */
+class JfrGrabacionEndpointTest {
+
+    private final JfrGrabacionEndpoint endpoint = new JfrGrabacionEndpoint();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        endpoint.destroy();
+    }
+
+    @Test
+    void grabacion_RegistraLasMutacionesConSuIntentoYLasLlamadasAProductos() throws Exception {
+        // Arrange
+        assertEquals(WebEndpointResponse.STATUS_OK, endpoint.ejecutar("iniciar", null, null).getStatus());
+
+        // Act
+        MutacionInventarioEvent.enIntento(2, () -> {
+            MutacionInventarioEvent mutacion = MutacionInventarioEvent.iniciar(7, "VENTA");
+            mutacion.marcarConflictoOptimista();
+            mutacion.finalizar();
+            return null;
+        });
+        LlamadaProductosEvent llamada = LlamadaProductosEvent.iniciar("getProductoById", "7", 1);
+        llamada.finalizar(true, null);
+        assertEquals(WebEndpointResponse.STATUS_OK, endpoint.ejecutar("detener", null, null).getStatus());
+
+        // Assert
+        Resource archivo = endpoint.descargar("archivo").getBody();
+        assertNotNull(archivo);
+        List<RecordedEvent> eventos = RecordingFile.readAllEvents(Path.of(archivo.getURI()));
+
+        RecordedEvent registrada = eventos.stream()
+                .filter(evento -> evento.getEventType().getName().equals("com.linktic.inventario.MutacionInventario"))
+                .filter(evento -> evento.getInt("productoId") == 7)
+                .findFirst()
+                .orElseThrow();
+        assertEquals("VENTA", registrada.getString("operacion"));
+        assertEquals(2, registrada.getInt("intentos"));
+        assertTrue(registrada.getBoolean("conflictoOptimista"));
+        assertFalse(registrada.getBoolean("exitosa"));
+
+        assertTrue(eventos.stream().anyMatch(evento ->
+                evento.getEventType().getName().equals("com.linktic.inventario.LlamadaProductos")
+                        && "7".equals(evento.getString("productoIds")) && evento.getBoolean("exitosa")));
+    }
+
+    @Test
+    void ejecutar_DetenerSinGrabacionEsUnaPeticionInvalida() {
+        // Act
+        WebEndpointResponse<?> respuesta = endpoint.ejecutar("detener", null, null);
+
+        // Assert
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, respuesta.getStatus());
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.descargar("archivo").getStatus());
+    }
+
+    @Test
+    void iniciar_FueraDeUnReintentoElEventoEsElPrimerIntento() {
+        // Act
+        MutacionInventarioEvent evento = MutacionInventarioEvent.iniciar(1, "COMPRA");
+
+        // Assert
+        assertEquals(1, evento.intentos);
+    }
+}
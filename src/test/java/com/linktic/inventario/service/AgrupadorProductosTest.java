@@ -0,0 +1,102 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Producto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para AgrupadorProductos
+ */
+@ExtendWith(MockitoExtension.class)
+class AgrupadorProductosTest {
+
+    @Mock
+    private ProductoClient productoClient;
+
+    @Test
+    void cargar_AgrupaLasConsultasDeLaVentanaEnUnLote() {
+        AgrupadorProductos agrupador = new AgrupadorProductos(productoClient, true, 50, 100, new SimpleMeterRegistry());
+        ocupar(agrupador);
+        when(productoClient.getProductosBatch(List.of(1, 2, 3))).thenReturn(Mono.just(List.of(producto(1), producto(2))));
+        // El lote no devolvió el 3: se confirma con la consulta individual
+        when(productoClient.getProductoById(3)).thenReturn(Mono.empty());
+
+        Mono<Producto> uno = agrupador.cargar(1).cache();
+        Mono<Producto> dos = agrupador.cargar(2).cache();
+        Mono<Producto> dosOtraVez = agrupador.cargar(2).cache();
+        Mono<Producto> tres = agrupador.cargar(3).cache();
+        List.of(uno, dos, dosOtraVez, tres).forEach(Mono::subscribe);
+
+        assertEquals(1, uno.block(Duration.ofSeconds(2)).getId());
+        assertEquals(2, dos.block(Duration.ofSeconds(2)).getId());
+        assertEquals(2, dosOtraVez.block(Duration.ofSeconds(2)).getId());
+        assertNull(tres.block(Duration.ofSeconds(2)));
+        verify(productoClient, times(1)).getProductosBatch(any());
+        verify(productoClient, never()).getProductoById(1);
+    }
+
+    @Test
+    void cargar_DespachaAlAlcanzarElTamanoMaximo() {
+        AgrupadorProductos agrupador = new AgrupadorProductos(productoClient, true, 60_000, 2, new SimpleMeterRegistry());
+        ocupar(agrupador);
+        when(productoClient.getProductosBatch(List.of(1, 2))).thenReturn(Mono.just(List.of(producto(1), producto(2))));
+
+        Mono<Producto> uno = agrupador.cargar(1).cache();
+        uno.subscribe();
+        Producto dos = agrupador.cargar(2).block(Duration.ofSeconds(2));
+
+        assertEquals(2, dos.getId());
+        assertEquals(1, uno.block(Duration.ofSeconds(2)).getId());
+    }
+
+    @Test
+    void cargar_ErrorDelLoteLlegaATodos() {
+        AgrupadorProductos agrupador = new AgrupadorProductos(productoClient, true, 20, 100, new SimpleMeterRegistry());
+        ocupar(agrupador);
+        when(productoClient.getProductosBatch(List.of(1, 2)))
+                .thenReturn(Mono.error(new RuntimeException("Servicio de productos no disponible")));
+
+        Mono<Producto> uno = agrupador.cargar(1).cache();
+        Mono<Producto> dos = agrupador.cargar(2).cache();
+        uno.subscribe(p -> { }, e -> { });
+        dos.subscribe(p -> { }, e -> { });
+
+        assertThrows(RuntimeException.class, () -> uno.block(Duration.ofSeconds(2)));
+        assertThrows(RuntimeException.class, () -> dos.block(Duration.ofSeconds(2)));
+    }
+
+    @Test
+    void cargar_SinOtrasConsultasEnCursoNoEsperaLaVentana() {
+        AgrupadorProductos agrupador = new AgrupadorProductos(productoClient, true, 60_000, 100, new SimpleMeterRegistry());
+        when(productoClient.getProductoById(1)).thenReturn(Mono.just(producto(1)));
+        when(productoClient.getProductoById(2)).thenReturn(Mono.just(producto(2)));
+
+        // Con una ventana de un minuto, solo el despacho inmediato responde a tiempo
+        assertEquals(1, agrupador.cargar(1).block(Duration.ofSeconds(2)).getId());
+        assertEquals(2, agrupador.cargar(2).block(Duration.ofSeconds(2)).getId());
+        verify(productoClient, never()).getProductosBatch(any());
+    }
+
+    /**
+     * Dejar una consulta en curso para que las siguientes se agrupen en la ventana
+     */
+    private void ocupar(AgrupadorProductos agrupador) {
+        when(productoClient.getProductoById(99)).thenReturn(Mono.never());
+        agrupador.cargar(99).subscribe();
+    }
+
+    private Producto producto(int id) {
+        return Producto.builder().id(id).nombre("Producto " + id).build();
+    }
+}
@@ -0,0 +1,206 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.event.InventarioCambiadoEvent;
+import com.linktic.inventario.model.AlertaStock;
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.repository.AlertaStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para AlertaStockService
+ */
+@ExtendWith(MockitoExtension.class)
+class AlertaStockServiceTest {
+
+    @Mock
+    private AlertaStockRepository alertaStockRepository;
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @InjectMocks
+    private AlertaStockService alertaStockService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(alertaStockService, "histeresis", 5);
+    }
+
+    @Test
+    void alConfirmarCambio_CruceHaciaAbajoAbreAlerta() {
+        when(alertaStockRepository.findFirstByProductoIdAndEstado(1, AlertaStock.EstadoAlerta.ACTIVA))
+                .thenReturn(Optional.empty());
+        when(alertaStockRepository.saveAndFlush(any(AlertaStock.class))).thenAnswer(i -> i.getArgument(0));
+        stockActual(8, null);
+
+        alertaStockService.alConfirmarCambio(cambio(12, 8));
+
+        verify(alertaStockRepository).saveAndFlush(argThat(alerta ->
+                alerta.getEstado() == AlertaStock.EstadoAlerta.ACTIVA && alerta.getCantidad() == 8));
+    }
+
+    @Test
+    void alConfirmarCambio_UsaElStockMinimoDelProducto() {
+        when(alertaStockRepository.findFirstByProductoIdAndEstado(1, AlertaStock.EstadoAlerta.ACTIVA))
+                .thenReturn(Optional.empty());
+        when(alertaStockRepository.saveAndFlush(any(AlertaStock.class))).thenAnswer(i -> i.getArgument(0));
+        stockActual(45, 50);
+
+        alertaStockService.alConfirmarCambio(cambio(12, 8, 5));
+        alertaStockService.alConfirmarCambio(cambio(60, 45, 50));
+
+        verify(alertaStockRepository).saveAndFlush(argThat(alerta -> alerta.getUmbral() == 50));
+    }
+
+    @Test
+    void alConfirmarCambio_SinCruceNoConsultaLaTabla() {
+        alertaStockService.alConfirmarCambio(cambio(8, 5));
+        alertaStockService.alConfirmarCambio(cambio(30, 20));
+
+        verifyNoInteractions(alertaStockRepository, inventarioService);
+    }
+
+    @Test
+    void alConfirmarCambio_DecideConElStockActualYNoConElDelEvento() {
+        // Otro commit posterior devolvió el stock a 12 antes de que este listener se ejecutara
+        stockActual(12, null);
+
+        alertaStockService.alConfirmarCambio(cambio(12, 8));
+
+        verifyNoInteractions(alertaStockRepository);
+    }
+
+    @Test
+    void alConfirmarCambio_CambioDeUmbralesReevaluaElProducto() {
+        when(alertaStockRepository.findFirstByProductoIdAndEstado(1, AlertaStock.EstadoAlerta.ACTIVA))
+                .thenReturn(Optional.empty());
+        when(alertaStockRepository.saveAndFlush(any(AlertaStock.class))).thenAnswer(i -> i.getArgument(0));
+        stockActual(20, 25);
+
+        alertaStockService.alConfirmarCambio(new InventarioCambiadoEvent(1, 20, 20, 1L, 25,
+                InventarioCambiadoEvent.OPERACION_UMBRALES, LocalDateTime.now(), InventarioCambiadoEvent.siguienteSecuencia()));
+
+        verify(alertaStockRepository).saveAndFlush(argThat(alerta -> alerta.getUmbral() == 25 && alerta.getCantidad() == 20));
+    }
+
+    @Test
+    void alConfirmarCambio_HisteresisEvitaAlertasDuplicadas() {
+        when(alertaStockRepository.findFirstByProductoIdAndEstado(1, AlertaStock.EstadoAlerta.ACTIVA))
+                .thenReturn(Optional.of(AlertaStock.builder().productoId(1).estado(AlertaStock.EstadoAlerta.ACTIVA).build()));
+        stockActual(9, null);
+
+        // Se recupera por encima del umbral pero sin superar la histéresis y vuelve a bajar
+        alertaStockService.alConfirmarCambio(cambio(8, 12));
+        alertaStockService.alConfirmarCambio(cambio(12, 9));
+
+        verify(alertaStockRepository, never()).saveAndFlush(any());
+        verify(alertaStockRepository, never()).save(any());
+    }
+
+    @Test
+    void alConfirmarCambio_RecuperacionResuelveAlerta() {
+        AlertaStock activa = AlertaStock.builder().id(7L).productoId(1).estado(AlertaStock.EstadoAlerta.ACTIVA).build();
+        when(alertaStockRepository.findFirstByProductoIdAndEstado(1, AlertaStock.EstadoAlerta.ACTIVA))
+                .thenReturn(Optional.of(activa));
+        when(alertaStockRepository.save(any(AlertaStock.class))).thenAnswer(i -> i.getArgument(0));
+        stockActual(40, null);
+
+        alertaStockService.alConfirmarCambio(cambio(9, 40));
+
+        assertEquals(AlertaStock.EstadoAlerta.RESUELTA, activa.getEstado());
+        assertEquals(40, activa.getCantidadResolucion());
+        assertNotNull(activa.getFechaResolucion());
+    }
+
+    @Test
+    void envioAtascado_DesconectaAlSuscriptorSinDetenerALosDemas() throws Exception {
+        CountDownLatch atascado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch recibido = new CountDownLatch(1);
+        List<SseEmitter> emitters = new ArrayList<>(List.of(
+                // Cliente que no lee: el envío sigue bloqueado aunque se interrumpa el hilo
+                new SseEmitter(1000L) {
+                    @Override
+                    public void send(SseEventBuilder evento) {
+                        atascado.countDown();
+                        boolean liberado = false;
+                        while (!liberado) {
+                            try {
+                                liberado = liberar.await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                // Como una escritura bloqueada en el socket, ignora la interrupción
+                            }
+                        }
+                    }
+                },
+                new SseEmitter(1000L) {
+                    @Override
+                    public void send(SseEventBuilder evento) {
+                        recibido.countDown();
+                    }
+                }));
+        AlertaStockService servicio = new AlertaStockService(alertaStockRepository, inventarioService) {
+            @Override
+            SseEmitter crearEmitter(long timeout) {
+                return emitters.remove(0);
+            }
+        };
+        ReflectionTestUtils.setField(servicio, "histeresis", 5);
+        ReflectionTestUtils.setField(servicio, "hilosEnvio", 1);
+        ReflectionTestUtils.setField(servicio, "timeoutEnvioMs", 50L);
+        servicio.iniciar();
+        when(alertaStockRepository.findFirstByProductoIdAndEstado(1, AlertaStock.EstadoAlerta.ACTIVA))
+                .thenReturn(Optional.empty());
+        when(alertaStockRepository.saveAndFlush(any(AlertaStock.class))).thenAnswer(i -> i.getArgument(0));
+        stockActual(8, null);
+
+        try {
+            servicio.suscribir();
+            servicio.suscribir();
+            servicio.alConfirmarCambio(cambio(12, 8));
+            assertTrue(atascado.await(5, TimeUnit.SECONDS));
+
+            // Con el único hilo de envío atascado, el otro suscriptor recibe la alerta igualmente
+            assertTrue(recibido.await(5, TimeUnit.SECONDS));
+            assertEquals(1, servicio.getSuscriptoresActivos());
+        } finally {
+            liberar.countDown();
+            servicio.detener();
+        }
+    }
+
+    private void stockActual(int cantidad, Integer stockMinimo) {
+        when(inventarioService.buscarConCantidadActual(1)).thenReturn(Optional.of(Inventario.builder()
+                .productoId(1)
+                .cantidad(cantidad)
+                .stockMinimo(stockMinimo)
+                .build()));
+    }
+
+    private InventarioCambiadoEvent cambio(int anterior, int actual) {
+        return cambio(anterior, actual, null);
+    }
+
+    private InventarioCambiadoEvent cambio(int anterior, int actual, Integer stockMinimo) {
+        return new InventarioCambiadoEvent(1, actual, anterior, 1L, stockMinimo, "AJUSTE", LocalDateTime.now(),
+                InventarioCambiadoEvent.siguienteSecuencia());
+    }
+}
@@ -0,0 +1,137 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.event.InventarioCambiadoEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para la reanudación del feed de cambios y los envíos atascados
+ */
+class CambiosInventarioServiceTest {
+
+    private CambiosInventarioService cambiosInventarioService;
+
+    @BeforeEach
+    void setUp() {
+        cambiosInventarioService = new CambiosInventarioService();
+        ReflectionTestUtils.setField(cambiosInventarioService, "capacidadHistorial", 4);
+        ReflectionTestUtils.setField(cambiosInventarioService, "maxPendientes", 10);
+        ReflectionTestUtils.setField(cambiosInventarioService, "timeoutMs", 1000L);
+        ReflectionTestUtils.setField(cambiosInventarioService, "latidoSegundos", 60L);
+        ReflectionTestUtils.setField(cambiosInventarioService, "hilosEnvio", 1);
+        cambiosInventarioService.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cambiosInventarioService.detener();
+    }
+
+    @Test
+    void cambiosDesde_DevuelveLosPosterioresAlUltimoEvento() {
+        registrarCambios(3);
+
+        List<CambiosInventarioService.CambioRegistrado> cambios =
+                cambiosInventarioService.cambiosDesde(cambiosInventarioService.idEvento(1));
+
+        assertNotNull(cambios);
+        assertEquals(List.of(2L, 3L), cambios.stream().map(cambio -> cambio.secuencia).toList());
+    }
+
+    @Test
+    void cambiosDesde_FueraDelBufferRequiereReinicio() {
+        registrarCambios(6);
+
+        assertNull(cambiosInventarioService.cambiosDesde(cambiosInventarioService.idEvento(1)));
+        assertEquals(4, cambiosInventarioService.cambiosDesde(cambiosInventarioService.idEvento(2)).size());
+    }
+
+    @Test
+    void cambiosDesde_IdDeOtroArranqueRequiereReinicio() {
+        registrarCambios(2);
+
+        assertNull(cambiosInventarioService.cambiosDesde("otro-1"));
+        assertNull(cambiosInventarioService.cambiosDesde("invalido"));
+    }
+
+    @Test
+    void envioAtascado_DesconectaAlSuscriptorSinDetenerALosDemas() throws Exception {
+        CountDownLatch atascado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch recibido = new CountDownLatch(1);
+        List<SseEmitter> emitters = new ArrayList<>(List.of(
+                // Cliente que no lee: el envío sigue bloqueado aunque se interrumpa el hilo
+                new SseEmitter(1000L) {
+                    @Override
+                    public void send(SseEventBuilder evento) {
+                        atascado.countDown();
+                        boolean liberado = false;
+                        while (!liberado) {
+                            try {
+                                liberado = liberar.await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                // Como una escritura bloqueada en el socket, ignora la interrupción
+                            }
+                        }
+                    }
+                },
+                new SseEmitter(1000L) {
+                    @Override
+                    public void send(SseEventBuilder evento) {
+                        recibido.countDown();
+                    }
+                }));
+        cambiosInventarioService.detener();
+        cambiosInventarioService = new CambiosInventarioService() {
+            @Override
+            SseEmitter crearEmitter(long timeout) {
+                return emitters.remove(0);
+            }
+        };
+        ReflectionTestUtils.setField(cambiosInventarioService, "capacidadHistorial", 4);
+        ReflectionTestUtils.setField(cambiosInventarioService, "maxPendientes", 10);
+        ReflectionTestUtils.setField(cambiosInventarioService, "timeoutMs", 1000L);
+        ReflectionTestUtils.setField(cambiosInventarioService, "latidoSegundos", 60L);
+        ReflectionTestUtils.setField(cambiosInventarioService, "hilosEnvio", 1);
+        ReflectionTestUtils.setField(cambiosInventarioService, "timeoutEnvioMs", 50L);
+        cambiosInventarioService.iniciar();
+
+        try {
+            cambiosInventarioService.suscribir(Set.of(1), null);
+            cambiosInventarioService.suscribir(Set.of(2), null);
+            registrarCambio(1);
+            assertTrue(atascado.await(5, TimeUnit.SECONDS));
+            registrarCambio(2);
+
+            // Con el único hilo de envío atascado, el otro suscriptor recibe su cambio igualmente
+            assertTrue(recibido.await(5, TimeUnit.SECONDS));
+            assertEquals(1, cambiosInventarioService.getSuscriptoresActivos());
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    private void registrarCambios(int cantidad) {
+        for (int i = 1; i <= cantidad; i++) {
+            registrarCambio(i);
+        }
+    }
+
+    private void registrarCambio(int productoId) {
+        cambiosInventarioService.alConfirmarCambio(new InventarioCambiadoEvent(productoId, productoId * 10, 0,
+                (long) productoId, null, "AJUSTE", LocalDateTime.now(), InventarioCambiadoEvent.siguienteSecuencia()));
+    }
+}
@@ -0,0 +1,66 @@
+package com.linktic.inventario.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para CoberturaSolicitudes
+ */
+class CoberturaSolicitudesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void cubrir_LaCoberturaGanaSiLaOriginalSeRetrasa() {
+        CoberturaSolicitudes cobertura = new CoberturaSolicitudes(true, 95, 10, 1, 100, meterRegistry);
+        cobertura.registrarLatencia(System.nanoTime());
+        AtomicInteger llamadas = new AtomicInteger();
+
+        String resultado = cobertura.cubrir(() -> llamadas.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofSeconds(5)).thenReturn("original")
+                        : Mono.just("cobertura"))
+                .block(Duration.ofSeconds(2));
+
+        assertEquals("cobertura", resultado);
+        assertEquals(2, llamadas.get());
+        assertEquals(1.0, meterRegistry.get("productos.cobertura.ganadas").counter().count());
+    }
+
+    @Test
+    void cubrir_SinPresupuestoNoLanzaCobertura() {
+        CoberturaSolicitudes cobertura = new CoberturaSolicitudes(true, 95, 10, 1, 5, meterRegistry);
+        cobertura.registrarLatencia(System.nanoTime());
+        AtomicInteger llamadas = new AtomicInteger();
+
+        String resultado = cobertura.cubrir(() -> {
+                    llamadas.incrementAndGet();
+                    return Mono.delay(Duration.ofMillis(100)).thenReturn("original");
+                })
+                .block(Duration.ofSeconds(2));
+
+        assertEquals("original", resultado);
+        assertEquals(1, llamadas.get());
+        assertEquals(1.0, meterRegistry.get("productos.cobertura.denegadas").counter().count());
+    }
+
+    @Test
+    void cubrir_SinMuestrasSuficientesNoCubre() {
+        CoberturaSolicitudes cobertura = new CoberturaSolicitudes(true, 95, 10, 50, 100, meterRegistry);
+        AtomicInteger llamadas = new AtomicInteger();
+
+        cobertura.cubrir(() -> {
+                    llamadas.incrementAndGet();
+                    return Mono.delay(Duration.ofMillis(50)).thenReturn("original");
+                })
+                .block(Duration.ofSeconds(2));
+
+        assertEquals(1, llamadas.get());
+        assertEquals(-1, cobertura.getRetrasoMs());
+    }
+}
@@ -0,0 +1,88 @@
+package com.linktic.inventario.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para EstadisticasInventarioCache
+ */
+@ExtendWith(MockitoExtension.class)
+class EstadisticasInventarioCacheTest {
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @Test
+    void obtener_UnSoloCalculoParaLasSolicitudesConcurrentes() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(inventarioService.getEstadisticasInventario()).thenAnswer(invocation -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return estadisticas(3);
+        });
+        EstadisticasInventarioCache cache = new EstadisticasInventarioCache(inventarioService, 60_000, 50_000);
+        ExecutorService solicitantes = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<InventarioService.InventarioStats>> respuestas = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                respuestas.add(solicitantes.submit(cache::obtener));
+            }
+            Thread.sleep(50);
+            liberar.countDown();
+
+            for (Future<InventarioService.InventarioStats> respuesta : respuestas) {
+                InventarioService.InventarioStats stats = respuesta.get(5, TimeUnit.SECONDS);
+                assertEquals(3, stats.getTotalProductos());
+                assertFalse(stats.getMeta().isDesactualizado());
+            }
+            verify(inventarioService, times(1)).getEstadisticasInventario();
+        } finally {
+            solicitantes.shutdownNow();
+        }
+    }
+
+    @Test
+    void obtener_RefrescoAnticipadoSirveElValorActualMientrasRecalcula() throws Exception {
+        when(inventarioService.getEstadisticasInventario()).thenReturn(estadisticas(1), estadisticas(2));
+        EstadisticasInventarioCache cache = new EstadisticasInventarioCache(inventarioService, 60_000, 0);
+
+        assertEquals(1, cache.obtener().getTotalProductos());
+        // Umbral de refresco 0: esta lectura sirve el valor actual y lanza el recálculo
+        assertEquals(1, cache.obtener().getTotalProductos());
+
+        verify(inventarioService, timeout(2000).times(2)).getEstadisticasInventario();
+        Thread.sleep(50);
+        assertEquals(2, cache.obtener().getTotalProductos());
+    }
+
+    @Test
+    void obtener_SiElCalculoFallaSirveElUltimoValorComoDesactualizado() throws Exception {
+        when(inventarioService.getEstadisticasInventario())
+                .thenReturn(estadisticas(5))
+                .thenThrow(new RuntimeException("Base de datos no disponible"));
+        EstadisticasInventarioCache cache = new EstadisticasInventarioCache(inventarioService, 1, 1);
+
+        cache.obtener();
+        Thread.sleep(5);
+        InventarioService.InventarioStats stats = cache.obtener();
+
+        assertEquals(5, stats.getTotalProductos());
+        assertTrue(stats.getMeta().isDesactualizado());
+    }
+
+    private InventarioService.InventarioStats estadisticas(long totalProductos) {
+        return InventarioService.InventarioStats.builder().totalProductos(totalProductos).build();
+    }
+}
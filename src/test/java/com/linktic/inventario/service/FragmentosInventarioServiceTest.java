@@ -0,0 +1,124 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para FragmentosInventarioService
+ */
+@ExtendWith(MockitoExtension.class)
+class FragmentosInventarioServiceTest {
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private FragmentosInventarioService fragmentosInventarioService;
+
+    @BeforeEach
+    void setUp() {
+        fragmentosInventarioService = new FragmentosInventarioService(inventarioRepository, transactionTemplate, 8, 0);
+    }
+
+    @Test
+    void decrementar_DescuentaDeUnFragmentoConUnidadesSuficientes() {
+        // Arrange
+        when(inventarioRepository.leerFragmentos(1)).thenReturn(new int[]{2, 10, 3});
+        when(inventarioRepository.decrementarFragmento(1, 1, 5)).thenReturn(true);
+
+        // Act
+        int restante = fragmentosInventarioService.decrementar(1, 5);
+
+        // Assert
+        assertEquals(10, restante);
+        verify(inventarioRepository, never()).bloquearFragmentos(any());
+    }
+
+    @Test
+    void decrementar_FragmentoVaciadoPorOtraVentaEsConflicto() {
+        when(inventarioRepository.leerFragmentos(1)).thenReturn(new int[]{0, 10});
+        when(inventarioRepository.decrementarFragmento(1, 1, 5)).thenReturn(false);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> fragmentosInventarioService.decrementar(1, 5));
+        verify(inventarioRepository, never()).fijarFragmentos(any(), any());
+    }
+
+    @Test
+    void decrementar_SinFragmentoSuficienteDescuentaEntreVariosBloqueados() {
+        // Arrange
+        when(inventarioRepository.leerFragmentos(1)).thenReturn(new int[]{3, 4, 2});
+        when(inventarioRepository.bloquearFragmentos(1)).thenReturn(new int[]{3, 4, 2});
+
+        // Act
+        int restante = fragmentosInventarioService.decrementar(1, 6);
+
+        // Assert
+        assertEquals(3, restante);
+        verify(inventarioRepository).fijarFragmentos(eq(1), aryEq(new int[]{0, 1, 2}));
+    }
+
+    @Test
+    void decrementar_StockInsuficiente() {
+        when(inventarioRepository.leerFragmentos(1)).thenReturn(new int[]{3, 4});
+        when(inventarioRepository.bloquearFragmentos(1)).thenReturn(new int[]{3, 4});
+
+        assertThrows(IllegalArgumentException.class, () -> fragmentosInventarioService.decrementar(1, 8));
+        verify(inventarioRepository, never()).fijarFragmentos(any(), any());
+    }
+
+    @Test
+    void fragmentar_RepartePorIgualYConsolidaLaSuma() {
+        // Arrange
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(Inventario.builder().productoId(1).cantidad(10).build());
+
+        // Act
+        Inventario inventario = fragmentosInventarioService.fragmentar(1, 4);
+
+        // Assert
+        assertEquals(4, inventario.getFragmentos());
+        assertEquals(10, inventario.getCantidad());
+        verify(inventarioRepository).fijarFragmentos(eq(1), aryEq(new int[]{3, 3, 2, 2}));
+        verify(inventarioRepository).actualizarConsolidado(1, 10, 4);
+        assertThrows(IllegalArgumentException.class, () -> fragmentosInventarioService.fragmentar(1, 9));
+    }
+
+    @Test
+    void rebalancear_IgualaFragmentosYActualizaLaCantidadConsolidada() {
+        // Arrange
+        when(transactionTemplate.execute(any())).thenAnswer(i -> ((TransactionCallback<?>) i.getArgument(0)).doInTransaction(null));
+        when(inventarioRepository.buscarProductosFragmentados()).thenReturn(List.of(1, 2));
+        when(inventarioRepository.bloquearInventario(1))
+                .thenReturn(Inventario.builder().productoId(1).cantidad(20).fragmentos(2).build());
+        when(inventarioRepository.bloquearFragmentos(1)).thenReturn(new int[]{9, 0});
+        when(inventarioRepository.bloquearInventario(2))
+                .thenReturn(Inventario.builder().productoId(2).cantidad(7).fragmentos(2).build());
+        when(inventarioRepository.bloquearFragmentos(2)).thenReturn(new int[]{4, 3});
+
+        // Act
+        int rebalanceados = fragmentosInventarioService.rebalancear();
+
+        // Assert
+        assertEquals(1, rebalanceados);
+        verify(inventarioRepository).fijarFragmentos(eq(1), aryEq(new int[]{5, 4}));
+        verify(inventarioRepository).actualizarConsolidado(1, 9, 2);
+        verify(inventarioRepository, never()).fijarFragmentos(eq(2), any());
+        verify(inventarioRepository, never()).actualizarConsolidado(eq(2), anyInt(), anyInt());
+    }
+}
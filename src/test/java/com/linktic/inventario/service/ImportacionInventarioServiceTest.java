@@ -0,0 +1,141 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.event.InventarioCambiadoEvent;
+import com.linktic.inventario.model.HistorialCompra;
+import com.linktic.inventario.model.ImportacionInventario;
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.repository.HistorialCompraRepository;
+import com.linktic.inventario.repository.ImportacionInventarioRepository;
+import com.linktic.inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ImportacionInventarioService
+ */
+@ExtendWith(MockitoExtension.class)
+class ImportacionInventarioServiceTest {
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private HistorialCompraRepository historialCompraRepository;
+
+    @Mock
+    private ImportacionInventarioRepository importacionInventarioRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private LibroMayorInventarioService libroMayorInventarioService;
+
+    @Mock
+    private ReservaStockService reservaStockService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ImportacionInventarioService importacionInventarioService;
+
+    private ImportacionInventario importacion;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(importacionInventarioService, "tamanoLote", 2);
+        importacion = ImportacionInventario.builder().id("imp-1").build();
+
+        when(transactionTemplate.execute(any())).thenAnswer(i -> ((TransactionCallback<?>) i.getArgument(0)).doInTransaction(null));
+        when(importacionInventarioRepository.findById("imp-1")).thenAnswer(i -> Optional.of(importacion));
+        when(importacionInventarioRepository.saveAndFlush(any(ImportacionInventario.class))).thenAnswer(i -> i.getArgument(0));
+    }
+
+    @Test
+    void importar_ProcesaPorLotesYRechazaFilasInvalidas() {
+        Map<Integer, Integer> existentes = new HashMap<>();
+        existentes.put(1, 25);
+        existentes.put(2, null);
+        existentes.put(3, 50);
+        when(inventarioRepository.bloquearCantidadesActuales(any()))
+                .thenAnswer(i -> new HashMap<>(existentes));
+
+        ImportacionInventario resultado = importacionInventarioService.importar(
+                csv("producto_id,cantidad\n1,30\n2,10\n3,50\n99,5\nabc\n"), "imp-1");
+
+        assertEquals(ImportacionInventario.EstadoImportacion.COMPLETADA, resultado.getEstado());
+        assertEquals(5, resultado.getLineasProcesadas());
+        assertEquals(3, resultado.getFilasImportadas());
+        assertEquals(2, resultado.getFilasRechazadas());
+        verify(inventarioRepository, times(2)).upsertCantidades(anyList());
+
+        // La fila sin cambios (3 -> 50) no genera historial
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<HistorialCompra>> historial = ArgumentCaptor.forClass(List.class);
+        verify(historialCompraRepository).insertarLote(historial.capture());
+        assertEquals(List.of(1, 2), historial.getValue().stream().map(HistorialCompra::getProductoId).toList());
+    }
+
+    @Test
+    void importar_ReanudaTrasLasLineasConfirmadas() {
+        importacion.setEstado(ImportacionInventario.EstadoImportacion.FALLIDA);
+        importacion.setLineasProcesadas(2);
+        importacion.setFilasImportadas(2);
+        when(inventarioRepository.bloquearCantidadesActuales(any())).thenAnswer(i -> {
+            Map<Integer, Integer> cantidades = new HashMap<>();
+            cantidades.put(3, 0);
+            return cantidades;
+        });
+
+        ImportacionInventario resultado = importacionInventarioService.importar(csv("1,30\n2,10\n3,7\n"), "imp-1");
+
+        assertEquals(ImportacionInventario.EstadoImportacion.COMPLETADA, resultado.getEstado());
+        assertEquals(3, resultado.getLineasProcesadas());
+        assertEquals(3, resultado.getFilasImportadas());
+        verify(inventarioRepository).upsertCantidades(argThat((List<Inventario> filas) ->
+                filas.size() == 1 && filas.get(0).getProductoId() == 3));
+    }
+
+    @Test
+    void importar_RespetaLasReservasYPublicaLosCambiosDelLote() {
+        when(inventarioRepository.bloquearCantidadesActuales(any())).thenAnswer(i -> new HashMap<>(Map.of(1, 25, 2, 40)));
+        when(reservaStockService.cantidadRetenida(anyInt())).thenAnswer(i -> i.getArgument(0).equals(2) ? 15 : 0);
+        when(inventarioRepository.bloquearInventarios(any())).thenAnswer(i -> List.of(
+                Inventario.builder().productoId(1).cantidad(5).version(3L).stockMinimo(8).build()));
+
+        ImportacionInventario resultado = importacionInventarioService.importar(csv("1,5\n2,10\n"), "imp-1");
+
+        assertEquals(1, resultado.getFilasImportadas());
+        assertEquals(1, resultado.getFilasRechazadas());
+        assertTrue(resultado.getUltimoError().contains("15 unidades reservadas"));
+        verify(inventarioRepository).bloquearInventarios(argThat(ids -> ids.size() == 1 && ids.contains(1)));
+        verify(eventPublisher).publishEvent(argThat((Object evento) -> evento instanceof InventarioCambiadoEvent cambio
+                && cambio.getProductoId() == 1 && cambio.getCantidad() == 5 && cambio.getCantidadAnterior() == 25
+                && cambio.getStockMinimo() == 8 && "IMPORTACION".equals(cambio.getOperacion())));
+    }
+
+    private ByteArrayInputStream csv(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,23 +1,34 @@
 package com.linktic.inventario.service;
 
+import com.linktic.inventario.dto.InventarioColeccion;
 import com.linktic.inventario.dto.InventarioResponse;
+import com.linktic.inventario.dto.PedidoRequest;
+import com.linktic.inventario.event.InventarioCambiadoEvent;
 import com.linktic.inventario.model.HistorialCompra;
 import com.linktic.inventario.model.Inventario;
 import com.linktic.inventario.model.Producto;
+import com.linktic.inventario.model.ReservaStock;
 import com.linktic.inventario.repository.HistorialCompraRepository;
 import com.linktic.inventario.repository.InventarioRepository;
+import com.linktic.inventario.repository.UpsertInventarioResultado;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -38,6 +49,21 @@ class InventarioServiceTest {
     @Mock
     private ProductoService productoService;
 
+    @Mock
+    private ReservaStockService reservaStockService;
+
+    @Mock
+    private FragmentosInventarioService fragmentosInventarioService;
+
+    @Mock
+    private LibroMayorInventarioService libroMayorInventarioService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private InventarioService inventarioService;
 
@@ -114,9 +140,10 @@ class InventarioServiceTest {
     @Test
     void actualizarCantidad_Success() {
         // Arrange
+        inventario.setCantidad(150);
         when(productoService.productoExists(1)).thenReturn(Mono.just(true));
-        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
-        when(inventarioRepository.save(any(Inventario.class))).thenReturn(inventario);
+        when(inventarioRepository.upsertCantidad(1, 150))
+                .thenReturn(new UpsertInventarioResultado(inventario, 100, false));
         when(productoService.getProductoById(1)).thenReturn(Mono.just(producto));
         when(historialCompraRepository.save(any(HistorialCompra.class))).thenReturn(new HistorialCompra());
 
@@ -127,8 +154,10 @@ class InventarioServiceTest {
         assertNotNull(response);
         assertEquals("1", response.getData().getId());
         assertEquals(150, response.getData().getAttributes().getCantidad());
-        verify(inventarioRepository).save(any(Inventario.class));
-        verify(historialCompraRepository).save(any(HistorialCompra.class));
+        verify(inventarioRepository).upsertCantidad(1, 150);
+        verify(inventarioRepository, never()).findByProductoId(any());
+        verify(historialCompraRepository).save(argThat(historial ->
+                historial.getCantidad() == 50 && historial.getObservaciones().contains("100 -> 150")));
     }
 
     @Test
@@ -137,15 +166,30 @@ class InventarioServiceTest {
         assertThrows(IllegalArgumentException.class, () -> {
             inventarioService.actualizarCantidad(1, -10);
         });
-        verify(inventarioRepository, never()).save(any());
+        verify(inventarioRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void actualizarCantidad_NoBajaDeLasUnidadesReservadas() {
+        // Arrange
+        inventario.setCantidad(20);
+        when(productoService.productoExists(1)).thenReturn(Mono.just(true));
+        when(inventarioRepository.upsertCantidad(1, 20))
+                .thenReturn(new UpsertInventarioResultado(inventario, 100, false));
+        when(reservaStockService.cantidadRetenida(1)).thenReturn(30);
+
+        // Act & Assert: la excepción revierte la escritura
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.actualizarCantidad(1, 20));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void actualizarCantidad_CrearNuevoInventario() {
         // Arrange
+        inventario.setCantidad(50);
         when(productoService.productoExists(1)).thenReturn(Mono.just(true));
-        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.empty());
-        when(inventarioRepository.save(any(Inventario.class))).thenReturn(inventario);
+        when(inventarioRepository.upsertCantidad(1, 50))
+                .thenReturn(new UpsertInventarioResultado(inventario, 0, true));
         when(productoService.getProductoById(1)).thenReturn(Mono.just(producto));
         when(historialCompraRepository.save(any(HistorialCompra.class))).thenReturn(new HistorialCompra());
 
@@ -154,7 +198,8 @@ class InventarioServiceTest {
 
         // Assert
         assertNotNull(response);
-        verify(inventarioRepository).save(any(Inventario.class));
+        assertEquals(50, response.getData().getAttributes().getCantidad());
+        verify(inventarioRepository).upsertCantidad(1, 50);
     }
 
     @Test
@@ -162,7 +207,7 @@ class InventarioServiceTest {
         // Arrange
         when(productoService.productoExists(1)).thenReturn(Mono.just(true));
         when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
-        when(inventarioRepository.save(any(Inventario.class))).thenReturn(inventario);
+        when(inventarioRepository.saveAndFlush(any(Inventario.class))).thenReturn(inventario);
         when(productoService.getProductoById(1)).thenReturn(Mono.just(producto));
         when(historialCompraRepository.save(any(HistorialCompra.class))).thenReturn(new HistorialCompra());
 
@@ -173,17 +218,40 @@ class InventarioServiceTest {
         assertNotNull(response);
         assertEquals("1", response.getData().getId());
         assertEquals(125, response.getData().getAttributes().getCantidad());
-        verify(inventarioRepository).save(any(Inventario.class));
+        verify(inventarioRepository).saveAndFlush(any(Inventario.class));
         verify(historialCompraRepository).save(any(HistorialCompra.class));
     }
 
+    @Test
+    void incrementarCantidad_LibroMayorPublicaElSaldoReleidoTrasElCommit() {
+        // Arrange
+        when(libroMayorInventarioService.isHabilitado()).thenReturn(true);
+        when(productoService.productoExists(1)).thenReturn(Mono.just(true));
+        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
+        // El saldo de la compra no incluye otra compra concurrente aún sin confirmar
+        when(libroMayorInventarioService.registrarEntrada(1, 25, null)).thenReturn(125);
+        when(libroMayorInventarioService.saldo(1)).thenReturn(140);
+        when(productoService.getProductoById(1)).thenReturn(Mono.just(producto));
+
+        // Act
+        inventarioService.incrementarCantidad(1, 25, null);
+        inventarioService.incrementarCantidad(1, 25, null);
+
+        // Assert
+        ArgumentCaptor<InventarioCambiadoEvent> cambios = ArgumentCaptor.forClass(InventarioCambiadoEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(cambios.capture());
+        assertEquals(140, cambios.getValue().getCantidad());
+        assertEquals(115, cambios.getValue().getCantidadAnterior());
+        assertTrue(cambios.getAllValues().get(0).getSecuencia() < cambios.getAllValues().get(1).getSecuencia());
+    }
+
     @Test
     void incrementarCantidad_CantidadInvalida() {
         // Act & Assert
         assertThrows(IllegalArgumentException.class, () -> {
             inventarioService.incrementarCantidad(1, 0, new BigDecimal("10.50"));
         });
-        verify(inventarioRepository, never()).save(any());
+        verify(inventarioRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -191,7 +259,8 @@ class InventarioServiceTest {
         // Arrange
         when(productoService.productoExists(1)).thenReturn(Mono.just(true));
         when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
-        when(inventarioRepository.save(any(Inventario.class))).thenReturn(inventario);
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(inventario);
+        when(inventarioRepository.saveAndFlush(any(Inventario.class))).thenReturn(inventario);
         when(productoService.getProductoById(1)).thenReturn(Mono.just(producto));
         when(historialCompraRepository.save(any(HistorialCompra.class))).thenReturn(new HistorialCompra());
 
@@ -202,8 +271,59 @@ class InventarioServiceTest {
         assertNotNull(response);
         assertEquals("1", response.getData().getId());
         assertEquals(75, response.getData().getAttributes().getCantidad());
-        verify(inventarioRepository).save(any(Inventario.class));
+        verify(inventarioRepository).saveAndFlush(any(Inventario.class));
         verify(historialCompraRepository).save(any(HistorialCompra.class));
+        verify(eventPublisher).publishEvent(argThat((Object evento) -> evento instanceof InventarioCambiadoEvent cambio
+                && cambio.getCantidad() == 75 && cambio.getCantidadAnterior() == 100
+                && "VENTA".equals(cambio.getOperacion())));
+    }
+
+    @Test
+    void decrementarCantidad_StockFragmentadoNoEscribeLaFilaDeInventario() {
+        // Arrange
+        inventario.setFragmentos(4);
+        when(productoService.productoExists(1)).thenReturn(Mono.just(true));
+        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
+        when(inventarioRepository.bloquearInventarioCompartido(1)).thenReturn(inventario);
+        when(fragmentosInventarioService.decrementar(1, 25)).thenReturn(95);
+        when(productoService.getProductoById(1)).thenReturn(Mono.just(producto));
+        // Tras el commit se relee la suma: otra venta concurrente dejó 90
+        when(fragmentosInventarioService.cantidadTotal(1)).thenReturn(90);
+
+        // Act
+        InventarioResponse response = inventarioService.decrementarCantidad(1, 25, new BigDecimal("15.00"));
+
+        // Assert
+        assertEquals(95, response.getData().getAttributes().getCantidad());
+        assertEquals(100, inventario.getCantidad());
+        verify(inventarioRepository, never()).saveAndFlush(any());
+        // La comprobación de stock no lee la suma; solo la relectura posterior al commit
+        verify(fragmentosInventarioService, times(1)).cantidadTotal(1);
+        verify(eventPublisher).publishEvent(argThat((Object evento) -> evento instanceof InventarioCambiadoEvent cambio
+                && cambio.getCantidad() == 90 && cambio.getCantidadAnterior() == 115));
+    }
+
+    @Test
+    void decrementarCantidad_LibroMayorSoloAnadeElMovimiento() {
+        // Arrange
+        when(libroMayorInventarioService.isHabilitado()).thenReturn(true);
+        when(productoService.productoExists(1)).thenReturn(Mono.just(true));
+        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(inventario);
+        when(reservaStockService.cantidadRetenida(1)).thenReturn(5);
+        when(libroMayorInventarioService.registrarSalida(1, 25, 5, null)).thenReturn(130);
+        when(productoService.getProductoById(1)).thenReturn(Mono.just(producto));
+        when(libroMayorInventarioService.saldo(1)).thenReturn(105);
+
+        // Act
+        InventarioResponse response = inventarioService.decrementarCantidad(1, 25, null);
+
+        // Assert
+        assertEquals(105, response.getData().getAttributes().getCantidad());
+        verify(inventarioRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(historialCompraRepository);
+        verify(eventPublisher).publishEvent(argThat((Object evento) -> evento instanceof InventarioCambiadoEvent cambio
+                && cambio.getCantidad() == 105 && cambio.getCantidadAnterior() == 130));
     }
 
     @Test
@@ -211,12 +331,73 @@ class InventarioServiceTest {
         // Arrange
         when(productoService.productoExists(1)).thenReturn(Mono.just(true));
         when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(inventario);
 
         // Act & Assert
         assertThrows(IllegalArgumentException.class, () -> {
             inventarioService.decrementarCantidad(1, 150, new BigDecimal("15.00"));
         });
-        verify(inventarioRepository, never()).save(any());
+        verify(inventarioRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void decrementarCantidad_CompruebaElStockDeLaLecturaBloqueada() {
+        // Arrange: entre la primera lectura y el bloqueo se confirmó otra venta que dejó 20 unidades
+        Inventario bloqueado = inventario.toBuilder().cantidad(20).build();
+        when(productoService.productoExists(1)).thenReturn(Mono.just(true));
+        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(bloqueado);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> {
+            inventarioService.decrementarCantidad(1, 25, new BigDecimal("15.00"));
+        });
+        verify(inventarioRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void decrementarCantidad_StockRetenidoPorReservas() {
+        // Arrange
+        when(productoService.productoExists(1)).thenReturn(Mono.just(true));
+        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(inventario);
+        when(reservaStockService.cantidadRetenida(1)).thenReturn(80);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> {
+            inventarioService.decrementarCantidad(1, 25, new BigDecimal("15.00"));
+        });
+        verify(inventarioRepository, never()).saveAndFlush(any());
+        // Lo retenido se lee con la fila ya bloqueada, para ordenarse con las reservas concurrentes
+        InOrder orden = inOrder(inventarioRepository, reservaStockService);
+        orden.verify(inventarioRepository).bloquearInventario(1);
+        orden.verify(reservaStockService).cantidadRetenida(1);
+    }
+
+    @Test
+    void confirmarReserva_ConsumeSuPropiaRetencion() {
+        // Arrange
+        ReservaStock reserva = ReservaStock.builder()
+                .id("reserva-1")
+                .productoId(1)
+                .cantidad(80)
+                .estado(ReservaStock.EstadoReserva.CONFIRMANDO)
+                .build();
+        when(reservaStockService.iniciarConfirmacion("reserva-1")).thenReturn(reserva);
+        when(reservaStockService.cantidadRetenida(1)).thenReturn(80);
+        when(productoService.productoExists(1)).thenReturn(Mono.just(true));
+        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(inventario);
+        when(inventarioRepository.saveAndFlush(any(Inventario.class))).thenReturn(inventario);
+        when(productoService.getProductoById(1)).thenReturn(Mono.just(producto));
+
+        // Act
+        InventarioResponse response = inventarioService.confirmarReserva("reserva-1");
+
+        // Assert
+        assertEquals(20, response.getData().getAttributes().getCantidad());
+        verify(reservaStockService).finalizarConfirmacion("reserva-1");
+        verify(reservaStockService, never()).cancelarConfirmacion(any());
     }
 
     @Test
@@ -236,6 +417,42 @@ class InventarioServiceTest {
         verify(inventarioRepository).findProductosConStockBajo(10);
     }
 
+    @Test
+    void getInventariosConStockBajo_SinCantidadUsaStockMinimoPorProducto() {
+        // Arrange
+        when(inventarioRepository.findProductosBajoStockMinimo()).thenReturn(List.of(inventario));
+        when(productoService.getProductoById(1)).thenReturn(Mono.just(producto));
+
+        // Act
+        List<Inventario> response = inventarioService.getInventariosConStockBajo(null);
+
+        // Assert
+        assertEquals(1, response.size());
+        verify(inventarioRepository, never()).findProductosConStockBajo(any());
+    }
+
+    @Test
+    void actualizarUmbrales_PublicaUnCambioParaReevaluarLasAlertas() {
+        // Arrange
+        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(inventario));
+        when(inventarioRepository.saveAndFlush(inventario)).thenReturn(inventario);
+
+        // Act
+        inventarioService.actualizarUmbrales(1, 120, null);
+
+        // Assert
+        verify(eventPublisher).publishEvent(argThat((Object evento) -> evento instanceof InventarioCambiadoEvent cambio
+                && cambio.getStockMinimo() == 120 && cambio.getCantidad() == 100 && cambio.getCantidadAnterior() == 100
+                && InventarioCambiadoEvent.OPERACION_UMBRALES.equals(cambio.getOperacion())));
+    }
+
+    @Test
+    void inventario_UmbralesInvalidos() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> inventario.actualizarUmbrales(20, 10));
+        assertThrows(IllegalArgumentException.class, () -> inventario.actualizarUmbrales(-1, null));
+    }
+
     @Test
     void getProductosSinStock_Success() {
         // Arrange
@@ -252,13 +469,158 @@ class InventarioServiceTest {
         verify(inventarioRepository).findProductosSinStock();
     }
 
+    @Test
+    void getInventariosPorIds_UnaConsultaYUnLoteConErroresPorId() {
+        // Arrange
+        Inventario otro = Inventario.builder().productoId(3).cantidad(7).build();
+        when(inventarioRepository.findAllById(List.of(3, 1, 5))).thenReturn(List.of(inventario, otro));
+        when(productoService.getProductosBatch(List.of(3, 1))).thenReturn(Mono.just(List.of(producto)));
+
+        // Act
+        InventarioColeccion coleccion = inventarioService.getInventariosPorIds(List.of(3, 1, 5, 3));
+
+        // Assert
+        assertEquals(List.of(3, 1), coleccion.getInventarios().stream().map(Inventario::getProductoId).toList());
+        assertEquals(List.of(producto), coleccion.getProductos());
+        assertEquals(List.of(5), coleccion.getProductosSinInventario());
+        verify(productoService, never()).getProductoById(anyInt());
+    }
+
+    @Test
+    void getInventariosPorIds_FragmentadosSumanSusFragmentosConUnaConsulta() {
+        // Arrange
+        inventario.setFragmentos(4);
+        Inventario fragmentado = Inventario.builder().productoId(3).cantidad(7).fragmentos(2).build();
+        Inventario simple = Inventario.builder().productoId(5).cantidad(9).build();
+        when(inventarioRepository.findAllById(List.of(1, 3, 5))).thenReturn(List.of(inventario, fragmentado, simple));
+        when(inventarioRepository.sumarFragmentos(List.of(1, 3))).thenReturn(Map.of(1, 42, 3, 4));
+        when(productoService.getProductosBatch(List.of(1, 3, 5))).thenReturn(Mono.just(List.of(producto)));
+
+        // Act
+        InventarioColeccion coleccion = inventarioService.getInventariosPorIds(List.of(1, 3, 5));
+
+        // Assert
+        assertEquals(List.of(42, 4, 9), coleccion.getInventarios().stream().map(Inventario::getCantidad).toList());
+        verify(fragmentosInventarioService, never()).cantidadTotal(anyInt());
+    }
+
+    @Test
+    void getInventariosPorIds_ConLibroMayorUsaLosSaldosDelLoteYSumaLosFragmentadosSinSaldo() {
+        // Arrange
+        Inventario fragmentado = Inventario.builder().productoId(3).cantidad(7).fragmentos(2).build();
+        when(libroMayorInventarioService.isHabilitado()).thenReturn(true);
+        when(inventarioRepository.findAllById(List.of(1, 3))).thenReturn(List.of(inventario, fragmentado));
+        when(inventarioRepository.calcularSaldos(List.of(1, 3))).thenReturn(Map.of(1, 60));
+        when(inventarioRepository.sumarFragmentos(List.of(3))).thenReturn(Map.of(3, 4));
+        when(productoService.getProductosBatch(List.of(1, 3))).thenReturn(Mono.just(List.of(producto)));
+
+        // Act
+        InventarioColeccion coleccion = inventarioService.getInventariosPorIds(List.of(1, 3));
+
+        // Assert
+        assertEquals(List.of(60, 4), coleccion.getInventarios().stream().map(Inventario::getCantidad).toList());
+        verify(libroMayorInventarioService, never()).saldo(anyInt());
+    }
+
+    @Test
+    void getInventariosPorIds_DemasiadosIds() {
+        List<Integer> ids = IntStream.rangeClosed(1, 201).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.getInventariosPorIds(ids));
+        verifyNoInteractions(inventarioRepository);
+    }
+
+    @Test
+    void decrementarPedido_BloqueaEnOrdenYDescuentaEnUnSoloLote() {
+        // Arrange
+        Producto otroProducto = Producto.builder().id(3).nombre("Otro").build();
+        Inventario otro = Inventario.builder().productoId(3).cantidad(7).version(2L).build();
+        when(productoService.getProductosBatch(List.of(1, 3))).thenReturn(Mono.just(List.of(producto, otroProducto)));
+        when(inventarioRepository.bloquearInventarios(List.of(1, 3))).thenReturn(List.of(inventario, otro));
+        when(inventarioRepository.decrementarCantidades(Map.of(1, 15, 3, 2))).thenReturn(2);
+
+        // Act
+        InventarioColeccion coleccion = inventarioService.decrementarPedido(List.of(
+                linea(3, 2), linea(1, 10), linea(1, 5)));
+
+        // Assert
+        assertEquals(List.of(85, 5), coleccion.getInventarios().stream().map(Inventario::getCantidad).toList());
+        assertEquals(3L, coleccion.getInventarios().get(1).getVersion());
+        verify(historialCompraRepository).insertarLote(argThat(registros -> registros.size() == 3
+                && registros.stream().allMatch(r -> r.getTipoOperacion() == HistorialCompra.TipoOperacion.VENTA)));
+        verify(eventPublisher, times(2)).publishEvent(any(InventarioCambiadoEvent.class));
+        verify(inventarioRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void decrementarPedido_StockInsuficienteNoDescuentaNinguno() {
+        // Arrange
+        Inventario otro = Inventario.builder().productoId(3).cantidad(7).build();
+        when(productoService.getProductosBatch(List.of(1, 3)))
+                .thenReturn(Mono.just(List.of(producto, Producto.builder().id(3).build())));
+        when(inventarioRepository.bloquearInventarios(List.of(1, 3))).thenReturn(List.of(inventario, otro));
+        when(reservaStockService.cantidadRetenida(anyInt())).thenAnswer(i -> i.getArgument(0).equals(3) ? 5 : 0);
+
+        // Act & Assert
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> inventarioService.decrementarPedido(List.of(linea(1, 10), linea(3, 3))));
+        assertTrue(error.getMessage().contains("3 (disponible: 2, pedido: 3)"));
+        verify(inventarioRepository, never()).decrementarCantidades(any());
+        verifyNoInteractions(historialCompraRepository, eventPublisher);
+    }
+
+    @Test
+    void decrementarPedido_ProductoSinInventario() {
+        when(productoService.getProductosBatch(List.of(1, 3)))
+                .thenReturn(Mono.just(List.of(producto, Producto.builder().id(3).build())));
+        when(inventarioRepository.bloquearInventarios(List.of(1, 3))).thenReturn(List.of(inventario));
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> inventarioService.decrementarPedido(List.of(linea(1, 1), linea(3, 1))));
+        assertTrue(error.getMessage().contains("[3]"));
+        verify(inventarioRepository, never()).decrementarCantidades(any());
+    }
+
+    @Test
+    void decrementarPedido_ProductoFueraDelLoteSeConfirmaPorIdYNoSeDaPorInexistente() {
+        // Arrange
+        Inventario otro = Inventario.builder().productoId(3).cantidad(7).build();
+        when(productoService.getProductosBatch(List.of(1, 3))).thenReturn(Mono.just(List.of(producto)));
+        when(productoService.confirmarExistencia(3)).thenReturn(Mono.just(true));
+        when(inventarioRepository.bloquearInventarios(List.of(1, 3))).thenReturn(List.of(inventario, otro));
+        when(inventarioRepository.decrementarCantidades(Map.of(1, 1, 3, 1))).thenReturn(2);
+
+        // Act
+        InventarioColeccion coleccion = inventarioService.decrementarPedido(List.of(linea(1, 1), linea(3, 1)));
+
+        // Assert
+        assertEquals(List.of(99, 6), coleccion.getInventarios().stream().map(Inventario::getCantidad).toList());
+        assertEquals(List.of(producto), coleccion.getProductos());
+        verify(productoService, never()).confirmarExistencia(1);
+    }
+
+    @Test
+    void decrementarPedido_ServicioDeProductosCaidoNoReportaProductosInexistentes() {
+        // Arrange
+        when(productoService.getProductosBatch(List.of(1, 3)))
+                .thenReturn(Mono.error(new RuntimeException("Servicio de productos no disponible")));
+        when(productoService.confirmarExistencia(1)).thenReturn(Mono.just(true));
+        when(productoService.confirmarExistencia(3))
+                .thenReturn(Mono.error(new ServicioProductosNoDisponibleException("sin respuesta")));
+
+        // Act & Assert
+        assertThrows(ServicioProductosNoDisponibleException.class,
+                () -> inventarioService.decrementarPedido(List.of(linea(1, 1), linea(3, 1))));
+        verify(inventarioRepository, never()).bloquearInventarios(any());
+    }
+
     @Test
     void getEstadisticasInventario_Success() {
         // Arrange
         when(inventarioRepository.countTotalProductos()).thenReturn(10L);
         when(inventarioRepository.sumTotalCantidades()).thenReturn(1000L);
-        when(inventarioRepository.findProductosSinStock()).thenReturn(List.of());
-        when(inventarioRepository.findProductosConStockBajo(10)).thenReturn(List.of());
+        when(inventarioRepository.countProductosSinStock()).thenReturn(0L);
+        when(inventarioRepository.countProductosBajoStockMinimo()).thenReturn(0L);
 
         // Act
         InventarioService.InventarioStats stats = inventarioService.getEstadisticasInventario();
@@ -273,6 +635,40 @@ class InventarioServiceTest {
         verify(inventarioRepository).sumTotalCantidades();
     }
 
+    @Test
+    void getEstadisticasInventario_FragmentadosCuentanConLaSumaDeSusFragmentos() {
+        // Arrange
+        when(inventarioRepository.countProductosSinStock()).thenReturn(1L);
+        when(inventarioRepository.countProductosBajoStockMinimo()).thenReturn(2L);
+        when(inventarioRepository.buscarFragmentadosConCantidadActual()).thenReturn(List.of(
+                Inventario.builder().productoId(3).cantidad(0).fragmentos(4).build(),
+                Inventario.builder().productoId(4).cantidad(6).stockMinimo(5).fragmentos(4).build()));
+
+        // Act
+        InventarioService.InventarioStats stats = inventarioService.getEstadisticasInventario();
+
+        // Assert
+        assertEquals(2L, stats.getProductosSinStock());
+        assertEquals(3L, stats.getProductosConStockBajo());
+        verify(inventarioRepository, never()).findProductosSinStock();
+    }
+
+    @Test
+    void getInventariosSinStock_IncluyeLosFragmentadosAgotadosAunqueSuFilaNoLoRefleje() {
+        // Arrange
+        Inventario agotado = Inventario.builder().productoId(3).cantidad(0).fragmentos(4).build();
+        when(inventarioRepository.findProductosSinStock()).thenReturn(List.of());
+        when(inventarioRepository.buscarFragmentadosConCantidadActual()).thenReturn(List.of(agotado,
+                Inventario.builder().productoId(4).cantidad(9).fragmentos(4).build()));
+        when(productoService.getProductoById(3)).thenReturn(Mono.just(producto));
+
+        // Act
+        List<Inventario> response = inventarioService.getInventariosSinStock();
+
+        // Assert
+        assertEquals(List.of(agotado), response);
+    }
+
     @Test
     void inventario_CantidadValida() {
         // Act & Assert
@@ -347,4 +743,12 @@ class InventarioServiceTest {
         producto.setPrecio(null);
         assertFalse(producto.isPrecioValido());
     }
-}
\ No newline at end of file
+
+    private static PedidoRequest.LineaPedido linea(Integer productoId, Integer cantidad) {
+        return PedidoRequest.LineaPedido.builder()
+                .productoId(productoId)
+                .cantidad(cantidad)
+                .precioUnitario(new BigDecimal("10.00"))
+                .build();
+    }
+}
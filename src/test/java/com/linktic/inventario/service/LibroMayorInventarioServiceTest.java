@@ -0,0 +1,141 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.HistorialCompra;
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.repository.HistorialCompraRepository;
+import com.linktic.inventario.repository.InstantaneaInventario;
+import com.linktic.inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para LibroMayorInventarioService
+ */
+@ExtendWith(MockitoExtension.class)
+class LibroMayorInventarioServiceTest {
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private HistorialCompraRepository historialCompraRepository;
+
+    @Mock
+    private FragmentosInventarioService fragmentosInventarioService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private LibroMayorInventarioService libroMayorInventarioService;
+
+    private final Inventario inventario = Inventario.builder().productoId(1).cantidad(40).build();
+    private final InstantaneaInventario instantanea = new InstantaneaInventario(1, 100L, 40);
+
+    @BeforeEach
+    void setUp() {
+        libroMayorInventarioService = new LibroMayorInventarioService(inventarioRepository, historialCompraRepository,
+                fragmentosInventarioService, transactionTemplate, true, 0);
+    }
+
+    @Test
+    void registrarEntrada_SoloAnadeElMovimientoConBloqueoCompartido() {
+        // Arrange
+        when(inventarioRepository.buscarInstantanea(1, false)).thenReturn(instantanea);
+        when(inventarioRepository.bloquearInventarioCompartido(1)).thenReturn(inventario);
+        when(inventarioRepository.aplicarMovimientos(instantanea, false)).thenReturn(new InstantaneaInventario(1, 105L, 55));
+
+        // Act
+        int saldo = libroMayorInventarioService.registrarEntrada(1, 5, new BigDecimal("2.00"));
+
+        // Assert
+        assertEquals(55, saldo);
+        verify(historialCompraRepository).insertarLote(argThat(movimientos -> movimientos.size() == 1
+                && movimientos.get(0).getDelta() == 5
+                && movimientos.get(0).getTipoOperacion() == HistorialCompra.TipoOperacion.COMPRA));
+        verify(inventarioRepository, never()).bloquearInventario(any());
+        verify(inventarioRepository, never()).actualizarConsolidado(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void registrarSalida_CompruebaElSaldoExactoMenosLoRetenido() {
+        // Arrange
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(inventario);
+        when(inventarioRepository.buscarInstantanea(1, true)).thenReturn(instantanea);
+        when(inventarioRepository.aplicarMovimientos(instantanea, true)).thenReturn(new InstantaneaInventario(1, 104L, 12));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> libroMayorInventarioService.registrarSalida(1, 10, 3, null));
+        assertEquals(12, libroMayorInventarioService.registrarSalida(1, 9, 3, null));
+        verify(historialCompraRepository).insertarLote(argThat(movimientos -> movimientos.get(0).getDelta() == -9));
+    }
+
+    @Test
+    void registrarAjuste_PrimeraOperacionCreaLaInstantaneaInicial() {
+        // Arrange
+        InstantaneaInventario inicial = new InstantaneaInventario(1, 77L, 40);
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(inventario);
+        when(inventarioRepository.buscarInstantanea(1, true)).thenReturn(null);
+        when(inventarioRepository.ultimoMovimiento(1)).thenReturn(77L);
+        when(inventarioRepository.aplicarMovimientos(inicial, true)).thenReturn(inicial);
+
+        // Act
+        int anterior = libroMayorInventarioService.registrarAjuste(1, 25);
+
+        // Assert
+        assertEquals(40, anterior);
+        verify(inventarioRepository).guardarInstantanea(inicial);
+        verify(historialCompraRepository).insertarLote(argThat(movimientos -> movimientos.get(0).getDelta() == -15
+                && movimientos.get(0).getCantidad() == 15));
+    }
+
+    @Test
+    void compactar_GuardaLaNuevaInstantaneaYConsolidaElSaldo() {
+        // Arrange
+        when(transactionTemplate.execute(any())).thenAnswer(i -> ((TransactionCallback<?>) i.getArgument(0)).doInTransaction(null));
+        when(inventarioRepository.buscarProductosConMovimientosPendientes()).thenReturn(List.of(1));
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(inventario);
+        when(inventarioRepository.buscarInstantanea(1, true)).thenReturn(instantanea);
+        InstantaneaInventario nueva = new InstantaneaInventario(1, 130L, 33);
+        when(inventarioRepository.aplicarMovimientos(instantanea, true)).thenReturn(nueva);
+
+        // Act
+        int compactados = libroMayorInventarioService.compactar();
+
+        // Assert
+        assertEquals(1, compactados);
+        verify(inventarioRepository).guardarInstantanea(nueva);
+        verify(inventarioRepository).actualizarConsolidado(1, 33, 0);
+    }
+
+    @Test
+    void sustituirPorSaldos_SoloLosProductosConInstantanea() {
+        // Arrange
+        when(inventarioRepository.buscarInstantanea(1, true)).thenReturn(instantanea);
+        when(inventarioRepository.buscarInstantanea(2, true)).thenReturn(null);
+        when(inventarioRepository.aplicarMovimientos(instantanea, true)).thenReturn(new InstantaneaInventario(1, 101L, 38));
+        Map<Integer, Integer> cantidades = new HashMap<>(Map.of(1, 40, 2, 9));
+        cantidades.put(3, null);
+
+        // Act
+        libroMayorInventarioService.sustituirPorSaldos(cantidades);
+
+        // Assert
+        assertEquals(38, cantidades.get(1));
+        assertEquals(9, cantidades.get(2));
+        assertNull(cantidades.get(3));
+    }
+}
@@ -0,0 +1,85 @@
+package com.linktic.inventario.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para LimitadorConcurrenciaAdaptativo
+ */
+class LimitadorConcurrenciaAdaptativoTest {
+
+    private final AtomicInteger rechazos = new AtomicInteger();
+
+    @Test
+    void limitar_EncolaSobreElLimiteYRechazaConLaColaLlena() {
+        LimitadorConcurrenciaAdaptativo limitador = crear(2, 1, 10_000);
+        List<Sinks.One<String>> llamadas = new ArrayList<>();
+        List<AtomicReference<Object>> resultados = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Sinks.One<String> llamada = Sinks.one();
+            AtomicReference<Object> resultado = new AtomicReference<>();
+            limitador.limitar(llamada.asMono()).subscribe(resultado::set, resultado::set);
+            llamadas.add(llamada);
+            resultados.add(resultado);
+        }
+
+        assertEquals(2, limitador.getEnVuelo());
+        assertEquals(1, limitador.getEnCola());
+        assertInstanceOf(LlamadaRechazadaException.class, resultados.get(3).get());
+        assertEquals(1, rechazos.get());
+
+        // Al terminar una llamada, la encolada recibe su permiso
+        llamadas.get(0).tryEmitValue("a");
+        llamadas.get(2).tryEmitValue("c");
+
+        assertEquals("a", resultados.get(0).get());
+        assertEquals("c", resultados.get(2).get());
+        assertEquals(1, limitador.getEnVuelo());
+        assertEquals(0, limitador.getEnCola());
+    }
+
+    @Test
+    void limitar_RechazaAlAgotarseLaEsperaEnCola() {
+        LimitadorConcurrenciaAdaptativo limitador = crear(1, 5, 50);
+        limitador.limitar(Mono.never()).subscribe();
+
+        Mono<String> encolada = limitador.limitar(Mono.just("b"));
+        RuntimeException error = assertThrows(RuntimeException.class, () -> encolada.block(Duration.ofSeconds(5)));
+
+        assertInstanceOf(LlamadaRechazadaException.class, error);
+        assertEquals(0, limitador.getEnCola());
+        assertEquals(1, rechazos.get());
+    }
+
+    @Test
+    void limitar_LaSobrecargaReduceElLimite() {
+        LimitadorConcurrenciaAdaptativo limitador = crear(10, 5, 10_000);
+
+        for (int i = 0; i < 5; i++) {
+            limitador.limitar(Mono.error(new TimeoutException())).subscribe(valor -> { }, error -> { });
+        }
+
+        // 10 * 0.9^5 = 5.9
+        assertEquals(5, limitador.getLimite());
+        assertEquals(0, limitador.getEnVuelo());
+    }
+
+    private LimitadorConcurrenciaAdaptativo crear(int limite, int maxCola, long maxEsperaMs) {
+        return new LimitadorConcurrenciaAdaptativo(limite, 1, 100, maxCola, maxEsperaMs, 1000, Schedulers.parallel(),
+                error -> error instanceof TimeoutException
+                        ? LimitadorConcurrenciaAdaptativo.Resultado.SOBRECARGA
+                        : LimitadorConcurrenciaAdaptativo.Resultado.IGNORADO,
+                rechazos::incrementAndGet);
+    }
+}
@@ -0,0 +1,171 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Producto;
+import com.linktic.inventario.repository.InventarioRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ProductoService
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductoServiceTest {
+
+    @Mock
+    private ProductoClient productoClient;
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    private ProductoCache productoCache;
+    private IndiceProductos indiceProductos;
+    private ProductoCacheNegativa productoCacheNegativa;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private ProductoService productoService;
+
+    @BeforeEach
+    void setUp() {
+        productoCache = new ProductoCache(300, 100);
+        indiceProductos = new IndiceProductos(inventarioRepository, true, 300);
+        productoCacheNegativa = new ProductoCacheNegativa(30, 100, new SimpleMeterRegistry());
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        productoService = crearServicio(productoCache);
+    }
+
+    @Test
+    void getProductoById_SegundaConsultaDesdeCache() {
+        when(productoClient.getProductoById(1)).thenReturn(Mono.just(producto(1)));
+
+        productoService.getProductoById(1).block();
+        Producto producto = productoService.getProductoById(1).block();
+
+        assertEquals(1, producto.getId());
+        assertTrue(productoService.productoExists(1).block());
+        verify(productoClient, times(1)).getProductoById(1);
+        verify(productoClient, never()).productoExists(any());
+    }
+
+    @Test
+    void getProductosBatch_SoloPideLosFaltantesYConservaElOrden() {
+        productoCache.guardar(producto(2));
+        when(productoClient.getProductosBatch(List.of(3, 1))).thenReturn(Mono.just(List.of(producto(1), producto(3))));
+
+        List<Producto> productos = productoService.getProductosBatch(List.of(3, 2, 1)).block();
+
+        assertEquals(List.of(3, 2, 1), productos.stream().map(Producto::getId).toList());
+        assertEquals(3, productoCache.size());
+    }
+
+    @Test
+    void productoExists_IndiceEvitaLaConsultaRemotaYAprendeLasPositivas() {
+        doAnswer(invocation -> {
+            IntConsumer consumidor = invocation.getArgument(0);
+            consumidor.accept(1);
+            consumidor.accept(70000);
+            return null;
+        }).when(inventarioRepository).recorrerIdsProducto(any());
+        indiceProductos.sincronizar();
+        when(productoClient.productoExists(2)).thenReturn(Mono.just(true));
+        when(productoClient.productoExists(3)).thenReturn(Mono.just(false));
+
+        assertTrue(productoService.productoExists(1).block());
+        assertTrue(productoService.productoExists(70000).block());
+        assertTrue(productoService.productoExists(2).block());
+        assertTrue(productoService.productoExists(2).block());
+        assertFalse(productoService.productoExists(3).block());
+        assertFalse(productoService.productoExists(3).block());
+
+        verify(productoClient, never()).productoExists(1);
+        verify(productoClient, times(1)).productoExists(2);
+        verify(productoClient, times(1)).productoExists(3);
+        assertEquals(3, indiceProductos.size());
+    }
+
+    @Test
+    void confirmarExistencia_SinRespuestaDelServicioNoLoDaPorInexistente() {
+        indiceProductos.marcar(1);
+        when(productoClient.productoExists(2)).thenReturn(Mono.empty());
+
+        assertTrue(productoService.confirmarExistencia(1).block());
+        assertThrows(ServicioProductosNoDisponibleException.class, () -> productoService.confirmarExistencia(2).block());
+        assertFalse(productoService.productoExists(2).block());
+        verify(productoClient, never()).productoExists(1);
+    }
+
+    @Test
+    void productoInexistente_SeRechazaLocalmenteTrasLaPrimeraConsulta() {
+        when(productoClient.getProductoById(9)).thenReturn(Mono.empty());
+
+        RuntimeException primera = assertThrows(RuntimeException.class, () -> productoService.getProductoById(9).block());
+        assertThrows(RuntimeException.class, () -> productoService.getProductoById(9).block());
+
+        assertEquals("El producto con ID 9 no existe", primera.getMessage());
+        assertFalse(productoService.productoExists(9).block());
+        verify(productoClient, times(1)).getProductoById(9);
+        verify(productoClient, never()).productoExists(any());
+    }
+
+    @Test
+    void productoExists_SinRespuestaDelServicioNoSeCachea() {
+        // El fallback del circuit breaker devuelve vacío
+        when(productoClient.productoExists(5)).thenReturn(Mono.empty());
+
+        assertFalse(productoService.productoExists(5).block());
+        assertFalse(productoService.productoExists(5).block());
+
+        verify(productoClient, times(2)).productoExists(5);
+        assertEquals(0, productoCacheNegativa.size());
+    }
+
+    @Test
+    void servicioCaido_SirveElUltimoValorConocidoYLoRefrescaAlCerrarseElCircuito() throws InterruptedException {
+        // TTL 0: la entrada expira enseguida pero se conserva como último valor conocido
+        ProductoService servicio = crearServicio(new ProductoCache(0, 100));
+        when(productoClient.getProductoById(1))
+                .thenReturn(Mono.just(producto(1)))
+                .thenReturn(Mono.error(new RuntimeException("Servicio de productos no disponible")));
+        when(productoClient.getProductoById(2)).thenReturn(Mono.error(new RuntimeException("Servicio de productos no disponible")));
+        when(productoClient.getProductosBatch(List.of(1))).thenReturn(Mono.just(List.of(producto(1))));
+
+        assertNull(servicio.getProductoById(1).block().getDesactualizado());
+        Thread.sleep(5);
+        Producto desactualizado = servicio.getProductoById(1).block();
+        assertThrows(RuntimeException.class, () -> servicio.getProductoById(2).block());
+
+        assertEquals(1, desactualizado.getId());
+        assertTrue(desactualizado.getDesactualizado());
+
+        CircuitBreaker circuito = circuitBreakerRegistry.circuitBreaker("productos-service");
+        circuito.transitionToOpenState();
+        circuito.transitionToClosedState();
+
+        verify(productoClient, times(1)).getProductosBatch(List.of(1));
+    }
+
+    private ProductoService crearServicio(ProductoCache cache) {
+        ProductoService servicio = new ProductoService(productoClient, cache, indiceProductos,
+                productoCacheNegativa, circuitBreakerRegistry,
+                new CoberturaSolicitudes(false, 95, 20, 50, 5, new SimpleMeterRegistry()),
+                new AgrupadorProductos(productoClient, false, 5, 50, new SimpleMeterRegistry()));
+        servicio.suscribirCircuito();
+        return servicio;
+    }
+
+    private Producto producto(int id) {
+        return Producto.builder().id(id).nombre("Producto " + id).build();
+    }
+}
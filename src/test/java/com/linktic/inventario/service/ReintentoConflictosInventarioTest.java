@@ -0,0 +1,94 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Inventario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ReintentoConflictosInventario
+ */
+class ReintentoConflictosInventarioTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReintentoConflictosInventario reintento = new ReintentoConflictosInventario(meterRegistry, 3, 1, 2, 1);
+    private final AtomicInteger intentos = new AtomicInteger();
+
+    @Test
+    void ejecutar_ReintentaHastaQueNoHayConflicto() {
+        String resultado = reintento.ejecutar(1, () -> {
+            if (intentos.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Inventario.class, 1);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", resultado);
+        assertEquals(3, intentos.get());
+        assertEquals(2, contador("inventario.conflictos", "1"));
+        assertEquals(2, contador("inventario.conflictos.reintentos", "1"));
+        assertNull(meterRegistry.find("inventario.conflictos.agotados").counter());
+    }
+
+    @Test
+    void ejecutar_PropagaElConflictoAlAgotarLosIntentos() {
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> reintento.ejecutar(1, () -> {
+            intentos.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Inventario.class, 1);
+        }));
+
+        assertEquals(3, intentos.get());
+        assertEquals(3, contador("inventario.conflictos", "1"));
+        assertEquals(2, contador("inventario.conflictos.reintentos", "1"));
+        assertEquals(1, contador("inventario.conflictos.agotados", "1"));
+    }
+
+    @Test
+    void ejecutar_NoReintentaOtrosErrores() {
+        assertThrows(IllegalArgumentException.class, () -> reintento.ejecutar(1, () -> {
+            intentos.incrementAndGet();
+            throw new IllegalArgumentException("No hay suficiente stock disponible");
+        }));
+
+        assertEquals(1, intentos.get());
+        assertNull(meterRegistry.find("inventario.conflictos").counter());
+    }
+
+    @Test
+    void ejecutar_AgrupaLosProductosQueExcedenElLimiteDeMetricas() {
+        for (int productoId = 1; productoId <= 2; productoId++) {
+            Integer id = productoId;
+            AtomicInteger intentosProducto = new AtomicInteger();
+            reintento.ejecutar(id, () -> {
+                if (intentosProducto.incrementAndGet() == 1) {
+                    throw new ObjectOptimisticLockingFailureException(Inventario.class, id);
+                }
+                return null;
+            });
+        }
+
+        assertEquals(1, contador("inventario.conflictos", "1"));
+        assertEquals(1, contador("inventario.conflictos", ReintentoConflictosInventario.OTROS_PRODUCTOS));
+        assertNull(meterRegistry.find("inventario.conflictos").tag("producto", "2").counter());
+    }
+
+    @Test
+    void ejecutar_SinProductoCuentaElProductoDelConflicto() {
+        reintento.ejecutar(null, () -> {
+            if (intentos.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException(Inventario.class, 1);
+            }
+            return null;
+        });
+
+        assertEquals(1, contador("inventario.conflictos", "1"));
+    }
+
+    private double contador(String nombre, String producto) {
+        return meterRegistry.get(nombre).tag("producto", producto).counter().count();
+    }
+}
@@ -0,0 +1,143 @@
+package com.linktic.inventario.service;
+
+import com.linktic.inventario.model.Inventario;
+import com.linktic.inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ReservaStockService
+ */
+@ExtendWith(MockitoExtension.class)
+class ReservaStockServiceTest {
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private FragmentosInventarioService fragmentosInventarioService;
+
+    @Mock
+    private LibroMayorInventarioService libroMayorInventarioService;
+
+    @InjectMocks
+    private ReservaStockService reservaStockService;
+
+    private Inventario fragmentado;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reservaStockService, "ttlPorDefectoSegundos", 300);
+        ReflectionTestUtils.setField(reservaStockService, "ttlMaximoSegundos", 3600);
+        ReflectionTestUtils.setField(reservaStockService, "tickMs", 1000L);
+        ReflectionTestUtils.setField(reservaStockService, "ranuras", 16);
+        reservaStockService.iniciar();
+
+        // La fila conserva la última consolidación; los fragmentos suman el stock real
+        fragmentado = Inventario.builder().productoId(1).cantidad(100).fragmentos(4).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservaStockService.detener();
+    }
+
+    @Test
+    void reservar_StockFragmentadoSeCompruebaContraLaSumaDeFragmentos() {
+        // Arrange
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(fragmentado);
+        when(fragmentosInventarioService.cantidadTotal(1)).thenReturn(10);
+
+        // Act
+        ResultadoReserva resultado = reservaStockService.reservar(1, 10, null, BigDecimal.ONE);
+
+        // Assert
+        assertEquals(10, resultado.getReserva().getCantidad());
+        assertEquals(0, resultado.getCantidadDisponible());
+        assertThrows(IllegalArgumentException.class, () -> reservaStockService.reservar(1, 1, null, BigDecimal.ONE));
+        assertEquals(10, reservaStockService.cantidadRetenida(1));
+    }
+
+    @Test
+    void reservar_RollbackDeLaTransaccionDevuelveLaRetencion() {
+        // Arrange
+        Inventario inventario = Inventario.builder().productoId(2).cantidad(20).build();
+        when(inventarioRepository.bloquearInventario(2)).thenReturn(inventario);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ResultadoReserva resultado = reservaStockService.reservar(2, 5, null, BigDecimal.ONE);
+            assertEquals(15, resultado.getCantidadDisponible());
+            assertEquals(5, reservaStockService.cantidadRetenida(2));
+
+            // Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            // Assert
+            assertEquals(0, reservaStockService.cantidadRetenida(2));
+            String reservaId = resultado.getReserva().getId();
+            assertThrows(RuntimeException.class, () -> reservaStockService.obtenerReserva(reservaId));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void cantidadDisponible_StockFragmentadoDescuentaLoRetenidoDeLaSumaDeFragmentos() {
+        // Arrange
+        when(inventarioRepository.bloquearInventario(1)).thenReturn(fragmentado);
+        when(inventarioRepository.findByProductoId(1)).thenReturn(Optional.of(fragmentado));
+        when(fragmentosInventarioService.cantidadTotal(1)).thenReturn(30);
+        reservaStockService.reservar(1, 5, null, BigDecimal.ONE);
+
+        // Act
+        int disponible = reservaStockService.cantidadDisponible(1);
+
+        // Assert
+        assertEquals(25, disponible);
+    }
+
+    @Test
+    void reservar_ConLibroMayorSeCompruebaContraElSaldoDeLaFilaBloqueada() {
+        // Arrange
+        Inventario inventario = Inventario.builder().productoId(2).cantidad(100).build();
+        when(libroMayorInventarioService.isHabilitado()).thenReturn(true);
+        when(inventarioRepository.bloquearInventario(2)).thenReturn(inventario);
+        when(libroMayorInventarioService.saldoBloqueado(inventario)).thenReturn(3);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> reservaStockService.reservar(2, 4, null, BigDecimal.ONE));
+        assertEquals(0, reservaStockService.cantidadRetenida(2));
+        verifyNoInteractions(fragmentosInventarioService);
+    }
+
+    @Test
+    void cantidadDisponible_ConLibroMayorUsaElSaldoYSinInstantaneaLaFila() {
+        // Arrange
+        when(libroMayorInventarioService.isHabilitado()).thenReturn(true);
+        when(inventarioRepository.findByProductoId(2))
+                .thenReturn(Optional.of(Inventario.builder().productoId(2).cantidad(100).build()));
+        when(inventarioRepository.findByProductoId(3))
+                .thenReturn(Optional.of(Inventario.builder().productoId(3).cantidad(8).build()));
+        when(libroMayorInventarioService.saldo(2)).thenReturn(40);
+        when(libroMayorInventarioService.saldo(3)).thenReturn(null);
+
+        // Act & Assert
+        assertEquals(40, reservaStockService.cantidadDisponible(2));
+        assertEquals(8, reservaStockService.cantidadDisponible(3));
+    }
+}
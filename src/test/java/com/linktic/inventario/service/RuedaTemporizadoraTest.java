@@ -0,0 +1,104 @@
+package com.linktic.inventario.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para RuedaTemporizadora
+ */
+class RuedaTemporizadoraTest {
+
+    private final List<String> expiradas = new ArrayList<>();
+    private final RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(100, 4, expiradas::add);
+
+    @Test
+    void avanzar_ExpiraAlCumplirElPlazo() {
+        rueda.programar("a", 250);
+
+        avanzar(2);
+        assertTrue(expiradas.isEmpty());
+
+        avanzar(1);
+        assertEquals(List.of("a"), expiradas);
+        assertEquals(0, rueda.size());
+    }
+
+    @Test
+    void avanzar_PlazoMayorQueUnaVuelta() {
+        rueda.programar("a", 1000);
+
+        avanzar(9);
+        assertTrue(expiradas.isEmpty());
+
+        avanzar(1);
+        assertEquals(List.of("a"), expiradas);
+    }
+
+    @Test
+    void cancelar_EvitaLaExpiracion() {
+        rueda.programar("a", 100);
+
+        assertTrue(rueda.cancelar("a"));
+        avanzar(4);
+
+        assertTrue(expiradas.isEmpty());
+        assertFalse(rueda.cancelar("a"));
+    }
+
+    @Test
+    void programar_ReprogramarReemplazaElPlazoAnterior() {
+        rueda.programar("a", 100);
+        rueda.programar("a", 300);
+
+        avanzar(2);
+        assertTrue(expiradas.isEmpty());
+
+        avanzar(1);
+        assertEquals(List.of("a"), expiradas);
+    }
+
+    @Test
+    void programar_DuranteUnAvanceNoPierdeLaVuelta() throws InterruptedException {
+        // Arrange
+        Set<Integer> vencidas = ConcurrentHashMap.newKeySet();
+        RuedaTemporizadora<Integer> concurrente = new RuedaTemporizadora<>(100, 8, vencidas::add);
+        AtomicBoolean programando = new AtomicBoolean(true);
+        Thread avance = new Thread(() -> {
+            while (programando.get()) {
+                concurrente.avanzar();
+            }
+        });
+        int total = 20_000;
+        int lejanas = 4_000;
+        for (int i = 1; i <= lejanas; i++) {
+            // Claves con plazo lejano que alargan el recorrido de cada ranura
+            concurrente.programar(-i, 1_000_000_000L);
+        }
+
+        // Act
+        avance.start();
+        for (int i = 0; i < total; i++) {
+            concurrente.programar(i, 100);
+        }
+        programando.set(false);
+        avance.join();
+        concurrente.avanzar();
+
+        // Assert: con plazo de un tick, un avance tras programar basta para expirar cualquier clave
+        assertEquals(lejanas, concurrente.size());
+        assertEquals(total, vencidas.size());
+    }
+
+    private void avanzar(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            rueda.avanzar();
+        }
+    }
+}